@@ -0,0 +1,50 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.benchmark;
+
+import fr.inria.inspectorguidget.api.analyser.CommandAnalyser;
+import fr.inria.inspectorguidget.api.analyser.CommandWidgetFinder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the command analysis and the command/widget matching on prebuilt models.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyserBenchmark {
+	@Benchmark
+	public Object commandAnalyserProcess(final CorpusState state) {
+		final CommandAnalyser analyser = new CommandAnalyser(state.builder);
+		analyser.process();
+		return analyser.getCommands();
+	}
+
+	@Benchmark
+	public Object commandWidgetFinderProcess(final CorpusState state) {
+		final CommandWidgetFinder finder = new CommandWidgetFinder(state.commands, state.widgetUsages);
+		finder.process();
+		return finder.getResults();
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.benchmark;
+
+import fr.inria.inspectorguidget.api.analyser.Command;
+import fr.inria.inspectorguidget.api.analyser.CommandAnalyser;
+import fr.inria.inspectorguidget.api.analyser.InspectorGuidetAnalyser;
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import fr.inria.inspectorguidget.generator.GUICorpusGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import spoon.reflect.CtModel;
+import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
+
+/**
+ * A model built once per trial from a corpus, with the results of the analyses required by the benchmarked steps.
+ * The corpora are read from the folder given by the system property 'inspectorguidget.corpus'
+ * (by default, the test resources of the main project).
+ * A corpus named 'generated-N' is generated (see GUICorpusGenerator) with N listener classes.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+	private static final String GENERATED = "generated-";
+
+	@Param({"widgetsIdentification/InsertPSTricksCodeFrame.java", "analysers/RealComplexCommandExample1.java", "widgetsIdentification",
+		"generated-100", "generated-1000"})
+	public String corpus;
+
+	public JDTBasedSpoonCompiler builder;
+	public CtModel model;
+	public List<Command> commands;
+	public Collection<WidgetProcessor.WidgetUsage> widgetUsages;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		final CommandAnalyser cmdAnalyser = new CommandAnalyser();
+		cmdAnalyser.addInputResource(resolve(corpus));
+		cmdAnalyser.run();
+
+		builder = cmdAnalyser.getModelBuilder();
+		model = cmdAnalyser.getModel();
+		commands = cmdAnalyser.getCommands().values().stream().flatMap(l -> l.getCommands().stream()).collect(Collectors.toList());
+
+		final WidgetProcessor widgetProc = new WidgetProcessor(true);
+		new InspectorGuidetAnalyser(Collections.singletonList(widgetProc), builder).process();
+		widgetUsages = widgetProc.getWidgetUsages();
+	}
+
+	public static String resolve(final String corpus) throws IOException {
+		if(corpus.startsWith(GENERATED)) {
+			final Path dir = Files.createTempDirectory("inspectorguidget-corpus");
+			new GUICorpusGenerator()
+				.listenerClasses(Integer.parseInt(corpus.substring(GENERATED.length())))
+				.lambdaPercentage(30)
+				.commandsPerListener(5)
+				.nestingDepth(2)
+				.widgetsPerClass(5)
+				.generate(dir);
+			return dir.toString();
+		}
+		return new File(System.getProperty("inspectorguidget.corpus", "../src/test/resources/java"), corpus).getPath();
+	}
+}
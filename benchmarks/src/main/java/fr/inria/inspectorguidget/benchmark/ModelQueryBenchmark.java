@@ -0,0 +1,87 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.benchmark;
+
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import fr.inria.inspectorguidget.internal.filter.ConditionalFilter;
+import fr.inria.inspectorguidget.internal.filter.LocalVariableAccessFilter;
+import fr.inria.inspectorguidget.internal.filter.ReturnFilter;
+import fr.inria.inspectorguidget.internal.filter.StringLiteralFilter;
+import fr.inria.inspectorguidget.internal.filter.ThisAccessFilter;
+import fr.inria.inspectorguidget.internal.filter.TypeRefFilter;
+import fr.inria.inspectorguidget.internal.filter.VariableAccessFilter;
+import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the queries the analyses run on the model: the usages of the widget variables and the filters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelQueryBenchmark {
+	@Benchmark
+	public void extractUsagesOfVar(final CorpusState state, final Blackhole bh) {
+		for(final WidgetProcessor.WidgetUsage usage : state.widgetUsages) {
+			bh.consume(SpoonHelper.INSTANCE.extractUsagesOfVar(usage.widgetVar));
+		}
+	}
+
+	@Benchmark
+	public Object variableAccessFilter(final CorpusState state) {
+		return state.model.getElements(new VariableAccessFilter());
+	}
+
+	@Benchmark
+	public Object localVariableAccessFilter(final CorpusState state) {
+		return state.model.getElements(new LocalVariableAccessFilter());
+	}
+
+	@Benchmark
+	public Object thisAccessFilter(final CorpusState state) {
+		return state.model.getElements(new ThisAccessFilter(false));
+	}
+
+	@Benchmark
+	public Object stringLiteralFilter(final CorpusState state) {
+		return state.model.getElements(new StringLiteralFilter());
+	}
+
+	@Benchmark
+	public Object conditionalFilter(final CorpusState state) {
+		return state.model.getElements(new ConditionalFilter());
+	}
+
+	@Benchmark
+	public Object returnFilter(final CorpusState state) {
+		return state.model.getElements(new ReturnFilter());
+	}
+
+	@Benchmark
+	public Object typeRefFilter(final CorpusState state) {
+		return state.model.getElements(new TypeRefFilter(WidgetHelper.INSTANCE.getWidgetTypes(state.builder.getFactory())));
+	}
+}
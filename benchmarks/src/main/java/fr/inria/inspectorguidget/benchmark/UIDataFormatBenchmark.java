@@ -0,0 +1,115 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.benchmark;
+
+import fr.inria.inspectorguidget.api.io.UIDataBinaryReader;
+import fr.inria.inspectorguidget.api.io.UIDataBinaryWriter;
+import fr.inria.inspectorguidget.api.io.UIDataJsonReader;
+import fr.inria.inspectorguidget.api.io.UIDataJsonWriter;
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the JSON and the binary UIData formats: parsing and writing times. The sizes of the documents are reported
+ * by the write benchmarks as the secondary result 'bytes'.
+ * The UIData files are resolved against the folder given by the system property 'inspectorguidget.uidata'
+ * (by default, the root of the main project).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UIDataFormatBenchmark {
+	@Param({"uiData-argouml.json"})
+	public String file;
+
+	String json;
+	byte[] binary;
+	UIData data;
+	long jsonSize;
+
+	@Setup
+	public void setUp() throws IOException {
+		json = Files.readString(Paths.get(System.getProperty("inspectorguidget.uidata", ".."), file), StandardCharsets.UTF_8);
+		data = new UIDataJsonReader().read(json);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new UIDataBinaryWriter().write(data, out);
+		binary = out.toByteArray();
+		final StringWriter jsonOut = new StringWriter();
+		try(final UIDataJsonWriter writer = new UIDataJsonWriter(jsonOut)) {
+			data.getWidgetBindings().forEach(writer);
+		}
+		// Computed once: encoding the written document at each invocation would be measured.
+		jsonSize = jsonOut.toString().getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * The size, in bytes, of the document written by a benchmark.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class DocumentSize {
+		public long bytes;
+	}
+
+	@Benchmark
+	public UIData parseJson() {
+		return new UIDataJsonReader().read(json);
+	}
+
+	@Benchmark
+	public UIData parseBinary() throws IOException {
+		return new UIDataBinaryReader().read(new ByteArrayInputStream(binary));
+	}
+
+	@Benchmark
+	public StringWriter writeJson(final DocumentSize size) throws IOException {
+		final StringWriter out = new StringWriter();
+		try(final UIDataJsonWriter writer = new UIDataJsonWriter(out)) {
+			data.getWidgetBindings().forEach(writer);
+		}
+		size.bytes = jsonSize;
+		return out;
+	}
+
+	@Benchmark
+	public ByteArrayOutputStream writeBinary(final DocumentSize size) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new UIDataBinaryWriter().write(data, out);
+		size.bytes = out.size();
+		return out;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.benchmark;
+
+import fr.inria.inspectorguidget.api.analyser.InspectorGuidetAnalyser;
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks WidgetProcessor: its whole pass on a model, and its processingDone step alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WidgetProcessorBenchmark {
+	/**
+	 * A widget processor that has traversed the model but whose processingDone step has not been executed yet.
+	 */
+	@State(Scope.Thread)
+	public static class TraversedProcessor {
+		DeferredWidgetProcessor processor;
+
+		@Setup(Level.Invocation)
+		public void setUp(final CorpusState state) {
+			processor = new DeferredWidgetProcessor();
+			new InspectorGuidetAnalyser(Collections.singletonList(processor), state.builder).process();
+			processor.deferred = false;
+		}
+	}
+
+	static class DeferredWidgetProcessor extends WidgetProcessor {
+		boolean deferred = true;
+
+		DeferredWidgetProcessor() {
+			super(true);
+		}
+
+		@Override
+		public void processingDone() {
+			if(!deferred) {
+				super.processingDone();
+			}
+		}
+	}
+
+	@Benchmark
+	public Object processingDone(final TraversedProcessor traversed) {
+		traversed.processor.processingDone();
+		return traversed.processor.getWidgetUsages();
+	}
+
+	@Benchmark
+	public Object fullPass(final CorpusState state) {
+		final WidgetProcessor processor = new WidgetProcessor(true);
+		new InspectorGuidetAnalyser(Collections.singletonList(processor), state.builder).process();
+		return processor.getWidgetUsages();
+	}
+}
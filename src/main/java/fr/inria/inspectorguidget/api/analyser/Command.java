@@ -17,11 +17,16 @@ package fr.inria.inspectorguidget.api.analyser;
 import fr.inria.inspectorguidget.internal.helper.CodeBlockPos;
 import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
@@ -67,21 +72,11 @@ public class Command {
 	}
 
 	public int getLineStart() {
-		return getMainStatmtEntry().orElse(EMPTY_CMD_ENTRY).getStatmts().stream()
-			.map(s -> s.getPosition())
-			.filter(p -> p != null)
-			.mapToInt(p -> p.getLine())
-			.min()
-			.orElse(-1);
+		return getMainStatmtEntry().orElse(EMPTY_CMD_ENTRY).getLineStart();
 	}
 
 	public int getLineEnd() {
-		return getMainStatmtEntry().orElse(EMPTY_CMD_ENTRY).getStatmts().stream()
-			.map(s -> s.getPosition())
-			.filter(p -> p != null)
-			.mapToInt(p -> p.getEndLine())
-			.max()
-			.orElse(-1);
+		return getMainStatmtEntry().orElse(EMPTY_CMD_ENTRY).getLineEnd();
 	}
 
 	public @NotNull List<CommandConditionEntry> getConditions() {
@@ -102,21 +97,87 @@ public class Command {
 		optimiseStatementEntries();
 	}
 
+	/**
+	 * Removes the statement entries that are redundant with another one: the duplicates (the first one is kept),
+	 * the entries which lines are strictly contained in the lines of another entry, and the single-statement entries
+	 * which statement is part of the statement of another single-statement entry (the first one is kept if the statement is the same).
+	 * The order of the remaining entries is kept.
+	 */
 	private void optimiseStatementEntries() {
-		int i = 0;
-		while(i < statements.size()) {
-			int j = 0;
-			final CommandStatmtEntry stat1 = statements.get(i);
-			while(j < statements.size()) {
-				final CommandStatmtEntry stat2 = statements.get(j);
-				if(stat1 != stat2 && (stat1.equals(stat2) || (stat1.containsLine(stat2) && !stat2.containsLine(stat1)) || stat1.containsElement(stat2))) {
-					statements.remove(j);
-				}else {
-					j++;
+		final int size = statements.size();
+		if(size < 2) {
+			return;
+		}
+
+		final boolean[] removed = new boolean[size];
+
+		// Duplicates
+		final Set<CommandStatmtEntry> distinct = new HashSet<>();
+		for(int i = 0; i < size; i++) {
+			removed[i] = !distinct.add(statements.get(i));
+		}
+
+		// Line containment: the intervals are sorted by start line and by decreasing end line, so that an entry is strictly
+		// contained by another one if a previous interval (different from its own) ends after it.
+		final Integer[] sorted = new Integer[size];
+		for(int i = 0; i < size; i++) {
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, Comparator.<Integer>comparingInt(i -> statements.get(i).getLineStart())
+			.thenComparing(Comparator.<Integer>comparingInt(i -> statements.get(i).getLineEnd()).reversed()));
+
+		int maxEnd = Integer.MIN_VALUE;
+		int k = 0;
+		while(k < size) {
+			final CommandStatmtEntry first = statements.get(sorted[k]);
+			int groupEnd = k;
+			while(groupEnd < size && statements.get(sorted[groupEnd]).getLineStart() == first.getLineStart() &&
+				statements.get(sorted[groupEnd]).getLineEnd() == first.getLineEnd()) {
+				if(maxEnd >= first.getLineEnd()) {
+					removed[sorted[groupEnd]] = true;
 				}
+				groupEnd++;
+			}
+			maxEnd = Math.max(maxEnd, first.getLineEnd());
+			k = groupEnd;
+		}
+
+		// Element containment, using the parents of the statements instead of traversing the statements.
+		final Map<CtElement, Integer> singleStatmts = new IdentityHashMap<>();
+		for(int i = 0; i < size; i++) {
+			if(statements.get(i).statmts.size() == 1) {
+				singleStatmts.putIfAbsent(statements.get(i).statmts.get(0), i);
+			}
+		}
+		for(int i = 0; i < size; i++) {
+			if(!removed[i] && statements.get(i).statmts.size() == 1) {
+				final CtElement stat = statements.get(i).statmts.get(0);
+				removed[i] = singleStatmts.get(stat) != i || isPartOfAny(stat, singleStatmts);
+			}
+		}
+
+		final List<CommandStatmtEntry> kept = new ArrayList<>();
+		for(int i = 0; i < size; i++) {
+			if(!removed[i]) {
+				kept.add(statements.get(i));
+			}
+		}
+		statements.clear();
+		statements.addAll(kept);
+	}
+
+	/**
+	 * @return True if one of the (strict) parents of the given element is in the given map.
+	 */
+	private static boolean isPartOfAny(final @NotNull CtElement elt, final @NotNull Map<CtElement, Integer> elements) {
+		CtElement parent = elt;
+		while(parent.isParentInitialized()) {
+			parent = parent.getParent();
+			if(elements.containsKey(parent)) {
+				return true;
 			}
-			i++;
 		}
+		return false;
 	}
 
 
@@ -164,29 +225,25 @@ public class Command {
 			.collect(Collectors.groupingBy(triple -> triple.file))
 			.values()
 			.parallelStream()
-			.map(triples -> triples.stream().sorted(Comparator.comparingInt(o -> o.startLine)).collect(Collectors.toList()))
 			.map(triples -> {
-				int i = 0;
-				CodeBlockPos ti;
-				CodeBlockPos tj;
-
-				while(i < triples.size() - 1) {
-					int j = i + 1;
-					ti = triples.get(i);
-					while(j < triples.size()) {
-						tj = triples.get(j);
-						if(ti.endLine + 1 == tj.startLine || ti.endLine >= tj.startLine && ti.startLine <= tj.startLine) {
-							triples.remove(j);
-							triples.remove(i);
-							ti = new CodeBlockPos(ti.file, ti.startLine, tj.endLine);
-							if(triples.isEmpty()) triples.add(ti);
-							else triples.add(i, ti);
-							j = i + 1;
-						}else j++;
+				// The blocks are sorted by start line, so a single sweep merges a block with the following overlapping
+				// or adjacent blocks.
+				triples.sort(Comparator.comparingInt(o -> o.startLine));
+				final List<CodeBlockPos> merged = new ArrayList<>();
+				CodeBlockPos current = triples.get(0);
+
+				for(int i = 1; i < triples.size(); i++) {
+					final CodeBlockPos next = triples.get(i);
+					if(current.endLine + 1 == next.startLine || current.endLine >= next.startLine) {
+						// The next block may be nested in the current one.
+						current = new CodeBlockPos(current.file, current.startLine, Math.max(current.endLine, next.endLine));
+					}else {
+						merged.add(current);
+						current = next;
 					}
-					i++;
 				}
-				return triples.stream().sorted(Comparator.comparingInt(o -> o.startLine));
+				merged.add(current);
+				return merged.stream();
 		}).flatMap(s -> s).collect(Collectors.toList());
 	}
 
@@ -19,13 +19,16 @@ import fr.inria.inspectorguidget.internal.filter.ClassMethodCallFilter;
 import fr.inria.inspectorguidget.internal.filter.ConditionalFilter;
 import fr.inria.inspectorguidget.internal.filter.FindElementFilter;
 import fr.inria.inspectorguidget.internal.filter.FindElementsFilter;
-import fr.inria.inspectorguidget.internal.filter.LocalVariableAccessFilter;
-import fr.inria.inspectorguidget.internal.filter.MyVariableAccessFilter;
+import fr.inria.inspectorguidget.internal.helper.Deadline;
+import fr.inria.inspectorguidget.internal.helper.DefUseIndex;
+import fr.inria.inspectorguidget.internal.helper.GUIParamTaint;
+import fr.inria.inspectorguidget.internal.helper.IdentityKey;
 import fr.inria.inspectorguidget.internal.helper.LinePositionFilter;
 import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
 import fr.inria.inspectorguidget.internal.helper.Tuple;
 import fr.inria.inspectorguidget.api.processor.ClassListenerProcessor;
 import fr.inria.inspectorguidget.api.processor.LambdaListenerProcessor;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -34,11 +37,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import spoon.reflect.code.CtAssignment;
 import spoon.reflect.code.CtBlock;
 import spoon.reflect.code.CtCase;
 import spoon.reflect.code.CtCatch;
@@ -51,23 +54,42 @@ import spoon.reflect.code.CtReturn;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtStatementList;
 import spoon.reflect.code.CtSwitch;
-import spoon.reflect.code.CtVariableWrite;
+import spoon.reflect.code.CtVariableAccess;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtExecutable;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.reference.CtParameterReference;
-import spoon.reflect.visitor.filter.DirectReferenceFilter;
+import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
 
 public class CommandAnalyser extends InspectorGuidetAnalyser {
 	private final @NotNull ClassListenerProcessor classProc;
 	private final @NotNull LambdaListenerProcessor lambdaProc;
 	private final @NotNull Map<CtExecutable<?>, UIListener> commands;
+	private @Nullable Duration listenerBudget;
+	private @NotNull TruncationReport truncationReport;
 
 	public CommandAnalyser() {
 		super(Collections.emptyList());
 
 		commands = new IdentityHashMap<>();
+		truncationReport = new TruncationReport();
+		classProc = new ClassListenerProcessor();
+		lambdaProc = new LambdaListenerProcessor();
+
+		addProcessor(classProc);
+		addProcessor(lambdaProc);
+	}
+
+	/**
+	 * Creates an analyser that works on an already built model: process() can be called without building the model.
+	 * @param builder The model builder of the model to analyse.
+	 */
+	public CommandAnalyser(final @NotNull JDTBasedSpoonCompiler builder) {
+		super(Collections.emptyList(), builder);
+
+		commands = new IdentityHashMap<>();
+		truncationReport = new TruncationReport();
 		classProc = new ClassListenerProcessor();
 		lambdaProc = new LambdaListenerProcessor();
 
@@ -79,10 +101,52 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 		synchronized(commands) { return Collections.unmodifiableMap(commands); }
 	}
 
+	@Override
+	public void releaseModel() {
+		synchronized(commands) { commands.clear(); }
+		super.releaseModel();
+	}
+
+	/**
+	 * Sets the time budget of each listener. The budget applies separately to the extraction of the commands of the listener
+	 * and to the slicing of these commands. When it is exceeded, the analysis of the listener stops: its commands found so far
+	 * are kept, the listener is flagged as truncated, and the truncation is recorded in the truncation report.
+	 * @param budget The budget. If null (the default), the analysis of the listeners is not limited.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public void setListenerBudget(final @Nullable Duration budget) {
+		Deadline.checkBudget(budget);
+		listenerBudget = budget;
+	}
+
+	/**
+	 * @return The listeners which analysis exceeded their time budget during the last process.
+	 */
+	public @NotNull TruncationReport getTruncationReport() {
+		return truncationReport;
+	}
+
+	/**
+	 * @param report The report where the truncated listeners are recorded. It is cleared at the start of each process.
+	 */
+	public void setTruncationReport(final @NotNull TruncationReport report) {
+		truncationReport = report;
+	}
+
+	private void onBudgetExceeded(final @NotNull UIListener listener, final @NotNull String phase) {
+		listener.setTruncated(true);
+		truncationReport.add(phase, listener.getExecutable(), null, listenerBudget);
+		metrics.addItems(phase + ".truncated", 1L);
+		LOG.log(Level.WARNING, () -> "Time budget exceeded (" + phase + "), partial commands kept for the listener: " +
+			listener.getExecutable().getSignature() + " " + SpoonHelper.INSTANCE.formatPosition(listener.getExecutable().getPosition()));
+	}
+
 	@Override
 	public void process() {
+		truncationReport.clear();
 		super.process();
 		final Map<CtClass<?>, Set<CtMethod<?>>> methods = classProc.getAllListenerMethods();
+		long start = System.nanoTime();
 
 		methods.entrySet().parallelStream().forEach(entry -> {
 			if(entry.getValue().size()==1) {
@@ -92,26 +156,25 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 			}
 		});
 		lambdaProc.getAllListenerLambdas().parallelStream().forEach(l -> analyseSingleListenerMethod(Optional.empty(), l));
+		metrics.record("command.listenerAnalysis", System.nanoTime() - start,
+			methods.size() + lambdaProc.getAllListenerLambdas().size());
+		start = System.nanoTime();
 
 		// Post-process to add statements (e.g. var def) used in commands but not present in the current command (because defined before or after)
 		synchronized(commands) {
-			commands.entrySet().parallelStream().forEach(entry -> entry.getValue().getCommands().forEach(cmd -> {
-				if(!cmd.getConditions().isEmpty()) {
-					// For each command, adding the required local variable definitions.
-					cmd.addAllStatements(0,
-						// Looking for local variable accesses in the command
-						cmd.getAllStatmts().stream().map(stat -> stat.getElements(new LocalVariableAccessFilter()).stream().
-							// Selecting the local variable definitions not already contained in the command
-								map(v -> v.getDeclaration()).filter(v -> cmd.getAllStatmts().stream().noneMatch(s -> s == v)).
-								collect(Collectors.toList())).flatMap(s -> s.stream()).
-							// For each var def, creating a command statement entry that will be added to the list of entries of the command.
-								map(elt -> new CommandStatmtEntry(false, Collections.singletonList((CtCodeElement) elt))).collect(Collectors.toList()));
-
-					inferLocalVarUsages(cmd, entry.getValue());
+			commands.entrySet().parallelStream().forEach(entry -> {
+				final Deadline deadline = Deadline.after(listenerBudget);
+				try {
+					localVarSlicing(entry.getValue(), deadline);
+				}catch(final Deadline.ExceededException ex) {
+					onBudgetExceeded(entry.getValue(), "command.localVarSlicing");
 				}
-			}));
+			});
+			metrics.record("command.localVarSlicing", System.nanoTime() - start,
+				commands.values().stream().mapToLong(l -> l.getCommands().size()).sum());
 		}
 
+		start = System.nanoTime();
 		synchronized(commands) {
 			commands.forEach((key, value) -> {
 				value.removeCommandsIf(cmd -> !cmd.hasRelevantCommandStatement());
@@ -125,17 +188,44 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 					value.removeAllCommands(badcmd);
 				}
 			});
+			metrics.record("command.badCommandCleanup", System.nanoTime() - start, commands.size());
 		}
 	}
 
 
+	/**
+	 * Adds to the commands of the given listener the statements (e.g. var def) they use but that are not part of them.
+	 * @throws Deadline.ExceededException If the given deadline expires.
+	 */
+	private void localVarSlicing(final @NotNull UIListener listener, final @NotNull Deadline deadline) {
+		listener.getCommands().forEach(cmd -> {
+			if(!cmd.getConditions().isEmpty()) {
+				deadline.check();
+				final DefUseIndex defUse = DefUseIndex.of(cmd.getExecutable(), metrics);
+				// For each command, adding the required local variable definitions.
+				cmd.addAllStatements(0,
+					// Looking for local variable accesses in the command
+					cmd.getAllStatmts().stream().map(stat -> defUse.getLocalVariablesUsedIn(stat).stream().
+						// Selecting the local variable definitions not already contained in the command
+							filter(v -> cmd.getAllStatmts().stream().noneMatch(s -> s == v)).
+							collect(Collectors.toList())).flatMap(s -> s.stream()).
+						// For each var def, creating a command statement entry that will be added to the list of entries of the command.
+							map(elt -> new CommandStatmtEntry(false, Collections.singletonList((CtCodeElement) elt))).collect(Collectors.toList()));
+
+				inferLocalVarUsages(cmd, listener, deadline);
+			}
+		});
+	}
+
+
 	/**
 	 * Local variables used in a command must be considered when extracting a command: a backward static slicing is done here to
 	 * identify all the statements that use these local variables before each use of the variables in the command.
 	 * @param cmd The command to analyse.
 	 * @param uiList The UI listener that contains the analysed UI commands.
+	 * @param deadline The deadline of the analysis of the listener.
 	 */
-	private void inferLocalVarUsages(final @NotNull Command cmd, final @NotNull UIListener uiList) {
+	private void inferLocalVarUsages(final @NotNull Command cmd, final @NotNull UIListener uiList, final @NotNull Deadline deadline) {
 		// Adding all the required elements.
 		cmd.addAllStatements(
 			inferLocalVarUsagesRecursive(
@@ -144,7 +234,7 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 					.map(stat -> stat.getStatmts().stream())
 					.flatMap(s -> s)
 					.collect(Collectors.toSet()),
-				new HashSet<>(), uiList.getExecutable()
+				new HashSet<>(), DefUseIndex.of(uiList.getExecutable(), metrics), new ConcurrentHashMap<>(), deadline
 			)
 			.parallelStream()
 			.filter(exp -> !cmd.hasStatement(exp) && !isPartOfMainCommandBlockOrCondition(exp, uiList.getCommands()))
@@ -158,38 +248,44 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 	 * Recusion method for inferLocalVarUsages.
 	 * @param stats The set of statements to analyse.
 	 * @param analysedStats The set of statements already analysed.
-	 * @param listener The listener method that contains the commands.
+	 * @param defUse The def-use chains of the listener method that contains the commands.
+	 * @param slices The statements each local variable access depends on, computed once per access.
+	 * @param deadline Checked for each statement analysed.
 	 * @return The set of statements that the 'stats' statements depend on.
 	 */
 	private Set<CtElement> inferLocalVarUsagesRecursive(final @NotNull Set<CtElement> stats, final @NotNull Set<CtElement> analysedStats,
-														final @NotNull CtExecutable<?> listener) {
+														final @NotNull DefUseIndex defUse,
+														final @NotNull Map<IdentityKey<CtVariableAccess<?>>, List<CtElement>> slices,
+														final @NotNull Deadline deadline) {
+		final CtExecutable<?> listener = defUse.getExecutable();
+
 		// For each statement of the command.
 		final Set<CtElement> inferred = stats
 			.parallelStream()
-			.map(elt ->
+			.map(elt -> {
+				deadline.check();
 				// Getting the local var used in the statement.
-				elt.getElements(new LocalVariableAccessFilter())
+				return defUse.getLocalVariablesUsedIn(elt)
 					.stream()
 					// Only the local variables defined in the listener must be considered.
-					.filter(var -> var.getDeclaration().getParent(CtExecutable.class)==listener)
+					.filter(var -> defUse.isDeclaredHere(var))
 					.map(var ->
 						// Finding the uses of the local var in the executable
-						var.getDeclaration().getParent(CtExecutable.class).getBody().getElements(new MyVariableAccessFilter(var.getDeclaration()))
+						// Considering the var accesses that operate before the statement only.
+						defUse.getUsesUntilLine(var, elt.getPosition().getLine())
 							.stream()
-							// Considering the var accesses that operate before the statement only.
-							.filter(varacesss -> varacesss.getPosition().getLine() <= elt.getPosition().getLine())
-							.map(varaccess -> {
+							.map(varaccess -> slices.computeIfAbsent(IdentityKey.of(varaccess), k -> {
 								// Getting all the super conditional statements.
-								List<CtElement> exps = SpoonHelper.INSTANCE.getSuperConditionalExpressions(varaccess);
+								final List<CtElement> exps = SpoonHelper.INSTANCE.getSuperConditionalExpressions(varaccess);
 								// Getting the main expression of the var access (or the var access itself).
 								exps.add(SpoonHelper.INSTANCE.getParentOf(varaccess, CtExpression.class, listener).orElse(varaccess));
-								exps.add(var.getDeclaration());
+								exps.add(var);
 								return exps;
-							})
+							}))
 							.flatMap(s -> s.stream())
 					)
-					.flatMap(s -> s)
-			)
+					.flatMap(s -> s);
+			})
 			.flatMap(s -> s)
 			.filter(s -> s != null)
 			.collect(Collectors.toSet());
@@ -199,7 +295,7 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 			inferred.addAll(inferLocalVarUsagesRecursive(inferred
 				.parallelStream()
 				.filter(exp -> !analysedStats.contains(exp))
-				.collect(Collectors.toSet()), analysedStats, listener));
+				.collect(Collectors.toSet()), analysedStats, defUse, slices, deadline));
 		}
 
 		return inferred;
@@ -363,12 +459,27 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 
 	private void analyseSingleListenerMethod(final @NotNull  Optional<CtClass<?>> listenerClass,
 											 final @NotNull CtExecutable<?> listenerMethod) {
+		final Deadline deadline = Deadline.after(listenerBudget);
+		try {
+			analyseSingleListenerMethod(listenerClass, listenerMethod, deadline);
+		}catch(final Deadline.ExceededException ex) {
+			final UIListener uiListener;
+			synchronized(commands) {
+				uiListener = commands.computeIfAbsent(listenerMethod, k -> new UIListener(listenerMethod));
+			}
+			onBudgetExceeded(uiListener, "command.listenerAnalysis");
+		}
+	}
+
+
+	private void analyseSingleListenerMethod(final @NotNull  Optional<CtClass<?>> listenerClass,
+											 final @NotNull CtExecutable<?> listenerMethod, final @NotNull Deadline deadline) {
 		if((listenerMethod.getBody() == null || listenerMethod.getBody().getStatements().isEmpty()) &&
 			(!(listenerMethod instanceof CtLambda) || ((CtLambda<?>)listenerMethod).getExpression() == null)) {// A lambda may not have a body but an expression
 			// Empty so no command
 			synchronized(commands) { commands.put(listenerMethod, new UIListener(listenerMethod)); }
 		}else {
-			final List<CtStatement> conds = getConditionalStatements(listenerMethod, listenerClass, new HashSet<>());
+			final List<CtStatement> conds = getConditionalStatements(listenerMethod, listenerClass, new HashSet<>(), deadline);
 
 			if(conds.isEmpty()) {
 				// when no conditional, the content of the method forms a command.
@@ -387,7 +498,11 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 			}else {
 				// For each conditional statements found in the listener method or in its dispatched methods,
 				// a command is extracted.
-				conds.forEach(cond -> extractCommandsFromConditionalStatements(cond, listenerMethod, conds));
+				conds.forEach(cond -> {
+					deadline.check();
+					extractCommandsFromConditionalStatements(cond, listenerMethod, conds);
+				});
+				deadline.check();
 
 				// Treating the potential code block located after the last conditional statement
 				final UIListener uiListener;
@@ -447,11 +562,13 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 
 	private @NotNull List<CtStatement> getConditionalStatements(final @Nullable CtExecutable<?> exec,
 																final @NotNull Optional<CtClass<?>> listenerClass,
-															    final @NotNull Set<CtExecutable<?>> execAnalysed) {
+															    final @NotNull Set<CtExecutable<?>> execAnalysed, final @NotNull Deadline deadline) {
 		if(exec==null || exec.getBody()==null) {
 			return Collections.emptyList();
 		}
 
+		deadline.check();
+
 		final List<Tuple<CtStatement, CtStatement>> conds = new ArrayList<>();
 
 		if(listenerClass.isPresent()) { // Searching for dispatched methods is not performed on lambdas.
@@ -464,21 +581,18 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 					map(dispatchM -> {
 					final CtExecutable<?> theExec = dispatchM.getExecutable().getDeclaration();
 					execAnalysed.add(theExec);
-					return getConditionalStatements(theExec, listenerClass, execAnalysed).stream().map(v -> new Tuple<>(v, (CtStatement)dispatchM));
+					return getConditionalStatements(theExec, listenerClass, execAnalysed, deadline).stream().map(v -> new Tuple<>(v, (CtStatement)dispatchM));
 				}).flatMap(s -> s).collect(Collectors.toList()));
 		}
 
-		final List<CtParameterReference<?>> guiParams = exec.getParameters()
-			.stream()
-			.map(param -> param.getReference())
-			.collect(Collectors.toList());
+		final GUIParamTaint taint = GUIParamTaint.of(exec, metrics);
 		final CtBlock<?> mainBlock = exec.getBody();
 
 		// Getting all the conditional statements
 		conds.addAll(mainBlock.getElements(new ConditionalFilter())
 			.stream()
 			// Keeping those making use of a GUI parameter.
-			.filter(cond -> conditionalUsesGUIParam(cond, guiParams, mainBlock))
+			.filter(cond -> taint.conditionalUsesGUIParam(cond))
 			// a listener may be defined into the current listener.
 			// So, removing the conditional statements that are not contained in the current executable.
 			.filter(cond -> cond.getParent(CtExecutable.class)==exec)
@@ -496,7 +610,10 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 
 		final Set<CtStatement> condsSet = conds.stream().map(c -> c.b).collect(Collectors.toSet());
 
+		deadline.check();
+
 		conds.removeAll(conds.parallelStream().filter(cond -> {
+			deadline.check();
 			List<CtStatement> elements;
 			if(cond.a instanceof CtIf) {
 				final CtIf ctIf = (CtIf) cond.a;
@@ -513,40 +630,26 @@ public class CommandAnalyser extends InspectorGuidetAnalyser {
 	}
 
 
+	/**
+	 * @deprecated Use GUIParamTaint#conditionalUsesGUIParam, which analyses the block once for all its conditional statements.
+	 */
+	@Deprecated
 	public static boolean conditionalUsesGUIParam(final CtElement stat, final List<CtParameterReference<?>> guiParams, final CtBlock<?> mainBlock) {
-		final CtExpression<?> condition = stat instanceof CtIf ? ((CtIf) stat).getCondition() : stat instanceof CtSwitch<?> ? ((CtSwitch<?>) stat).getSelector() : null;
-		return condition != null && elementUsesGUIParam(condition, guiParams, mainBlock, new HashSet<>());
+		return new GUIParamTaint(mainBlock, guiParams).conditionalUsesGUIParam(stat);
 	}
 
 
+	/**
+	 * @param alreadyVisited The elements already checked: they are considered as not using a GUI parameter. The given element is added.
+	 * @deprecated Use GUIParamTaint#usesGUIParam, which analyses the block once for all its elements.
+	 */
+	@Deprecated
 	public static boolean elementUsesGUIParam(final CtElement elt, final List<CtParameterReference<?>> guiParams, final CtBlock<?> mainBlock,
 										final Set<CtElement> alreadyVisited) {
-		if(alreadyVisited.contains(elt)) {
+		if(!alreadyVisited.add(elt)) {
 			return false;
 		}
-
-		// Check whether a GUI parameter is directly used in the statement.
-//		if(guiParams.stream().anyMatch(param -> elt.getElements(new BasicFilter<>(CtParameterReference.class)).stream().noneMatch(ref -> ref.equals(param)))){
-		if(guiParams.stream().anyMatch(param -> !elt.getElements(new DirectReferenceFilter<>(param)).isEmpty())) {
-			return true;
-		}
-
-		alreadyVisited.add(elt);
-
-		// Otherwise, looking for local variables that use a GUI parameter.
-		return elt.getElements(new LocalVariableAccessFilter()).stream().
-			anyMatch(var ->
-				// Maybe the declaration of the variable refers to a GUI parameter
-				elementUsesGUIParam(var.getDeclaration(), guiParams, mainBlock, alreadyVisited) ||
-					// or an assignment of this variable in the main block refers to a GUI parameter
-					// 1. Looking for the assignments in the block
-					mainBlock.getElements(new BasicFilter<>(CtAssignment.class)).stream().
-						// 2. Keeping only the variable write
-						anyMatch(assig -> assig.getAssigned() instanceof CtVariableWrite<?> &&
-						// 3. Checking that the assigned variable is our current variable
-						((CtVariableWrite<?>)assig.getAssigned()).getVariable().equals(var) &&
-							// 4. Checking that the assignment directly or indirectly refers to GUI parameter
-							elementUsesGUIParam(assig.getAssignment(), guiParams, mainBlock, alreadyVisited)));
+		return new GUIParamTaint(mainBlock, guiParams).usesGUIParam(elt);
 	}
 
 
@@ -0,0 +1,174 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.data.ClassRef;
+import fr.inria.inspectorguidget.data.Handler;
+import fr.inria.inspectorguidget.data.HandlerInteraction;
+import fr.inria.inspectorguidget.data.Location;
+import fr.inria.inspectorguidget.data.UICommand;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import fr.inria.inspectorguidget.internal.helper.CodeBlockPos;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtMethod;
+
+/**
+ * A detached and immutable copy of an analysed command (see Command) and of its widgets (see CommandWidgetFinder.WidgetFinderEntry).
+ * It holds only names and positions, so it does not keep the Spoon model reachable: the snapshots of a project
+ * remain usable once its model is released (see UIDataAnalyser#releaseModel).
+ */
+public final class CommandSnapshot {
+	/** The class that contains the command. */
+	public final @NotNull ClassRef classRef;
+	/** The qualified name of the type that declares the listener method (or lambda). */
+	public final @NotNull String handlerType;
+	/** The signature of the listener method, or the kind of executable for lambdas. */
+	public final @NotNull String executable;
+	/** The lines of the body of the listener method (or lambda). */
+	public final @NotNull Location handlerLocation;
+	/** The lines of the main statements of the command. */
+	public final @NotNull Location location;
+	public final int nbLines;
+	public final @NotNull List<CodeBlockPos> codeBlocks;
+	public final @NotNull List<Statement> statements;
+	public final @NotNull List<Condition> conditions;
+	/** The widgets associated to the command (see WidgetFinderEntry#getRegisteredWidgets). */
+	public final @NotNull List<WidgetUsageSnapshot> widgets;
+	/** The keys of the widget fields declared out of the analysed model (see WidgetFinderEntry#getExternalWidgetFields). */
+	public final @NotNull Set<String> externalWidgetFields;
+	/** True if the search of the widgets exceeded its time budget (see WidgetFinderEntry#isTruncated). */
+	public final boolean truncated;
+
+	/**
+	 * Copies the given command and its widgets.
+	 */
+	public static @NotNull CommandSnapshot of(final @NotNull Command command, final @NotNull CommandWidgetFinder.WidgetFinderEntry entry) {
+		final CtExecutable<?> exec = command.getExecutable();
+		final ClassRef cref = new ClassRef(exec.getBody().getPosition().getCompilationUnit().getFile().toString(),
+			exec.getParent(CtClass.class).getSimpleName(), exec.getParent(CtClass.class).getQualifiedName());
+
+		return new CommandSnapshot(cref,
+			exec.getReference().getDeclaringType().getQualifiedName(),
+			exec instanceof CtMethod<?> ? exec.getSignature() : exec.getClass().getSimpleName(),
+			new Location(exec.getBody().getPosition().getLine(), exec.getBody().getPosition().getEndLine(), cref),
+			new Location(command.getLineStart(), command.getLineEnd(), cref),
+			command.getNbLines(),
+			command.getOptimalCodeBlocks(),
+			command.getStatements().stream().map(stat -> new Statement(stat.getLineStart(), stat.getLineEnd(), stat.isMainEntry(),
+				stat.isDispatchedCode())).collect(Collectors.toList()),
+			command.getConditions().stream().map(cond -> new Condition(WidgetUsageSnapshot.toLocationIfAny(cond.realStatmt),
+				String.valueOf(cond.realStatmt), cond.isSameCondition() ? null : String.valueOf(cond.effectiveStatmt))).collect(Collectors.toList()),
+			entry.getRegisteredWidgets().stream().map(w -> WidgetUsageSnapshot.of(w)).collect(Collectors.toList()),
+			entry.getExternalWidgetFields(),
+			entry.isTruncated());
+	}
+
+	public CommandSnapshot(final @NotNull ClassRef classRef, final @NotNull String handlerType, final @NotNull String executable,
+						   final @NotNull Location handlerLocation, final @NotNull Location location, final int nbLines,
+						   final @NotNull List<CodeBlockPos> codeBlocks, final @NotNull List<Statement> statements,
+						   final @NotNull List<Condition> conditions, final @NotNull List<WidgetUsageSnapshot> widgets,
+						   final @NotNull Collection<String> externalWidgetFields, final boolean truncated) {
+		super();
+		this.classRef = classRef;
+		this.handlerType = handlerType;
+		this.executable = executable;
+		this.handlerLocation = handlerLocation;
+		this.location = location;
+		this.nbLines = nbLines;
+		this.codeBlocks = List.copyOf(codeBlocks);
+		this.statements = List.copyOf(statements);
+		this.conditions = List.copyOf(conditions);
+		this.widgets = List.copyOf(widgets);
+		this.externalWidgetFields = Set.copyOf(externalWidgetFields);
+		this.truncated = truncated;
+	}
+
+	/**
+	 * @return An identifier of the command: its handler type, its executable and its lines.
+	 */
+	public @NotNull String getId() {
+		return handlerType + "#" + executable + "@L" + location.getLineStart() + ":" + location.getLineEnd();
+	}
+
+	/**
+	 * @return The UIData widget binding of the command: the same as the one UIDataAnalyser produces from the command.
+	 */
+	public @NotNull WidgetBinding toWidgetBinding() {
+		return new WidgetBinding(new HandlerInteraction(Collections.singletonList(new Handler(handlerType, handlerLocation))),
+			widgets.stream().map(w -> w.toWidget()).collect(Collectors.toList()),
+			new UICommand(location, List.of(classRef)));
+	}
+
+	@Override
+	public String toString() {
+		return "CommandSnapshot{" + getId() + ", nbLines: " + nbLines + ", nbConditions: " + conditions.size() +
+			", nbWidgets: " + widgets.size() + (truncated ? ", truncated" : "") + "}";
+	}
+
+	/**
+	 * A statement entry of the command (see CommandStatmtEntry).
+	 */
+	public static final class Statement {
+		public final int lineStart;
+		public final int lineEnd;
+		public final boolean main;
+		public final boolean dispatched;
+
+		public Statement(final int lineStart, final int lineEnd, final boolean main, final boolean dispatched) {
+			super();
+			this.lineStart = lineStart;
+			this.lineEnd = lineEnd;
+			this.main = main;
+			this.dispatched = dispatched;
+		}
+
+		@Override
+		public String toString() {
+			return "Statement{start: " + lineStart + ", end: " + lineEnd + ", main: " + main + " dispatched: " + dispatched + "}";
+		}
+	}
+
+	/**
+	 * A condition of the command (see CommandConditionEntry).
+	 */
+	public static final class Condition {
+		/** The lines of the real conditional statement. Null if it has no position. */
+		public final @Nullable Location location;
+		/** The code of the real conditional statement. */
+		public final @NotNull String code;
+		/** The code of the effective boolean expression. Null if it is the real statement. */
+		public final @Nullable String effectiveCode;
+
+		public Condition(final @Nullable Location location, final @NotNull String code, final @Nullable String effectiveCode) {
+			super();
+			this.location = location;
+			this.code = code;
+			this.effectiveCode = effectiveCode;
+		}
+
+		@Override
+		public String toString() {
+			return "Condition{real: " + code + ", location: " + location + (effectiveCode == null ? "" : ", effective: " + effectiveCode) + "}";
+		}
+	}
+}
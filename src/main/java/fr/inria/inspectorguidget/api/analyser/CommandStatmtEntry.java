@@ -32,6 +32,10 @@ public class CommandStatmtEntry {
 	final List<CtElement> statmts;
 	final boolean mainEntry;
 	boolean dispatchMethod;
+	/** The lines of the statements, computed on demand and reset when statements are added. */
+	private int lineStart;
+	private int lineEnd;
+	private boolean linesComputed;
 
 	public CommandStatmtEntry(final boolean main) {
 		super();
@@ -61,10 +65,16 @@ public class CommandStatmtEntry {
 
 	public void addStatement(final @NotNull CtElement statmt) {
 		statmts.add(statmt);
+		resetLines();
 	}
 
 	public void addStatements(final @NotNull Collection<CtElement> listStatmts) {
 		statmts.addAll(listStatmts);
+		resetLines();
+	}
+
+	private synchronized void resetLines() {
+		linesComputed = false;
 	}
 
 	public boolean isMainEntry() {
@@ -76,11 +86,21 @@ public class CommandStatmtEntry {
 	}
 
 	public int getLineStart() {
-		return getStatmts().stream().map(s -> s.getPosition()).filter(p -> p!=null).mapToInt(p -> p.getLine()).min().orElse(-1);
+		computeLines();
+		return lineStart;
 	}
 
 	public int getLineEnd() {
-		return getStatmts().stream().map(s -> s.getPosition()).filter(p -> p!=null).mapToInt(p -> p.getEndLine()).max().orElse(-1);
+		computeLines();
+		return lineEnd;
+	}
+
+	private synchronized void computeLines() {
+		if(!linesComputed) {
+			lineStart = getStatmts().stream().map(s -> s.getPosition()).filter(p -> p!=null).mapToInt(p -> p.getLine()).min().orElse(-1);
+			lineEnd = getStatmts().stream().map(s -> s.getPosition()).filter(p -> p!=null).mapToInt(p -> p.getEndLine()).max().orElse(-1);
+			linesComputed = true;
+		}
 	}
 
 	/**
@@ -15,25 +15,32 @@
 package fr.inria.inspectorguidget.api.analyser;
 
 import fr.inria.inspectorguidget.internal.filter.BasicFilter;
-import fr.inria.inspectorguidget.internal.filter.FindElementFilter;
-import fr.inria.inspectorguidget.internal.filter.MyVariableAccessFilter;
 import fr.inria.inspectorguidget.internal.filter.ReturnFilter;
 import fr.inria.inspectorguidget.internal.filter.StringLiteralFilter;
 import fr.inria.inspectorguidget.internal.filter.ThisAccessFilter;
 import fr.inria.inspectorguidget.internal.filter.TypeRefFilter;
 import fr.inria.inspectorguidget.internal.filter.VariableAccessFilter;
+import fr.inria.inspectorguidget.internal.helper.Deadline;
+import fr.inria.inspectorguidget.internal.helper.IdentityKey;
 import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
 import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import fr.inria.inspectorguidget.internal.helper.Tuple;
 import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
 import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -57,6 +64,7 @@ import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.CtTypedElement;
 import spoon.reflect.declaration.CtVariable;
 import spoon.reflect.declaration.ParentNotInitializedException;
+import spoon.reflect.reference.CtFieldReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.reference.CtVariableReference;
 import spoon.reflect.visitor.Filter;
@@ -74,7 +82,16 @@ public class CommandWidgetFinder {
 
 	private final @NotNull Collection<Command> cmds;
 	private final @NotNull Map<Command, WidgetFinderEntry> results;
+	/** The widgets of the commands, cached once the process is done. Guarded by results. */
+	private @Nullable Map<Command, Set<WidgetProcessor.WidgetUsage>> resolvedUsages;
+	/** Whether the process is done: the results are then complete. Guarded by results. */
+	private boolean processed;
+	private @Nullable Duration commandBudget;
+	private @NotNull TruncationReport truncationReport;
+	private @NotNull MetricsHelper metrics;
 	private final @NotNull Collection<WidgetProcessor.WidgetUsage> widgetUsages;
+	/** The 'this' usages of the listener classes, shared by the commands of these classes. */
+	private final @NotNull Map<IdentityKey<CtClass<?>>, ListenerClassIndex> classIndexes;
 
 	/**
 	 * Creates the analyser.
@@ -85,16 +102,70 @@ public class CommandWidgetFinder {
 		cmds = commands;
 		results = new IdentityHashMap<>();
 		widgetUsages = usages;
+		classIndexes = new ConcurrentHashMap<>();
+		truncationReport = new TruncationReport();
+		metrics = MetricsHelper.INSTANCE;
+	}
+
+	/**
+	 * Sets the time budget of the analysis of each command. When it is exceeded, the analysis of the command stops:
+	 * the widgets found so far are kept, the entry of the command is flagged as truncated, and the truncation is recorded
+	 * in the truncation report.
+	 * @param budget The budget. If null (the default), the analysis of the commands is not limited.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public void setCommandBudget(final @Nullable Duration budget) {
+		Deadline.checkBudget(budget);
+		commandBudget = budget;
+	}
+
+	/**
+	 * @return The commands which analysis exceeded their time budget.
+	 */
+	public @NotNull TruncationReport getTruncationReport() {
+		return truncationReport;
+	}
+
+	/**
+	 * @param report The report where the truncated commands are recorded.
+	 */
+	public void setTruncationReport(final @NotNull TruncationReport report) {
+		truncationReport = report;
+	}
+
+	/**
+	 * @param metrics Where the analysis records its metrics (MetricsHelper.INSTANCE by default).
+	 */
+	public void setMetrics(final @NotNull MetricsHelper metrics) {
+		this.metrics = metrics;
 	}
 
 	/**
 	 * Executes the analysis.
 	 */
 	public void process() {
-		cmds.parallelStream().forEach(cmd -> process(cmd));
+		process(entry -> { });
 	}
 
-	private void process(final @NotNull Command cmd) {
+	/**
+	 * Executes the analysis and notifies the given consumer of the result of each command as soon as it is computed.
+	 * The commands are analysed concurrently: the consumer may be called by several threads at the same time.
+	 * @param onResolved Called with the result of each command.
+	 */
+	public void process(final @NotNull Consumer<WidgetFinderEntry> onResolved) {
+		synchronized(results) {
+			resolvedUsages = null;
+			processed = false;
+		}
+		// The statements that configure the widgets are indexed once for all the commands.
+		final WidgetConfigurationIndex index = metrics.time("finder.configurationIndex", () -> new WidgetConfigurationIndex(widgetUsages));
+		cmds.parallelStream().forEach(cmd -> onResolved.accept(process(cmd, index)));
+		synchronized(results) {
+			processed = true;
+		}
+	}
+
+	private @NotNull WidgetFinderEntry process(final @NotNull Command cmd, final @NotNull WidgetConfigurationIndex index) {
 		final WidgetFinderEntry entry = new WidgetFinderEntry(cmd);
 
 		synchronized(results) {
@@ -112,23 +183,37 @@ public class CommandWidgetFinder {
 			LOG.log(Level.INFO, "ParentNotInitializedException in process", ex);
 		}
 
-		//		long time = System.currentTimeMillis();
-		entry.setRegisteredWidgets(getAssociatedListenerVariable(cmd));
-		//		System.out.println("ANALYSIS #1 in: " + (System.currentTimeMillis()-time));
-		//		time = System.currentTimeMillis();
-		entry.setWidgetsUsedInConditions(getVarWidgetUsedInCmdConditions(cmd));
-		//		System.out.println("ANALYSIS #2 in: " + (System.currentTimeMillis()-time));
-		//		time = System.currentTimeMillis();
-		entry.setWidgetClasses(getWidgetClass(cmd));
-		//		System.out.println("ANALYSIS #3 in: " + (System.currentTimeMillis()-time));
-		//		time = System.currentTimeMillis();
-		entry.setWidgetsFromSharedVars(
-			checkListenerMatching(listenerClass,
-				matchWidgetsUsagesWithCmdConditions(cmd)));
-		//		System.out.println("ANALYSIS #4 in: " + (System.currentTimeMillis()-time));
-		//		time = System.currentTimeMillis();
-		entry.setWidgetsFromStringLiterals(checkListenerMatching(listenerClass, matchWidgetsUsagesWithStringsInCmdConditions(cmd)));
-		//		System.out.println("ANALYSIS #5 in: " + (System.currentTimeMillis()-time));
+		final Set<String> externalFields = new HashSet<>();
+		final CtClass<?> listener = listenerClass;
+		final Deadline deadline = Deadline.after(commandBudget);
+
+		// When the budget is exceeded, the results of the analyses already done are kept.
+		// The items of each analysis are the widgets (or widget classes) it found.
+		try {
+			// Analysis #1
+			entry.setRegisteredWidgets(metrics.time("finder.registeredWidgets", () -> getAssociatedListenerVariable(cmd, externalFields), Set::size));
+			entry.setExternalWidgetFields(externalFields);
+			deadline.check();
+			// Analysis #2
+			entry.setWidgetsUsedInConditions(metrics.time("finder.widgetsUsedInConditions", () -> getVarWidgetUsedInCmdConditions(cmd, deadline), Set::size));
+			deadline.check();
+			// Analysis #3
+			entry.setWidgetClasses(metrics.time("finder.widgetClasses", () -> getWidgetClass(cmd), c -> c.isPresent() ? 1L : 0L));
+			deadline.check();
+			// Analysis #4
+			entry.setWidgetsFromSharedVars(metrics.time("finder.widgetsFromSharedVars", () ->
+				checkListenerMatching(listener, matchWidgetsUsagesWithCmdConditions(cmd, index), deadline), List::size));
+			deadline.check();
+			// Analysis #5
+			entry.setWidgetsFromStringLiterals(metrics.time("finder.widgetsFromStringLiterals", () ->
+				checkListenerMatching(listener, matchWidgetsUsagesWithStringsInCmdConditions(cmd, index), deadline), List::size));
+		}catch(final Deadline.ExceededException ex) {
+			entry.setTruncated(true);
+			truncationReport.add("finder.command", cmd.getExecutable(), "L" + cmd.getLineStart() + ":" + cmd.getLineEnd(), commandBudget);
+			metrics.addItems("finder.command.truncated", 1L);
+			LOG.log(Level.WARNING, () -> "Time budget exceeded, partial widgets kept for the command: " + cmd);
+		}
+		return entry;
 	}
 
 
@@ -140,19 +225,23 @@ public class CommandWidgetFinder {
 	 * with JavaFX where a listener method can be associated with the widget directly in the FXML.
 	 * @param listenerClass The listener class of the command.
 	 * @param cmdWidgetMatches The list of the widgets that may correspond to the command.
+	 * @param deadline Checked for each matching.
 	 * @param <T> The type of the matching.
 	 * @return The filtered list of widgets.
 	 */
-	private @NotNull <T extends CmdWidgetMatch> List<T> checkListenerMatching(final @Nullable CtClass<?> listenerClass, final @NotNull List<T> cmdWidgetMatches) {
+	private @NotNull <T extends CmdWidgetMatch> List<T> checkListenerMatching(final @Nullable CtClass<?> listenerClass, final @NotNull List<T> cmdWidgetMatches,
+																			 final @NotNull Deadline deadline) {
 		if(listenerClass == null) return cmdWidgetMatches;
 
 		final CtTypeReference<?> listRef = listenerClass.getReference();
 		final Filter<CtTypedElement<?>> filt = new BasicFilter<>(CtTypedElement.class);
 
-		cmdWidgetMatches.removeIf(m ->
+		cmdWidgetMatches.removeIf(m -> {
+			deadline.check();
 			// Removing if in the statement of the access there is a reference to the current listener class.
-			m.usage.getUsagesWithCons().stream().noneMatch(a -> a.getParent(CtStatement.class).getElements(filt).stream().
-				map(var -> var.getType()).anyMatch(ty -> ty != null && ty.equals(listRef))));
+			return m.usage.getUsagesWithCons().stream().noneMatch(a -> a.getParent(CtStatement.class).getElements(filt).stream().
+				map(var -> var.getType()).anyMatch(ty -> ty != null && ty.equals(listRef)));
+		});
 		return cmdWidgetMatches;
 	}
 
@@ -164,7 +253,7 @@ public class CommandWidgetFinder {
 	 * button.setActionCommand("FOO");
 	 * @param cmd The command to analyse.
 	 */
-	private List<StringLitMatch> matchWidgetsUsagesWithStringsInCmdConditions(final @NotNull Command cmd) {
+	private List<StringLitMatch> matchWidgetsUsagesWithStringsInCmdConditions(final @NotNull Command cmd, final @NotNull WidgetConfigurationIndex index) {
 		final StringLiteralFilter stringLiteralFilter = new StringLiteralFilter();
 
 		final Set<CtLiteral<?>> stringliterals = cmd.getConditions().parallelStream()
@@ -178,15 +267,8 @@ public class CommandWidgetFinder {
 			// Collecting them
 			.collect(Collectors.toCollection(HashSet::new));
 
-		return widgetUsages.stream().map(usage -> {
-			// Getting the code statement that uses the variable
-			return usage.accesses.stream().map(acc -> acc.getParent(CtStatement.class)).filter(stat -> stat != null).
-				// Looking for the variables used in the conditions in the code statement
-					map(stat -> stringliterals.stream().filter(varr -> !stat.getElements(new FindElementFilter(varr, false)).isEmpty()).
-					collect(Collectors.toList())).
-					filter(list -> !list.isEmpty()).
-					map(var -> new StringLitMatch(usage, var));
-		}).flatMap(s -> s).collect(Collectors.toList());
+		// Looking for the code statements that use a widget variable and that contain the literals of the conditions
+		return index.matchStringLiterals(stringliterals);
 	}
 
 
@@ -197,7 +279,7 @@ public class CommandWidgetFinder {
 	 * button.setActionCommand(FOO);
 	 * @param cmd The command to analyse.
 	 */
-	private List<VarMatch> matchWidgetsUsagesWithCmdConditions(final @NotNull Command cmd) {
+	private List<VarMatch> matchWidgetsUsagesWithCmdConditions(final @NotNull Command cmd, final @NotNull WidgetConfigurationIndex index) {
 		final VariableAccessFilter filter = new VariableAccessFilter();
 
 		final Set<CtVariable<?>> vars = cmd.getConditions().parallelStream()
@@ -211,37 +293,11 @@ public class CommandWidgetFinder {
 			// Collecting them
 			.collect(Collectors.toCollection(HashSet::new));
 
-		return widgetUsages
-			.parallelStream()
-			.map(usage -> usage.getUsagesWithCons()
-				.parallelStream()
-				.filter(m -> {
-					// Ignoring the statements that are parts of a listener method. The statements that must be analysed
-					// or those that configure the widgetUsages.
-					try {
-						CtExecutable<?> ex = m.getParent(CtExecutable.class);
-						return ex == null || !WidgetHelper.INSTANCE.isListenerClassMethod(ex);
-					}catch(ParentNotInitializedException ex) {
-						return true;
-					}
-				})
-				// Getting the code statement that uses the variable
-				.map(varac -> SpoonHelper.INSTANCE.getStatementParentNotCtrlFlow(varac))
-				.filter(stat -> stat.isPresent())
-				// Looking for the variables used in the conditions in the code statement
-				.map(stat -> vars
-					.stream()
-					.filter(varr -> !stat.get().getElements(new MyVariableAccessFilter(varr)).isEmpty())
-					.collect(Collectors.toList()))
-				.filter(list -> !list.isEmpty())
-				.map(var -> new VarMatch(usage, var)))
-			// Collecting all the variables used in both the command's conditions and the code statements that configure widgetUsages
-				.flatMap(s -> s)
-			.collect(Collectors.toList());
+		// Looking for the code statements that configure the widgets and that use the variables of the conditions
+		return index.matchVariables(vars);
 	}
 
 
-	@SuppressWarnings("rawtypes")
 	private @NotNull Optional<CtClass<?>> getWidgetClass(final @NotNull Command cmd) {
 		final CtExecutable<?> listenerMethod = cmd.getExecutable();
 		final CtInvocation<?> inv = listenerMethod.getParent(CtInvocation.class);
@@ -249,30 +305,17 @@ public class CommandWidgetFinder {
 		if(inv != null || !listenerMethod.isParentInitialized() || !(listenerMethod.getParent() instanceof CtClass<?>))
 			return Optional.empty();
 
-		final Optional<CtClass> ctClass = listenerMethod.getParent().getElements(new ThisAccessFilter(false)).stream().
-			filter(thisacc -> thisacc.isParentInitialized() && thisacc.getParent() instanceof CtInvocation<?>).
-			map(thisacc -> {
-				final CtInvocation<?> invok = (CtInvocation<?>) thisacc.getParent();
-				final CtExpression<?> target = invok.getTarget();
-				CtClass clazz;
-
-				if(target instanceof CtThisAccess<?> && WidgetHelper.INSTANCE.isTypeRefAToolkitWidget(invok.getExecutable().getDeclaringType()))
-					clazz = (CtClass) ((CtThisAccess<?>) target).getType().getDeclaration();
-				else clazz = null;
-
-				return Optional.ofNullable(clazz);
-			}).filter(clazz -> clazz.isPresent()).findFirst().orElseGet(() -> Optional.empty());
-
-		return Optional.ofNullable(ctClass.orElse(null));
+		return getListenerClassIndex((CtClass<?>) listenerMethod.getParent()).widgetClass;
 	}
 
 
 	/**
 	 * Identifies the widgetUsages used the conditions of the given command.
 	 * @param cmd The comand to analyse
+	 * @param deadline Checked for each widget usage.
 	 * @return The list of the references to the widgetUsages used in the conditions.
 	 */
-	private @NotNull Set<WidgetProcessor.WidgetUsage> getVarWidgetUsedInCmdConditions(final @NotNull Command cmd) {
+	private @NotNull Set<WidgetProcessor.WidgetUsage> getVarWidgetUsedInCmdConditions(final @NotNull Command cmd, final @NotNull Deadline deadline) {
 		final TypeRefFilter filter = new TypeRefFilter(WidgetHelper.INSTANCE.getWidgetTypes(cmd.getExecutable().getFactory()));
 		// Getting the widget types used in the conditions.
 		final List<CtTypeReference<?>> types = cmd.getConditions()
@@ -284,33 +327,37 @@ public class CommandWidgetFinder {
 			.collect(Collectors.toList());
 
 		// Getting the widget usages which variable is used in the conditions.
-		return widgetUsages.parallelStream().filter(u -> types.stream().anyMatch(w -> {
-			try {
-				final CtVariableReference<?> parent = w.getParent(CtVariableReference.class);
-				return parent != null && u.widgetVar == parent.getDeclaration();
-			}catch(ParentNotInitializedException ex) {
-				return false;
-			}
-		})).collect(Collectors.toSet());
+		return widgetUsages.parallelStream().filter(u -> {
+			deadline.check();
+			return types.stream().anyMatch(w -> {
+				try {
+					final CtVariableReference<?> parent = w.getParent(CtVariableReference.class);
+					return parent != null && u.widgetVar == parent.getDeclaration();
+				}catch(ParentNotInitializedException ex) {
+					return false;
+				}
+			});
+		}).collect(Collectors.toSet());
 	}
 
 
 	/**
 	 * Identifies the widget on which the listener is added.
 	 * @param cmd The command to analyse.
+	 * @param externalFields Collects the widget fields and widget-returning methods, declared outside the model, on which the listener is added.
 	 * @return The reference to the widget or nothing.
 	 */
-	private @NotNull Set<WidgetProcessor.WidgetUsage> getAssociatedListenerVariable(final @NotNull Command cmd) {
+	private @NotNull Set<WidgetProcessor.WidgetUsage> getAssociatedListenerVariable(final @NotNull Command cmd, final @NotNull Set<String> externalFields) {
 		final CtExecutable<?> listenerMethod = cmd.getExecutable();
 		final CtInvocation<?> invok = listenerMethod.getParent(CtInvocation.class);
 
 		if(invok == null) {
 			if(listenerMethod.isParentInitialized() && listenerMethod.getParent() instanceof CtClass<?>)
-				return getAssociatedListenerVariableThroughClass((CtClass<?>) listenerMethod.getParent(), cmd);
+				return getAssociatedListenerVariableThroughClass((CtClass<?>) listenerMethod.getParent(), cmd, externalFields);
 			return Collections.emptySet();
 		}
 
-		return getAssociatedListenerVariableThroughInvocation(invok).map(Collections::singleton).orElse(Collections.emptySet());
+		return getAssociatedListenerVariableThroughInvocation(invok, externalFields).map(Collections::singleton).orElse(Collections.emptySet());
 	}
 
 
@@ -319,31 +366,42 @@ public class CommandWidgetFinder {
 	 * @param clazz The class to analyse.
 	 * @return The possible widget.
 	 */
-	private Set<WidgetProcessor.WidgetUsage> getAssociatedListenerVariableThroughClass(final @NotNull CtClass<?> clazz, final @NotNull Command cmd) {
-		// Looking for 'this' usages
-		final CtType<?> interf = WidgetHelper.INSTANCE.getListenerInterface(cmd.getExecutable()).orElse(null);
-
-		final Set<WidgetProcessor.WidgetUsage> ref = clazz.getElements(new ThisAccessFilter(false)).stream().
-			// Keeping the 'this' usages that are parameters of a method call
-				filter(thisacc -> {
-				try {
-					return thisacc.isParentInitialized() && thisacc.getParent() instanceof CtInvocation<?> &&
-						// Checking that the type of the listener widget matches the listener method of the command
-						((CtInvocation<?>) thisacc.getParent()).getExecutable().getParameters().size() == 1 &&
-						((CtInvocation<?>) thisacc.getParent()).getExecutable().getParameters().get(0).getTypeDeclaration().equals(interf);
-				}catch(SpoonClassNotFoundException ex) {
-					return true;
-				}
-			}).map(thisacc -> getAssociatedListenerVariableThroughInvocation((CtInvocation<?>) thisacc.getParent())).
+	private Set<WidgetProcessor.WidgetUsage> getAssociatedListenerVariableThroughClass(final @NotNull CtClass<?> clazz, final @NotNull Command cmd,
+																						final @NotNull Set<String> externalFields) {
+		final String interf = WidgetHelper.INSTANCE.getListenerInterface(cmd.getExecutable()).map(type -> type.getQualifiedName()).orElse("");
+		final ListenerClassIndex index = getListenerClassIndex(clazz);
+
+		// The registrations are resolved once per class and listener interface.
+		final Tuple<Set<WidgetProcessor.WidgetUsage>, Set<String>> resolved = index.resolved.computeIfAbsent(interf, k -> {
+			final Set<String> fields = new HashSet<>();
+			final Set<WidgetProcessor.WidgetUsage> usages = index.getRegistrations(interf).stream().
+				map(invok -> getAssociatedListenerVariableThroughInvocation(invok, fields)).
 				filter(usage -> usage.isPresent()).map(usage -> usage.get()).collect(Collectors.toSet());
+			return new Tuple<>(usages, fields);
+		});
 
-		// Looking for associations in super classes.
-		final CtType<?> superclass = clazz.getSuperclass() == null ? null : clazz.getSuperclass().getDeclaration();
-		if(superclass instanceof CtClass<?>) {
-			ref.addAll(getAssociatedListenerVariableThroughClass((CtClass<?>) superclass, cmd));
+		externalFields.addAll(resolved.b);
+		return new HashSet<>(resolved.a);
+	}
+
+
+	/**
+	 * @return The index of the 'this' usages of the given class. Computed once per class.
+	 */
+	private @NotNull ListenerClassIndex getListenerClassIndex(final @NotNull CtClass<?> clazz) {
+		final IdentityKey<CtClass<?>> key = IdentityKey.of(clazz);
+		final ListenerClassIndex index = classIndexes.get(key);
+
+		if(index != null) {
+			return index;
 		}
 
-		return ref;
+		// Not computed in the map since the index of the super class is required (the map cannot be modified recursively).
+		final CtType<?> superclass = clazz.getSuperclass() == null ? null : clazz.getSuperclass().getDeclaration();
+		final ListenerClassIndex newIndex = new ListenerClassIndex(clazz,
+			superclass instanceof CtClass<?> ? getListenerClassIndex((CtClass<?>) superclass) : null);
+		final ListenerClassIndex previous = classIndexes.putIfAbsent(key, newIndex);
+		return previous == null ? newIndex : previous;
 	}
 
 
@@ -355,9 +413,11 @@ public class CommandWidgetFinder {
 	/**
 	 * Example: myWidget.addActionListener(() ->...);
 	 * @param invok The invocation from which the widget will be retieved.
+	 * @param externalFields Collects the widget field or the widget-returning method if it is declared outside the model.
 	 * @return The possible widget.
 	 */
-	private Optional<WidgetProcessor.WidgetUsage> getAssociatedListenerVariableThroughInvocation(final @NotNull CtInvocation<?> invok) {
+	private Optional<WidgetProcessor.WidgetUsage> getAssociatedListenerVariableThroughInvocation(final @NotNull CtInvocation<?> invok,
+																								  final @NotNull Set<String> externalFields) {
 		if(!WidgetHelper.INSTANCE.isTypeRefAToolkitWidget(invok.getExecutable().getDeclaringType())) {
 			return Optional.empty();
 		}
@@ -365,8 +425,17 @@ public class CommandWidgetFinder {
 		final CtExpression<?> target = invok.getTarget();
 
 		if(target instanceof CtVariableAccess<?>) {
+			final CtVariableReference<?> var = ((CtVariableAccess<?>) target).getVariable();
+			final CtVariable<?> decl = var.getDeclaration();
+
+			// The field is declared in a type that is not part of the model (e.g. another shard): it can only be
+			// identified by its name.
+			if(decl == null && var instanceof CtFieldReference<?> && ((CtFieldReference<?>) var).getDeclaringType() != null) {
+				externalFields.add(getFieldKey(((CtFieldReference<?>) var).getDeclaringType().getQualifiedName(), var.getSimpleName()));
+				return Optional.empty();
+			}
 			// Looking in the widget usages which widget matches this variable.
-			return getMatchingWidgetUsage(((CtVariableAccess<?>) target).getVariable().getDeclaration());
+			return getMatchingWidgetUsage(decl);
 		}
 		if(target instanceof CtThisAccess<?> || target instanceof CtTypeAccess<?>) {
 			// First instanceof: 'This' accesses are supported in getWidgetClass.
@@ -375,7 +444,11 @@ public class CommandWidgetFinder {
 			final CtClass<Object> clazz = target.getFactory().Class().get(((CtInvocation<?>) target).getExecutable().getDeclaringType().getQualifiedName());
 
 			if(clazz == null) {
-				LOG.log(Level.SEVERE, () -> "Cannot find the class " + ((CtInvocation<?>) target).getExecutable().getDeclaringType().getQualifiedName());
+				// The method is declared in a type that is not part of the model (e.g. another shard): it can only be
+				// identified by its name.
+				final String type = ((CtInvocation<?>) target).getExecutable().getDeclaringType().getQualifiedName();
+				externalFields.add(getMethodKey(type, ((CtInvocation<?>) target).getExecutable().getSimpleName()));
+				LOG.log(Level.INFO, () -> "Cannot find the class " + type);
 				return Optional.empty();
 			}
 
@@ -401,6 +474,25 @@ public class CommandWidgetFinder {
 	}
 
 
+	/**
+	 * @param declaringType The qualified name of the type that declares the field.
+	 * @param fieldName The name of the field.
+	 * @return The key that identifies a widget field across models.
+	 */
+	public static @NotNull String getFieldKey(final @NotNull String declaringType, final @NotNull String fieldName) {
+		return declaringType + '#' + fieldName;
+	}
+
+	/**
+	 * @param declaringType The qualified name of the type that declares the method.
+	 * @param methodName The name of the method (that returns a widget).
+	 * @return The key that identifies a widget-returning method across models.
+	 */
+	public static @NotNull String getMethodKey(final @NotNull String declaringType, final @NotNull String methodName) {
+		return declaringType + '#' + methodName + "()";
+	}
+
+
 	/**
 	 * @return A unmodifiable map of the results of the process.
 	 */
@@ -409,6 +501,62 @@ public class CommandWidgetFinder {
 	}
 
 
+	/**
+	 * @return The widgets of each analysed command (see WidgetFinderEntry#getWidgetUsages). Computed once the process is done.
+	 * During the process (e.g. from the consumer given to process), the widgets of the commands analysed so far are computed
+	 * but not cached.
+	 */
+	public @NotNull Map<Command, Set<WidgetProcessor.WidgetUsage>> getResolvedWidgetUsages() {
+		final List<WidgetFinderEntry> entries;
+		synchronized(results) {
+			if(processed) {
+				if(resolvedUsages == null) {
+					resolvedUsages = metrics.time("finder.resolveWidgetUsages", () -> resolveWidgetUsages(results.values()));
+				}
+				return resolvedUsages;
+			}
+			entries = new ArrayList<>(results.values());
+		}
+		return resolveWidgetUsages(entries);
+	}
+
+
+	/**
+	 * Computes the widgets of the commands of the given entries in a single pass.
+	 * The widgets of a command are the widgets matched through its conditions, its string literals, or its shared variables.
+	 * If no widget is matched, the widgets on which its listener is registered are used, except those that other commands
+	 * of the same listener method may produce. The listener methods are processed in parallel.
+	 * @param entries The entries to resolve.
+	 * @return The unmodifiable map of the widgets of each command.
+	 */
+	public static @NotNull Map<Command, Set<WidgetProcessor.WidgetUsage>> resolveWidgetUsages(final @NotNull Collection<WidgetFinderEntry> entries) {
+		final Map<CtExecutable<?>, List<WidgetFinderEntry>> groups = new IdentityHashMap<>();
+		entries.forEach(entry -> groups.computeIfAbsent(entry.command.getExecutable(), k -> new ArrayList<>()).add(entry));
+
+		final Map<Command, Set<WidgetProcessor.WidgetUsage>> resolved = new IdentityHashMap<>();
+
+		groups.values().parallelStream().forEach(group -> {
+			// The number of commands of the listener method that may be produced by each widget
+			final Map<WidgetProcessor.WidgetUsage, Integer> candidates = new HashMap<>();
+			final List<Set<WidgetProcessor.WidgetUsage>> widgets = group.stream().map(entry -> entry.getCandidateWidgets()).collect(Collectors.toList());
+			widgets.forEach(usages -> usages.forEach(usage -> candidates.merge(usage, 1, Integer::sum)));
+
+			for(int i = 0; i < group.size(); i++) {
+				final WidgetFinderEntry entry = group.get(i);
+				final Set<WidgetProcessor.WidgetUsage> usages = entry.hasMatchedWidgets() ? widgets.get(i) :
+					// A registered widget is kept if no other command of the listener may be produced by it
+					widgets.get(i).stream().filter(usage -> candidates.get(usage) == 1).collect(Collectors.toSet());
+
+				synchronized(resolved) {
+					resolved.put(entry.command, Collections.unmodifiableSet(usages));
+				}
+			}
+		});
+
+		return Collections.unmodifiableMap(resolved);
+	}
+
+
 	public static final class WidgetFinderEntry {
 		private final @NotNull Command command;
 		private @NotNull Set<WidgetProcessor.WidgetUsage> registeredWidgets;
@@ -416,6 +564,8 @@ public class CommandWidgetFinder {
 		private @NotNull Optional<CtClass<?>> widgetClasses;
 		private @NotNull List<VarMatch> widgetsFromSharedVars;
 		private @NotNull List<StringLitMatch> widgetsFromStringLiterals;
+		private @NotNull Set<String> externalWidgetFields;
+		private volatile boolean truncated;
 
 		private WidgetFinderEntry(final @NotNull Command cmd) {
 			super();
@@ -425,52 +575,58 @@ public class CommandWidgetFinder {
 			widgetClasses = Optional.empty();
 			widgetsFromSharedVars = Collections.emptyList();
 			widgetsFromStringLiterals = Collections.emptyList();
+			externalWidgetFields = Collections.emptySet();
 		}
 
-		private Set<WidgetProcessor.WidgetUsage> getWidgetUsages(final @NotNull List<WidgetFinderEntry> otherEntries, final @NotNull Set<WidgetFinderEntry> visited) {
-			final int size = widgetsFromStringLiterals.size() + widgetsFromSharedVars.size() + widgetsUsedInConditions.size();
+		/**
+		 * @return True if widgets were found through the conditions, the string literals, or the shared variables of the command.
+		 */
+		private boolean hasMatchedWidgets() {
+			return !widgetsFromStringLiterals.isEmpty() || !widgetsFromSharedVars.isEmpty() || !widgetsUsedInConditions.isEmpty();
+		}
 
-			switch(size) {
-				case 0:
-					return registeredWidgets.stream().filter(reg -> otherEntries.stream().
-						noneMatch(other -> {
-							if(this == other || visited.contains(other)) {
-								return false;
-							}
-							visited.add(this);
-							return other.getWidgetUsages(otherEntries, visited).contains(reg);
-						})).
-						collect(Collectors.toSet());
-				case 1:
-					return Collections.singleton(widgetsUsedInConditions.isEmpty() ? widgetsFromSharedVars.isEmpty() ?
-						widgetsFromStringLiterals.iterator().next().usage : widgetsFromSharedVars.iterator().next().usage : widgetsUsedInConditions.iterator().next());
-				default:
-					final Set<WidgetProcessor.WidgetUsage> usages = new HashSet<>(widgetsUsedInConditions);
-					if(!widgetsFromStringLiterals.isEmpty()) {
-						usages.addAll(widgetsFromStringLiterals.stream().map(lit -> lit.usage).collect(Collectors.toSet()));
-					}
-					if(!widgetsFromSharedVars.isEmpty()) {
-						usages.addAll(widgetsFromSharedVars.stream().map(var -> var.usage).collect(Collectors.toSet()));
-					}
-					return usages;
+		/**
+		 * @return The widgets that may produce the command if considered alone: the matched widgets, or the registered ones if no widget is matched.
+		 */
+		private @NotNull Set<WidgetProcessor.WidgetUsage> getCandidateWidgets() {
+			if(!hasMatchedWidgets()) {
+				return registeredWidgets;
 			}
+			final Set<WidgetProcessor.WidgetUsage> usages = new HashSet<>(widgetsUsedInConditions);
+			widgetsFromStringLiterals.forEach(lit -> usages.add(lit.usage));
+			widgetsFromSharedVars.forEach(var -> usages.add(var.usage));
+			return usages;
 		}
 
 		/**
+		 * @param found The entries to consider. Only those of the executable of the command are used.
 		 * @return All the usages found. Cannot be null.
+		 * @see CommandWidgetFinder#resolveWidgetUsages(Collection) to get the usages of all the entries at once.
 		 */
 		public Set<WidgetProcessor.WidgetUsage> getWidgetUsages(final @NotNull Collection<WidgetFinderEntry> found) {
-			final int size = widgetsFromStringLiterals.size() + widgetsFromSharedVars.size() + widgetsUsedInConditions.size();
-			final List<WidgetFinderEntry> otherCmds;
-
-			if(size == 0) {
-				final CtExecutable<?> exec = command.getExecutable();
-				otherCmds = found.parallelStream().filter(f -> f.command.getExecutable() == exec).collect(Collectors.toList());
-			}else {
-				otherCmds = Collections.emptyList();
+			if(hasMatchedWidgets()) {
+				return getCandidateWidgets();
 			}
 
-			return getWidgetUsages(otherCmds, new HashSet<>());
+			final CtExecutable<?> exec = command.getExecutable();
+			final List<WidgetFinderEntry> group = found.stream().filter(f -> f != this && f.command.getExecutable() == exec).collect(Collectors.toList());
+			group.add(this);
+			return resolveWidgetUsages(group).get(command);
+		}
+
+		public @NotNull Command getCommand() {
+			return command;
+		}
+
+		/**
+		 * @return True if the analysis of the command exceeded its time budget: the widgets found are partial (see TruncationReport).
+		 */
+		public boolean isTruncated() {
+			return truncated;
+		}
+
+		private void setTruncated(final boolean truncated) {
+			this.truncated = truncated;
 		}
 
 		public @NotNull List<StringLitMatch> getWidgetsFromStringLiterals() {
@@ -485,6 +641,14 @@ public class CommandWidgetFinder {
 			return Collections.unmodifiableSet(registeredWidgets);
 		}
 
+		/**
+		 * @return The keys (see CommandWidgetFinder#getFieldKey and CommandWidgetFinder#getMethodKey) of the widget fields
+		 * and of the widget-returning methods on which the listener is added but that are declared outside the analysed model.
+		 */
+		public @NotNull Set<String> getExternalWidgetFields() {
+			return Collections.unmodifiableSet(externalWidgetFields);
+		}
+
 		public @NotNull Set<WidgetProcessor.WidgetUsage> getWidgetsUsedInConditions() {
 			return Collections.unmodifiableSet(widgetsUsedInConditions);
 		}
@@ -505,6 +669,10 @@ public class CommandWidgetFinder {
 			this.registeredWidgets = registeredWidgets;
 		}
 
+		private void setExternalWidgetFields(final @NotNull Set<String> externalWidgetFields) {
+			this.externalWidgetFields = externalWidgetFields;
+		}
+
 		private void setWidgetsUsedInConditions(final @NotNull Set<WidgetProcessor.WidgetUsage> widgetsUsedInConditions) {
 			this.widgetsUsedInConditions = widgetsUsedInConditions;
 		}
@@ -515,6 +683,71 @@ public class CommandWidgetFinder {
 	}
 
 
+	/**
+	 * The 'this' usages of a listener class: the widget registrations made with 'this' (e.g. myWidget.addActionListener(this)),
+	 * including those of the super classes, per listener interface; and the widget class when the listener is a widget that uses itself.
+	 */
+	private static final class ListenerClassIndex {
+		/** The qualified name of the listener interface -> the invocations that register 'this' as such a listener. */
+		private final @NotNull Map<String, List<CtInvocation<?>>> registrations;
+		/** The registrations which listener type cannot be resolved: they match any listener interface. */
+		private final @NotNull List<CtInvocation<?>> unresolvedRegistrations;
+		private final @NotNull Optional<CtClass<?>> widgetClass;
+		/** The qualified name of the listener interface -> the widget usages and the external widget fields of its registrations. */
+		private final @NotNull Map<String, Tuple<Set<WidgetProcessor.WidgetUsage>, Set<String>>> resolved;
+
+		private ListenerClassIndex(final @NotNull CtClass<?> clazz, final @Nullable ListenerClassIndex superIndex) {
+			super();
+			registrations = new HashMap<>();
+			unresolvedRegistrations = new ArrayList<>();
+			resolved = new ConcurrentHashMap<>();
+
+			CtClass<?> widget = null;
+
+			for(final CtThisAccess<?> thisacc : clazz.getElements(new ThisAccessFilter(false))) {
+				if(thisacc.isParentInitialized() && thisacc.getParent() instanceof CtInvocation<?>) {
+					final CtInvocation<?> invok = (CtInvocation<?>) thisacc.getParent();
+					final CtExpression<?> target = invok.getTarget();
+
+					if(widget == null && target instanceof CtThisAccess<?> && WidgetHelper.INSTANCE.isTypeRefAToolkitWidget(invok.getExecutable().getDeclaringType())) {
+						widget = (CtClass<?>) ((CtThisAccess<?>) target).getType().getDeclaration();
+					}
+
+					// Keeping the 'this' usages that are the single parameter of a method call
+					if(invok.getExecutable().getParameters().size() == 1) {
+						try {
+							final CtType<?> listType = SpoonHelper.INSTANCE.resolveTypes(invok.getFactory(),
+								() -> invok.getExecutable().getParameters().get(0).getTypeDeclaration());
+							if(listType != null) {
+								registrations.computeIfAbsent(listType.getQualifiedName(), k -> new ArrayList<>()).add(invok);
+							}
+						}catch(final SpoonClassNotFoundException ex) {
+							unresolvedRegistrations.add(invok);
+						}
+					}
+				}
+			}
+
+			widgetClass = Optional.ofNullable(widget);
+
+			// The associations made in the super classes.
+			if(superIndex != null) {
+				superIndex.registrations.forEach((interf, invoks) -> registrations.computeIfAbsent(interf, k -> new ArrayList<>()).addAll(invoks));
+				unresolvedRegistrations.addAll(superIndex.unresolvedRegistrations);
+			}
+		}
+
+		/**
+		 * @return The invocations that register 'this' as a listener of the given interface (or of an unresolved type).
+		 */
+		private @NotNull List<CtInvocation<?>> getRegistrations(final @NotNull String interf) {
+			final List<CtInvocation<?>> invoks = new ArrayList<>(registrations.getOrDefault(interf, Collections.emptyList()));
+			invoks.addAll(unresolvedRegistrations);
+			return invoks;
+		}
+	}
+
+
 	public abstract static class CmdWidgetMatch {
 		public final WidgetProcessor.WidgetUsage usage;
 
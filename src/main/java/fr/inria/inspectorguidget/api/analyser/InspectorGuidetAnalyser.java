@@ -14,16 +14,32 @@
 
 package fr.inria.inspectorguidget.api.analyser;
 
+import fr.inria.inspectorguidget.api.processor.FusedProcessingScanner;
+import fr.inria.inspectorguidget.api.processor.InspectorGuidgetProcessor;
 import fr.inria.inspectorguidget.internal.helper.ExecArg;
 import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import fr.inria.inspectorguidget.internal.helper.SpoonModelCache;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import spoon.IncrementalLauncher;
 import spoon.SpoonAPI;
+import spoon.SpoonException;
 import spoon.compiler.Environment;
 import spoon.processing.Processor;
 import spoon.reflect.CtModel;
@@ -43,23 +59,52 @@ public class InspectorGuidetAnalyser implements SpoonAPI {
 		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
 	}
 
-	protected final @NotNull JDTBasedSpoonCompiler modelBuilder;
+	protected @NotNull JDTBasedSpoonCompiler modelBuilder;
+	/** The builder given at the creation of the analyser, if any: the models are then rebuilt from its sources and environment. */
+	protected final @Nullable JDTBasedSpoonCompiler externalBuilder;
 	protected final @NotNull List<Processor<?>> processors;
+	/** The processors applied on the whole model whatever the processing scope (compared by identity). */
+	protected final @NotNull Set<Processor<?>> unscopedProcessors;
+	protected final @NotNull List<File> inputResources;
+	protected @NotNull String[] sourceClasspath;
+	protected @Nullable SpoonModelCache modelCache;
+	/** The folder where Spoon keeps the incrementally built models. Null means the model is fully built. */
+	protected @Nullable File incrementalBuildDir;
+	/** Whether the next incremental build must ignore the kept model. */
+	protected boolean forceFullBuild;
 	protected StandardEnvironment env;
 	protected  Factory factory;
+	/** Selects, once the model is built, the types to process. Null means the whole model. */
+	protected @Nullable Function<CtModel, Collection<? extends CtType<?>>> processingScope;
+	/** The number of workers that apply the processors on the model. 1 (the default) means a sequential processing. */
+	protected int processingParallelism;
+	/** The metrics of the analyses run by this analyser (also added to MetricsHelper.INSTANCE). */
+	protected final @NotNull MetricsHelper metrics;
 
 	public InspectorGuidetAnalyser(final @NotNull Collection<Processor<?>> procs) {
 		super();
 		processors = new ArrayList<>();
+		unscopedProcessors = Collections.newSetFromMap(new IdentityHashMap<>());
+		inputResources = new ArrayList<>();
+		sourceClasspath = new String[0];
+		processingParallelism = 1;
+		metrics = new MetricsHelper(MetricsHelper.INSTANCE);
 		procs.forEach(pr -> addProcessor(pr));
 		modelBuilder = createCompiler();
+		externalBuilder = null;
 	}
 
 	public InspectorGuidetAnalyser(final @NotNull Collection<Processor<?>> procs, final @NotNull JDTBasedSpoonCompiler builder) {
 		super();
 		processors = new ArrayList<>();
+		unscopedProcessors = Collections.newSetFromMap(new IdentityHashMap<>());
+		inputResources = new ArrayList<>();
+		sourceClasspath = new String[0];
+		processingParallelism = 1;
+		metrics = new MetricsHelper(MetricsHelper.INSTANCE);
 		procs.forEach(pr -> addProcessor(pr));
 		modelBuilder = builder;
+		externalBuilder = builder;
 	}
 
 	@Override
@@ -87,12 +132,43 @@ public class InspectorGuidetAnalyser implements SpoonAPI {
 	}
 
 	public void setSourceClasspath(final String ... args) {
+		sourceClasspath = args.clone();
 		modelBuilder.setSourceClasspath(args);
 	}
 
 	@Override
 	public void addInputResource(final @NotNull String file) {
-		modelBuilder.addInputSource(new File(file));
+		final File input = new File(file);
+		inputResources.add(input);
+		modelBuilder.addInputSource(input);
+	}
+
+	/**
+	 * Enables the on-disk cache of the built models: when the input sources, the classpath and the environment
+	 * did not change since a previous run, the model is loaded from the cache instead of being built.
+	 * The loaded and the built models are counted in the metrics ('model.cache.hits' and 'model.cache.misses').
+	 * @param cacheDirectory The folder where the models are stored. If null, the cache is disabled.
+	 */
+	public void setModelCacheDirectory(final @Nullable File cacheDirectory) {
+		modelCache = cacheDirectory == null ? null : new SpoonModelCache(cacheDirectory);
+	}
+
+	/**
+	 * Enables the incremental building of the model, suited to the repeated analyses of the same sources (e.g. see UIDataWatcher).
+	 * The built model and the classes compiled from it are kept in the given folder: the next builds only compile the
+	 * source files added or modified since the previous build, the other types being loaded from the kept model
+	 * (see Spoon's IncrementalLauncher). When enabled, the model cache (see setModelCacheDirectory) is not used.
+	 * @param directory The folder where the model is kept. If null, the model is fully built.
+	 */
+	public void setIncrementalBuildDirectory(final @Nullable File directory) {
+		incrementalBuildDir = directory;
+	}
+
+	/**
+	 * Makes the next incremental build (see setIncrementalBuildDirectory) ignore the kept model and build all the sources.
+	 */
+	public void forceFullBuild() {
+		forceFullBuild = true;
 	}
 
 	@Override
@@ -132,17 +208,157 @@ public class InspectorGuidetAnalyser implements SpoonAPI {
 	@Override
 	public <T extends CtElement> void addProcessor(final Processor<T> processor) {
 		processors.add(processor);
+		if(processor instanceof InspectorGuidgetProcessor<?>) {
+			((InspectorGuidgetProcessor<?>) processor).setMetrics(metrics);
+		}
+	}
+
+	/**
+	 * @return The metrics of the analyses run by this analyser, cumulated over its runs.
+	 * They are also added to MetricsHelper.INSTANCE.
+	 */
+	public @NotNull MetricsHelper getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Adds a processor that is applied on the whole model even when a processing scope is set (see setProcessingScope).
+	 * For example, the widgets used by the scoped listeners may be declared out of the scope.
+	 */
+	public <T extends CtElement> void addUnscopedProcessor(final @NotNull Processor<T> processor) {
+		addProcessor(processor);
+		unscopedProcessors.add(processor);
 	}
 
 	@Override
 	public CtModel buildModel() {
+		return metrics.time("model.build", this::buildModelWithCache);
+	}
+
+	private CtModel buildModelWithCache() {
+		if(incrementalBuildDir != null) {
+			return buildModelIncrementally(incrementalBuildDir);
+		}
+
+		if(modelCache == null) {
+			modelBuilder.build();
+			return modelBuilder.getFactory().getModel();
+		}
+
+		String key = null;
+
+		try {
+			key = modelCache.computeKey(inputResources, sourceClasspath, modelBuilder.getFactory().getEnvironment());
+			final Optional<Factory> cached = modelCache.load(inputResources, key);
+
+			if(cached.isPresent()) {
+				metrics.addItems("model.cache.hits", 1L);
+				useCachedModel(cached.get());
+				return modelBuilder.getFactory().getModel();
+			}
+		}catch(final IOException ex) {
+			LOG.log(Level.WARNING, "Cannot use the model cache", ex);
+		}
+
+		metrics.addItems("model.cache.misses", 1L);
 		modelBuilder.build();
+
+		if(key != null) {
+			try {
+				modelCache.save(inputResources, key, modelBuilder.getFactory());
+			}catch(final IOException ex) {
+				LOG.log(Level.WARNING, "Cannot store the model in the cache", ex);
+			}
+		}
+
+		return modelBuilder.getFactory().getModel();
+	}
+
+	private CtModel buildModelIncrementally(final @NotNull File directory) {
+		final IncrementalLauncher launcher = new IncrementalLauncher(new HashSet<>(inputResources),
+			new HashSet<>(Arrays.asList(sourceClasspath)), directory, forceFullBuild);
+		final Environment launcherEnv = launcher.getEnvironment();
+		launcherEnv.setCommentEnabled(false);
+		launcherEnv.setComplianceLevel(8);
+		forceFullBuild = false;
+
+		launcher.buildModel();
+
+		try {
+			launcher.saveCache();
+		}catch(final SpoonException ex) {
+			// The next build will be a full one.
+			LOG.log(Level.WARNING, "Cannot keep the model for the next incremental build", ex);
+		}
+
+		useCachedModel(launcher.getFactory());
 		return modelBuilder.getFactory().getModel();
 	}
 
+	private void useCachedModel(final @NotNull Factory cachedFactory) {
+		factory = cachedFactory;
+		if(cachedFactory.getEnvironment() instanceof StandardEnvironment) {
+			env = (StandardEnvironment) cachedFactory.getEnvironment();
+		}
+		modelBuilder = new JDTBasedSpoonCompiler(cachedFactory);
+	}
+
+	/**
+	 * Restricts the processing to a sub-set of the types of the model (e.g. the types of the source files that changed).
+	 * @param typeSelector Given the built model, returns the types to process. If null, the whole model is processed.
+	 */
+	public void setProcessingScope(final @Nullable Function<CtModel, Collection<? extends CtType<?>>> typeSelector) {
+		processingScope = typeSelector;
+	}
+
+	/**
+	 * Enables the parallel processing: the top-level types of the model are distributed to a pool of workers.
+	 * All the processors must be thread-safe and must serialise their resolutions of types on the factory, which is shared
+	 * by the workers (see FusedProcessingScanner).
+	 * @param parallelism The number of workers. 1 means a sequential processing.
+	 * @throws IllegalArgumentException If the parallelism is not positive.
+	 */
+	public void setProcessingParallelism(final int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive: " + parallelism);
+		}
+		processingParallelism = parallelism;
+	}
+
+	/**
+	 * Releases the model and the elements the processors found in it, so that the model can be garbage collected.
+	 * The results computed from the model must have been copied before (e.g. see UIDataAnalyser#releaseModel).
+	 * The input sources, the classpath and the processors are kept: running the analyser again rebuilds the model.
+	 * When the analyser was created with a model builder, the new model is built from the sources and with the environment
+	 * (and thus the classpath) of this builder.
+	 */
+	public void releaseModel() {
+		processors.stream().filter(pr -> pr instanceof InspectorGuidgetProcessor<?>).forEach(pr -> ((InspectorGuidgetProcessor<?>) pr).clear());
+
+		if(externalBuilder == null) {
+			modelBuilder = createCompiler();
+			modelBuilder.setSourceClasspath(sourceClasspath);
+			inputResources.forEach(input -> modelBuilder.addInputSource(input));
+		}else {
+			modelBuilder = new JDTBasedSpoonCompiler(new FactoryImpl(new DefaultCoreFactory(), externalBuilder.getFactory().getEnvironment()));
+			externalBuilder.getSources().getAllJavaFiles().forEach(modelBuilder::addInputSource);
+		}
+	}
+
 	@Override
 	public void process() {
-		modelBuilder.process(processors);
+		final List<CtElement> root = Collections.singletonList(getModel().getRootPackage());
+
+		if(processingScope == null || unscopedProcessors.isEmpty()) {
+			// All the processors are applied during a single traversal of the elements.
+			new FusedProcessingScanner(modelBuilder.getFactory(), processors, processingParallelism, metrics)
+				.process(processingScope == null ? root : processingScope.apply(getModel()));
+		}else {
+			// The unscoped processors traverse the whole model, the other ones only the scope.
+			final List<Processor<?>> scoped = processors.stream().filter(pr -> !unscopedProcessors.contains(pr)).collect(Collectors.toList());
+			new FusedProcessingScanner(modelBuilder.getFactory(), new ArrayList<>(unscopedProcessors), processingParallelism, metrics).process(root);
+			new FusedProcessingScanner(modelBuilder.getFactory(), scoped, processingParallelism, metrics).process(processingScope.apply(getModel()));
+		}
 	}
 
 	@Override
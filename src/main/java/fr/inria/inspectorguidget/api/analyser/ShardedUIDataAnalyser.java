@@ -0,0 +1,256 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.api.UIDataExtractor;
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.data.Widget;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import fr.inria.inspectorguidget.internal.filter.ReturnFilter;
+import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.code.CtReturn;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+/**
+ * Extracts the UI data of large code bases with a bounded memory footprint.
+ * The input resources are split into shards (by package or by module). Each shard is built and analysed as a separate
+ * model that is released before the next shard is analysed, so that the peak memory depends on the size of the largest
+ * shard instead of on the size of the whole code base.
+ * The widget bindings of the shards are then merged. A command whose listener is added to a widget field declared
+ * in another shard (e.g. a public widget field registered from another package), or to a widget returned by a method
+ * declared in another shard, cannot be resolved in its own shard: each shard exports a summary of its non-private widget
+ * fields and widget-returning methods that is used to complete such bindings during the merge.
+ * Limitation: the other cross-shard widget references (e.g. a widget given as argument by a class of another shard)
+ * are not resolved, so the sharded output may miss widgets a single analysis finds. The unresolved references
+ * are logged as warnings.
+ */
+public class ShardedUIDataAnalyser implements UIDataExtractor {
+	public static final @NotNull Logger LOG = Logger.getLogger("ShardedUIDataAnalyser");
+
+	static {
+		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
+	}
+
+	public enum ShardingMode {
+		/** One shard per source folder, i.e. per Java package. */
+		PACKAGE,
+		/** One shard per input resource (e.g. the source folder of a module). */
+		MODULE
+	}
+
+	private final @NotNull ShardingMode mode;
+	private final @NotNull List<String> inputs;
+	private @NotNull String[] classpath;
+	private @Nullable File modelCacheDir;
+
+	public ShardedUIDataAnalyser(final @NotNull ShardingMode shardingMode) {
+		super();
+		mode = shardingMode;
+		inputs = new ArrayList<>();
+		classpath = new String[0];
+	}
+
+	@Override
+	public void addInputResource(final String file) {
+		inputs.add(file);
+	}
+
+	@Override
+	public void setSourceClasspath(final String... args) {
+		classpath = args.clone();
+	}
+
+	/**
+	 * @param cacheDirectory The folder where the models of the shards are cached (see InspectorGuidetAnalyser#setModelCacheDirectory).
+	 * If null, the cache is disabled.
+	 */
+	public void setModelCacheDirectory(final @Nullable File cacheDirectory) {
+		modelCacheDir = cacheDirectory;
+	}
+
+	/**
+	 * @return The input resources of each shard.
+	 */
+	public @NotNull List<List<String>> computeShards() {
+		if(mode == ShardingMode.MODULE) {
+			return inputs.stream().map(List::of).collect(Collectors.toList());
+		}
+
+		// The source files are grouped by folder. A TreeMap gives a stable order of analysis.
+		final Map<String, List<String>> shards = new TreeMap<>();
+
+		for(final String input : inputs) {
+			final Path root = Paths.get(input);
+
+			if(Files.isDirectory(root)) {
+				try(final Stream<Path> files = Files.walk(root)) {
+					files.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+						.forEach(p -> shards.computeIfAbsent(p.getParent().toString(), k -> new ArrayList<>()).add(p.toString()));
+				}catch(final IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}else {
+				final Path parent = root.toAbsolutePath().getParent();
+				shards.computeIfAbsent(parent == null ? "" : parent.toString(), k -> new ArrayList<>()).add(input);
+			}
+		}
+
+		return new ArrayList<>(shards.values());
+	}
+
+	@Override
+	public UIData extractUIData() {
+		final List<List<String>> shards = computeShards();
+		// The bindings are identified by the position of their command: the same command may be analysed by several shards
+		// when the inputs overlap.
+		final Map<String, WidgetBinding> bindings = new LinkedHashMap<>();
+		final Map<String, PendingBinding> pendings = new LinkedHashMap<>();
+		final Map<String, Widget> summary = new HashMap<>();
+		int i = 1;
+
+		for(final List<String> shard : shards) {
+			final int num = i;
+			LOG.log(Level.INFO, () -> "Analysing shard " + num + "/" + shards.size() + ": " + shard);
+			analyseShard(shard, bindings, pendings, summary);
+			i++;
+		}
+
+		// Completing the bindings that refer to widget fields or methods of other shards.
+		pendings.forEach((key, pending) -> {
+			final List<Widget> widgets = new ArrayList<>(pending.binding.getWidgets());
+			pending.externalFields.forEach(ref -> {
+				final Widget widget = summary.get(ref);
+				if(widget == null) {
+					LOG.log(Level.WARNING, () -> "The widget " + ref + " of the command " + key + " is not declared in the analysed shards");
+				}else {
+					widgets.add(widget);
+				}
+			});
+			bindings.putIfAbsent(key, new WidgetBinding(pending.binding.getInteraction(), widgets, pending.binding.getCmd()));
+		});
+
+		return new UIData(new ArrayList<>(bindings.values()));
+	}
+
+	/**
+	 * Builds and analyses the model of one shard. Only the produced UI data and the summary of the shard are kept,
+	 * the model is released at the end of the method.
+	 */
+	private void analyseShard(final @NotNull List<String> shard, final @NotNull Map<String, WidgetBinding> bindings,
+							  final @NotNull Map<String, PendingBinding> pendings, final @NotNull Map<String, Widget> summary) {
+		final UIDataAnalyser analyser = new UIDataAnalyser();
+		shard.forEach(analyser::addInputResource);
+		analyser.setSourceClasspath(classpath);
+		analyser.setModelCacheDirectory(modelCacheDir);
+		analyser.runAnalysis();
+
+		analyser.finder.getResults().forEach((cmd, entry) -> {
+			final String key = getCommandKey(cmd);
+			final WidgetBinding binding = analyser.toWidgetBinding(cmd, entry);
+			if(entry.getExternalWidgetFields().isEmpty()) {
+				bindings.putIfAbsent(key, binding);
+			}else {
+				pendings.putIfAbsent(key, new PendingBinding(binding, entry.getExternalWidgetFields()));
+			}
+		});
+
+		// Exporting the widget fields and the widget-returning methods that other shards may access.
+		final Map<CtVariable<?>, Widget> widgets = new IdentityHashMap<>();
+		for(final WidgetProcessor.WidgetUsage usage : analyser.getWidgetUsages()) {
+			final Widget widget = analyser.toWidget(usage);
+			widgets.put(usage.widgetVar, widget);
+			if(usage.widgetVar instanceof CtField<?> && !usage.widgetVar.hasModifier(ModifierKind.PRIVATE)) {
+				final CtField<?> field = (CtField<?>) usage.widgetVar;
+				summary.put(CommandWidgetFinder.getFieldKey(field.getDeclaringType().getQualifiedName(), field.getSimpleName()), widget);
+			}
+		}
+		for(final CtMethod<?> method : analyser.getModel().getElements(new TypeFilter<>(CtMethod.class))) {
+			final Widget widget = getReturnedWidget(method, widgets);
+			if(widget != null) {
+				summary.put(CommandWidgetFinder.getMethodKey(method.getDeclaringType().getQualifiedName(), method.getSimpleName()), widget);
+			}
+		}
+
+		analyser.releaseModel();
+	}
+
+	/**
+	 * @return The widget the given method returns, as CommandWidgetFinder identifies it (a single method of this name
+	 * with a single return of a widget variable). Null if the method is private or does not return a widget.
+	 */
+	private static @Nullable Widget getReturnedWidget(final @NotNull CtMethod<?> method, final @NotNull Map<CtVariable<?>, Widget> widgets) {
+		if(method.getBody() == null || method.hasModifier(ModifierKind.PRIVATE) || method.getDeclaringType() == null ||
+			method.getDeclaringType().getMethodsByName(method.getSimpleName()).size() != 1) {
+			return null;
+		}
+		final List<CtReturn<?>> returns = method.getBody().getElements(new ReturnFilter());
+		if(returns.size() != 1 || !(returns.get(0).getReturnedExpression() instanceof CtVariableAccess<?>)) {
+			return null;
+		}
+		final CtVariable<?> decl = ((CtVariableAccess<?>) returns.get(0).getReturnedExpression()).getVariable().getDeclaration();
+		return decl == null ? null : widgets.get(decl);
+	}
+
+	/**
+	 * @return The identifier of the given command: its file, the offset of its listener method (or lambda) and its lines.
+	 */
+	private static @NotNull String getCommandKey(final @NotNull Command cmd) {
+		final SourcePosition pos = cmd.getExecutable().getPosition();
+		return (pos.getFile() == null ? "" : pos.getFile().getAbsolutePath()) + ':' + pos.getSourceStart() + ':' +
+			cmd.getLineStart() + ':' + cmd.getLineEnd();
+	}
+
+	/**
+	 * A widget binding that refers to widget fields or methods declared in other shards.
+	 */
+	private static final class PendingBinding {
+		final @NotNull WidgetBinding binding;
+		final @NotNull Collection<String> externalFields;
+
+		PendingBinding(final @NotNull WidgetBinding binding, final @NotNull Collection<String> externalFields) {
+			super();
+			this.binding = binding;
+			this.externalFields = Set.copyOf(externalFields);
+		}
+	}
+}
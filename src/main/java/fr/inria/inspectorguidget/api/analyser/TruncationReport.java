@@ -0,0 +1,114 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.internal.helper.JsonHelper;
+import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * The analyses stopped because their time budget was exceeded (see CommandAnalyser#setListenerBudget
+ * and CommandWidgetFinder#setCommandBudget): their results are partial.
+ * The report can be filled by several threads at the same time.
+ */
+public class TruncationReport {
+	private final @NotNull List<Entry> entries;
+
+	public TruncationReport() {
+		super();
+		entries = new ArrayList<>();
+	}
+
+	/**
+	 * Records a truncated analysis.
+	 * @param phase The analysis phase that exceeded its budget, for example 'command.listenerAnalysis'.
+	 * @param exec The listener method (or lambda) being analysed.
+	 * @param lines The lines of the analysed code, for example the lines of a command. If null, the lines of the executable are used.
+	 * @param budget The exceeded budget.
+	 */
+	public void add(final @NotNull String phase, final @NotNull CtExecutable<?> exec, final @Nullable String lines, final @Nullable Duration budget) {
+		final CtType<?> type = exec.getParent(CtType.class);
+		final Entry entry = new Entry(phase, (type == null ? "" : type.getQualifiedName() + '#') + exec.getSignature(),
+			lines == null ? SpoonHelper.INSTANCE.formatPosition(exec.getPosition()) : lines, budget == null ? 0L : budget.toMillis());
+
+		synchronized(entries) {
+			entries.add(entry);
+		}
+	}
+
+	/**
+	 * @return The truncated analyses, in the order they were recorded.
+	 */
+	public @NotNull List<Entry> getEntries() {
+		synchronized(entries) {
+			return Collections.unmodifiableList(new ArrayList<>(entries));
+		}
+	}
+
+	public boolean isEmpty() {
+		synchronized(entries) {
+			return entries.isEmpty();
+		}
+	}
+
+	public void clear() {
+		synchronized(entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * @return The report as a JSON array: [{"phase": ..., "element": ..., "location": ..., "budgetMs": ...}, ...]
+	 */
+	public @NotNull String toJson() {
+		final StringBuilder sb = new StringBuilder("[");
+		for(final Entry entry : getEntries()) {
+			if(sb.length() > 1) sb.append(", ");
+			sb.append("{\"phase\": ").append(JsonHelper.INSTANCE.quote(entry.phase))
+				.append(", \"element\": ").append(JsonHelper.INSTANCE.quote(entry.element))
+				.append(", \"location\": ").append(JsonHelper.INSTANCE.quote(entry.location))
+				.append(", \"budgetMs\": ").append(entry.budgetMs).append('}');
+		}
+		return sb.append(']').toString();
+	}
+
+	public static final class Entry {
+		public final @NotNull String phase;
+		/** The listener method: the qualified name of its type and its signature. */
+		public final @NotNull String element;
+		public final @NotNull String location;
+		public final long budgetMs;
+
+		Entry(final @NotNull String phase, final @NotNull String element, final @NotNull String location, final long budgetMs) {
+			super();
+			this.phase = phase;
+			this.element = element;
+			this.location = location;
+			this.budgetMs = budgetMs;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry{" + "phase=" + phase + ", element=" + element + ", location=" + location + ", budgetMs=" + budgetMs + '}';
+		}
+	}
+}
@@ -25,23 +25,47 @@ import fr.inria.inspectorguidget.data.UICommand;
 import fr.inria.inspectorguidget.data.UIData;
 import fr.inria.inspectorguidget.data.Widget;
 import fr.inria.inspectorguidget.data.WidgetBinding;
+import fr.inria.inspectorguidget.internal.helper.Deadline;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import java.io.File;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.CtModel;
 import spoon.reflect.declaration.CtClass;
 import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtType;
 
 public class UIDataAnalyser implements UIDataExtractor {
 	private final CommandAnalyser cmdAnalyser;
 	private final WidgetProcessor widgetProc;
 	CommandWidgetFinder finder;
+	private @Nullable Function<CtModel, Collection<? extends CtType<?>>> processingScope;
+	private @Nullable Collection<? extends CtType<?>> scopedTypes;
+	private final @NotNull TruncationReport truncationReport;
+	private @Nullable Duration commandBudget;
+	/** The detached copies of the results. Computed on demand, kept when the model is released. */
+	private @Nullable List<CommandSnapshot> snapshots;
 
 	public UIDataAnalyser() {
 		super();
 
 		cmdAnalyser = new CommandAnalyser();
+		truncationReport = new TruncationReport();
+		cmdAnalyser.setTruncationReport(truncationReport);
 		widgetProc = new WidgetProcessor(true);
+		// The widgets are identified during the traversal that looks for the listeners.
+		// They are looked for in the whole model even when the analysis is scoped: the widgets of the scoped
+		// listeners and commands may be declared out of the scope.
+		cmdAnalyser.addUnscopedProcessor(widgetProc);
 	}
 
 	@Override
@@ -50,61 +74,152 @@ public class UIDataAnalyser implements UIDataExtractor {
 		return produceUIData();
 	}
 
-	private void runAnalysis() {
-		cmdAnalyser.run();
+	/**
+	 * Extracts the UI data without materialising it: each widget binding is given to the consumer as soon as
+	 * the widgets of its command are resolved (see UIDataJsonWriter to write them on the fly).
+	 * The bindings are produced in no particular order. The consumer is called by one thread at a time.
+	 * @param consumer Receives the widget bindings.
+	 */
+	public void extractUIData(final @NotNull Consumer<? super WidgetBinding> consumer) {
+		final Object lock = new Object();
+
+		runAnalysis(entry -> {
+			final WidgetBinding binding = toWidgetBinding(entry.getCommand(), entry);
+			synchronized(lock) {
+				consumer.accept(binding);
+			}
+		});
+	}
 
-		final InspectorGuidetAnalyser launcher = new InspectorGuidetAnalyser(
-			Collections.singletonList(widgetProc), cmdAnalyser.getModelBuilder());
-		launcher.process();
+	/**
+	 * Restricts the analysis of the listeners and of the commands to a sub-set of the types of the model
+	 * (see InspectorGuidetAnalyser#setProcessingScope). The widgets are still identified in the whole model.
+	 * The selector is applied once on the built model.
+	 * @param typeSelector Given the built model, returns the types to analyse. If null, the whole model is analysed.
+	 */
+	public void setProcessingScope(final @Nullable Function<CtModel, Collection<? extends CtType<?>>> typeSelector) {
+		processingScope = typeSelector;
+		scopedTypes = null;
+		cmdAnalyser.setProcessingScope(typeSelector == null ? null : this::getScopedTypes);
+	}
+
+	private Collection<? extends CtType<?>> getScopedTypes(final CtModel model) {
+		if(scopedTypes == null && processingScope != null) {
+			scopedTypes = processingScope.apply(model);
+		}
+		return scopedTypes;
+	}
+
+	void runAnalysis() {
+		runAnalysis(entry -> { });
+	}
+
+	private void runAnalysis(final @NotNull Consumer<CommandWidgetFinder.WidgetFinderEntry> onResolved) {
+		// The report only lists the truncations of the current analysis.
+		truncationReport.clear();
+		cmdAnalyser.run();
+		snapshots = null;
 
 		finder = new CommandWidgetFinder(
 			cmdAnalyser.getCommands().values().parallelStream().flatMap(s -> s.getCommands().stream()).collect(Collectors.toList()),
 			widgetProc.getWidgetUsages());
-		finder.process();
+		finder.setCommandBudget(commandBudget);
+		finder.setTruncationReport(truncationReport);
+		finder.setMetrics(cmdAnalyser.getMetrics());
+		finder.process(onResolved);
 	}
 
 	private UIData produceUIData() {
 		final Map<Command, CommandWidgetFinder.WidgetFinderEntry> results = finder.getResults();
 
 		return new UIData(results.entrySet().stream()
-			.map(entry -> {
-				// The method/lambda that contains the command
-				final CtExecutable<?> exec = entry.getKey().getExecutable();
-
-				// Reference to the class that contains the command
-				final ClassRef cref = new ClassRef(exec.getBody().getPosition().getCompilationUnit().getFile().toString(),
-					exec.getParent(CtClass.class).getSimpleName(), exec.getParent(CtClass.class).getQualifiedName());
-
-				// Data on the handler
-				final Handler handler = new Handler(exec.getReference().getDeclaringType().getQualifiedName(),
-					new Location(exec.getBody().getPosition().getLine(), exec.getBody().getPosition().getEndLine(), cref));
-
-				// Data on the interaction
-				final Interaction interaction = new HandlerInteraction(Collections.singletonList(handler));
-
-				// Data command
-				final UICommand cmd = new UICommand(new Location(entry.getKey().getLineStart(), entry.getKey().getLineEnd(), cref), List.of(cref));
-
-				// Data widgets
-				final List<Widget> widgets = entry.getValue().getRegisteredWidgets()
-					.stream()
-					.map(w -> new Widget(w.widgetVar.getSimpleName(), w.widgetVar.getType().getSimpleName(),
-						w.getUsagesWithCons()
-							.stream()
-							.map(u -> new Location(u.getPosition().getLine(), u.getPosition().getEndLine(),
-								new ClassRef(u.getPosition().getCompilationUnit().getFile().toString(),
-									u.getParent(CtClass.class).getSimpleName(),
-									u.getParent(CtClass.class).getQualifiedName())))
-							.collect(Collectors.toList())
-					))
-					.collect(Collectors.toList());
-
-				// Data on the widget binding
-				return new WidgetBinding(interaction, widgets, cmd);
-			})
+			.map(entry -> toWidgetBinding(entry.getKey(), entry.getValue()))
 			.collect(Collectors.toList()));
 	}
 
+	/**
+	 * Converts an analysed command into its widget binding.
+	 */
+	@NotNull WidgetBinding toWidgetBinding(final @NotNull Command command, final @NotNull CommandWidgetFinder.WidgetFinderEntry finderEntry) {
+		// The method/lambda that contains the command
+		final CtExecutable<?> exec = command.getExecutable();
+
+		// Reference to the class that contains the command
+		final ClassRef cref = new ClassRef(exec.getBody().getPosition().getCompilationUnit().getFile().toString(),
+			exec.getParent(CtClass.class).getSimpleName(), exec.getParent(CtClass.class).getQualifiedName());
+
+		// Data on the handler
+		final Handler handler = new Handler(exec.getReference().getDeclaringType().getQualifiedName(),
+			new Location(exec.getBody().getPosition().getLine(), exec.getBody().getPosition().getEndLine(), cref));
+
+		// Data on the interaction
+		final Interaction interaction = new HandlerInteraction(Collections.singletonList(handler));
+
+		// Data command
+		final UICommand cmd = new UICommand(new Location(command.getLineStart(), command.getLineEnd(), cref), List.of(cref));
+
+		// Data widgets
+		final List<Widget> widgets = finderEntry.getRegisteredWidgets()
+			.stream()
+			.map(w -> toWidget(w))
+			.collect(Collectors.toList());
+
+		// Data on the widget binding
+		return new WidgetBinding(interaction, widgets, cmd);
+	}
+
+	/**
+	 * Converts a widget usage into its UIData widget.
+	 */
+	@NotNull Widget toWidget(final @NotNull WidgetProcessor.WidgetUsage w) {
+		return new Widget(w.widgetVar.getSimpleName(), w.widgetVar.getType().getSimpleName(),
+			w.getUsagesWithCons()
+				.stream()
+				.map(u -> WidgetUsageSnapshot.toLocation(u))
+				.collect(Collectors.toList())
+		);
+	}
+
+	/**
+	 * @return The detached copies of the analysed commands and of their widgets, sorted by file and line.
+	 * Unlike the results of the analysers, they do not refer to the model. Empty if the analysis has not been run,
+	 * or if the model was released before the snapshots were computed.
+	 */
+	public @NotNull List<CommandSnapshot> getSnapshots() {
+		if(snapshots == null) {
+			if(finder == null) {
+				return Collections.emptyList();
+			}
+			snapshots = finder.getResults().entrySet().parallelStream()
+				.map(entry -> CommandSnapshot.of(entry.getKey(), entry.getValue()))
+				.sorted(Comparator.<CommandSnapshot, String>comparing(snap -> snap.classRef.getFile()).thenComparingInt(snap -> snap.location.getLineStart()))
+				.collect(Collectors.toUnmodifiableList());
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Releases the Spoon model once the UI data are extracted, so that it can be garbage collected: the analysers
+	 * no longer refer to it (the results that refer to the model are dropped). The snapshots computed before the release
+	 * (see getSnapshots) and the truncation report remain available. Extracting the UI data again rebuilds the model.
+	 */
+	public void releaseModel() {
+		finder = null;
+		scopedTypes = null;
+		cmdAnalyser.releaseModel();
+	}
+
+	/**
+	 * @return The model of the last analysis.
+	 */
+	@NotNull CtModel getModel() {
+		return cmdAnalyser.getModel();
+	}
+
+	@NotNull Collection<WidgetProcessor.WidgetUsage> getWidgetUsages() {
+		return widgetProc.getWidgetUsages();
+	}
+
 	@Override
 	public void addInputResource(final String file) {
 		cmdAnalyser.addInputResource(file);
@@ -114,4 +229,67 @@ public class UIDataAnalyser implements UIDataExtractor {
 	public void setSourceClasspath(final String... args) {
 		cmdAnalyser.setSourceClasspath(args);
 	}
+
+	/**
+	 * @param cacheDirectory The folder where the built models are cached (see InspectorGuidetAnalyser#setModelCacheDirectory).
+	 * If null, the cache is disabled.
+	 */
+	public void setModelCacheDirectory(final @Nullable File cacheDirectory) {
+		cmdAnalyser.setModelCacheDirectory(cacheDirectory);
+	}
+
+	/**
+	 * @param directory The folder where the model is kept between the builds (see InspectorGuidetAnalyser#setIncrementalBuildDirectory).
+	 * If null, the model is fully built.
+	 */
+	public void setIncrementalBuildDirectory(final @Nullable File directory) {
+		cmdAnalyser.setIncrementalBuildDirectory(directory);
+	}
+
+	/**
+	 * Makes the next incremental build ignore the kept model (see InspectorGuidetAnalyser#forceFullBuild).
+	 */
+	public void forceFullBuild() {
+		cmdAnalyser.forceFullBuild();
+	}
+
+	/**
+	 * @param parallelism The number of workers that look for the listeners and the widgets
+	 * (see InspectorGuidetAnalyser#setProcessingParallelism).
+	 * @throws IllegalArgumentException If the parallelism is not positive.
+	 */
+	public void setProcessingParallelism(final int parallelism) {
+		cmdAnalyser.setProcessingParallelism(parallelism);
+	}
+
+	/**
+	 * @param budget The time budget of each listener (see CommandAnalyser#setListenerBudget). If null, not limited.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public void setListenerBudget(final @Nullable Duration budget) {
+		cmdAnalyser.setListenerBudget(budget);
+	}
+
+	/**
+	 * @param budget The time budget of each command (see CommandWidgetFinder#setCommandBudget). If null, not limited.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public void setCommandBudget(final @Nullable Duration budget) {
+		Deadline.checkBudget(budget);
+		commandBudget = budget;
+	}
+
+	/**
+	 * @return The metrics of the analyses run by this analyser (see InspectorGuidetAnalyser#getMetrics).
+	 */
+	public @NotNull MetricsHelper getMetrics() {
+		return cmdAnalyser.getMetrics();
+	}
+
+	/**
+	 * @return The listeners and the commands which analysis exceeded their time budget during the last analysis: the UI data produced for them are partial.
+	 */
+	public @NotNull TruncationReport getTruncationReport() {
+		return truncationReport;
+	}
 }
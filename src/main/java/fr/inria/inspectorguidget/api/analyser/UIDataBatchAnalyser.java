@@ -0,0 +1,275 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.api.io.UIDataJsonWriter;
+import fr.inria.inspectorguidget.internal.helper.Deadline;
+import fr.inria.inspectorguidget.internal.helper.ExecArg;
+import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Analyses several projects in a single JVM.
+ * The projects are described in a manifest file: each line describes one project with its name followed by
+ * the usual arguments (see ExecArg), for example:
+ * <pre>
+ * argouml -s argouml/src -c libs/a.jar libs/b.jar
+ * </pre>
+ * Empty lines and lines starting with '#' are ignored.
+ * The projects are analysed concurrently (each one with its own model) and the UIData of each project
+ * is written in the file 'name.json' of the output folder. The projects share no model element: the toolkit
+ * type references are built for each model (see ToolkitRegistry), only the toolkit snapshot (type names, no model element)
+ * is loaded once and shared by all the projects.
+ * Each project has its own metrics (see setMetricsExported), the metrics of MetricsHelper.INSTANCE cumulate all
+ * the projects: the times of the projects analysed concurrently add up.
+ */
+public class UIDataBatchAnalyser {
+	public static final @NotNull Logger LOG = Logger.getLogger("UIDataBatchAnalyser");
+
+	static {
+		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
+	}
+
+	private final @NotNull Map<String, String[]> projects;
+	private final @NotNull File outputDir;
+	private final int parallelism;
+	private @Nullable Duration listenerBudget;
+	private @Nullable Duration commandBudget;
+	private boolean metricsExported;
+
+	/**
+	 * @param manifest The lines of the manifest that describes the projects to analyse.
+	 * @param outputDirectory The folder where the UIData of the projects are written.
+	 * @param projectParallelism The maximal number of projects analysed at the same time.
+	 * @throws IllegalArgumentException If a line of the manifest is not valid or if the parallelism is not positive.
+	 */
+	public UIDataBatchAnalyser(final @NotNull List<String> manifest, final @NotNull File outputDirectory, final int projectParallelism) {
+		super();
+
+		if(projectParallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive: " + projectParallelism);
+		}
+
+		projects = new LinkedHashMap<>();
+		outputDir = outputDirectory;
+		parallelism = projectParallelism;
+
+		for(final String line : manifest) {
+			final String trimmed = line.trim();
+			if(!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+				final String[] tokens = trimmed.split("\\s+");
+				if(tokens.length < 3 || projects.containsKey(tokens[0])) {
+					throw new IllegalArgumentException("Invalid or duplicated project in the manifest: " + line);
+				}
+				projects.put(tokens[0], Arrays.copyOfRange(tokens, 1, tokens.length));
+			}
+		}
+	}
+
+	/**
+	 * Sets the time budgets of the analyses of each project (see UIDataAnalyser#setListenerBudget and UIDataAnalyser#setCommandBudget).
+	 * The analyses that exceed their budget are listed in the truncation report of the project (see getTruncationReportFile).
+	 * @param listener The budget of each listener. If null, not limited.
+	 * @param command The budget of each command. If null, not limited.
+	 * @throws IllegalArgumentException If a budget is not positive.
+	 */
+	public void setBudgets(final @Nullable Duration listener, final @Nullable Duration command) {
+		Deadline.checkBudget(listener);
+		Deadline.checkBudget(command);
+		listenerBudget = listener;
+		commandBudget = command;
+	}
+
+	/**
+	 * @param exported True: the metrics of each project are written in its metrics file (see getMetricsFile).
+	 */
+	public void setMetricsExported(final boolean exported) {
+		metricsExported = exported;
+	}
+
+	/**
+	 * Usage: -m path/to/manifest -o path/to/output/folder [-p parallelism] [-t path/to/metrics(.json|.prom)]
+	 * [-lb listener/budget/in/ms] [-cb command/budget/in/ms]
+	 */
+	public static void main(final String[] args) throws IOException {
+		String manifest = null;
+		String output = null;
+		String metrics = null;
+		Duration listenerBudget = null;
+		Duration commandBudget = null;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+
+		for(int i = 0; i < args.length - 1; i += 2) {
+			switch(args[i]) {
+				case "-m": manifest = args[i + 1]; break;
+				case "-o": output = args[i + 1]; break;
+				case "-p": parallelism = Integer.parseInt(args[i + 1]); break;
+				case "-t": metrics = args[i + 1]; break;
+				case "-lb": listenerBudget = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+				case "-cb": commandBudget = Duration.ofMillis(Long.parseLong(args[i + 1])); break;
+				default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+
+		if(manifest == null || output == null) {
+			throw new IllegalArgumentException("Arguments: -m path/to/manifest -o path/to/output/folder [-p parallelism] [-t path/to/metrics(.json|.prom)] " +
+				"[-lb listener/budget/in/ms] [-cb command/budget/in/ms]");
+		}
+
+		final UIDataBatchAnalyser batch = new UIDataBatchAnalyser(Files.readAllLines(new File(manifest).toPath()), new File(output), parallelism);
+		batch.setBudgets(listenerBudget, commandBudget);
+		batch.setMetricsExported(metrics != null);
+		final List<String> failures = batch.run();
+
+		// The metrics of all the projects, those of each project are in the output folder.
+		if(metrics != null) {
+			MetricsHelper.INSTANCE.export(new File(metrics).toPath());
+		}
+
+		if(!failures.isEmpty()) {
+			LOG.log(Level.SEVERE, () -> "Failed projects: " + failures);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Analyses all the projects of the manifest.
+	 * The failure of a project does not stop the analysis of the other ones.
+	 * @return The names of the projects that could not be analysed.
+	 * @throws IOException If the output folder cannot be created.
+	 */
+	public @NotNull List<String> run() throws IOException {
+		Files.createDirectories(outputDir.toPath());
+
+		// Loading the shared toolkit snapshot before the concurrent analyses. The type references are not shared:
+		// they are built for the factory of each project.
+		WidgetHelper.INSTANCE.initialise();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, projects.size())));
+		final Map<String, Future<?>> tasks = new LinkedHashMap<>();
+
+		try {
+			projects.forEach((name, args) -> tasks.put(name, executor.submit(() -> {
+				analyseProject(name, args);
+				return null;
+			})));
+
+			final List<String> failures = new ArrayList<>();
+			for(final Map.Entry<String, Future<?>> task : tasks.entrySet()) {
+				try {
+					task.getValue().get();
+				}catch(final ExecutionException ex) {
+					LOG.log(Level.SEVERE, "Cannot analyse the project " + task.getKey(), ex.getCause());
+					failures.add(task.getKey());
+				}catch(final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					failures.addAll(tasks.keySet().stream().filter(n -> !tasks.get(n).isDone()).collect(Collectors.toList()));
+					break;
+				}
+			}
+			return failures;
+		}finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return The names of the projects of the manifest.
+	 */
+	public @NotNull List<String> getProjects() {
+		return Collections.unmodifiableList(new ArrayList<>(projects.keySet()));
+	}
+
+	/**
+	 * @return The file where the UIData of the given project is written.
+	 */
+	public @NotNull Path getOutputFile(final @NotNull String project) {
+		return outputDir.toPath().resolve(project + ".json");
+	}
+
+	/**
+	 * @return The file where the analyses of the given project that exceeded their time budget are listed (see TruncationReport#toJson).
+	 * The file exists only if some analyses of the project were truncated.
+	 */
+	public @NotNull Path getTruncationReportFile(final @NotNull String project) {
+		return outputDir.toPath().resolve(project + ".truncated.json");
+	}
+
+	/**
+	 * @return The file where the metrics of the given project are written, if enabled (see setMetricsExported and MetricsHelper#toJson).
+	 */
+	public @NotNull Path getMetricsFile(final @NotNull String project) {
+		return outputDir.toPath().resolve(project + ".metrics.json");
+	}
+
+	private void analyseProject(final @NotNull String name, final @NotNull String[] args) throws IOException {
+		final long time = System.currentTimeMillis();
+		final UIDataAnalyser analyser = new UIDataAnalyser();
+		new ExecArg().parse(args, analyser);
+		analyser.setListenerBudget(listenerBudget);
+		analyser.setCommandBudget(commandBudget);
+
+		// The bindings are written as soon as they are resolved, in a temporary file so that a failed analysis
+		// does not produce a (valid but truncated) output file.
+		final Path output = getOutputFile(name);
+		final Path partial = output.resolveSibling(output.getFileName() + ".part");
+		try {
+			try(final UIDataJsonWriter writer = new UIDataJsonWriter(Files.newBufferedWriter(partial, StandardCharsets.UTF_8))) {
+				analyser.extractUIData(writer);
+			}
+			Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING);
+		}finally {
+			Files.deleteIfExists(partial);
+			// The model of the project is freed before the next project is analysed.
+			analyser.releaseModel();
+		}
+
+		// The report of a previous run must not remain.
+		final Path report = getTruncationReportFile(name);
+		if(analyser.getTruncationReport().isEmpty()) {
+			Files.deleteIfExists(report);
+		}else {
+			Files.write(report, (analyser.getTruncationReport().toJson() + '\n').getBytes(StandardCharsets.UTF_8));
+			LOG.log(Level.WARNING, () -> "Project " + name + ": " + analyser.getTruncationReport().getEntries().size() + " truncated analyses");
+		}
+		if(metricsExported) {
+			analyser.getMetrics().export(getMetricsFile(name));
+		}
+		LOG.log(Level.INFO, () -> "Project " + name + " analysed in " + (System.currentTimeMillis() - time) + " ms");
+	}
+}
@@ -0,0 +1,490 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import com.beust.klaxon.JsonObject;
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.api.io.UIDataJsonWriter;
+import fr.inria.inspectorguidget.internal.helper.JsonHelper;
+import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A resident analyser that answers analysis requests, so that the JVM, the JIT-compiled code and the toolkit type tables
+ * stay warm between the requests.
+ * The requests are read from stdin or from a loopback socket, one JSON object per line:
+ * <pre>
+ * {"id": 1, "sources": ["src/main/java"], "classpath": ["lib.jar"], "changed": ["src/main/java/Foo.java"]}
+ * </pre>
+ * 'classpath' and 'changed' are optional. The daemon keeps a session per set of sources and classpath: when 'changed'
+ * is given, only these files (and the files that refer to them) are re-analysed (see UIDataWatcher). The first request
+ * of a session is always a full analysis. The daemon keeps a bounded number of sessions: the least recently used one
+ * is dropped when a new session exceeds this bound.
+ * Each response is a JSON object written on one line:
+ * <pre>
+ * {"id": 1, "status": "ok", "time": 12, "uiData": {...}}
+ * {"id": 1, "status": "error", "message": "..."}
+ * </pre>
+ * The widget bindings are streamed in the response (see UIDataJsonWriter). A session keeps its analyser and its model
+ * between the requests (see UIDataWatcher): a request with an empty 'changed' array answers the bindings of the previous
+ * analysis without analysing anything.
+ * The requests of different sessions are executed concurrently. The requests of the same session are
+ * serialised. The responses may thus be written in a different order than the requests.
+ * The request {"metrics": true} returns the metrics of the phases of the analyses (see MetricsHelper).
+ * The request {"close": true, "sources": [...], "classpath": [...]} drops the session of these sources and classpath.
+ * The request {"shutdown": true} stops the daemon: the inputs being served stop being read, even if they are blocked.
+ */
+public class UIDataDaemon implements Closeable {
+	public static final @NotNull Logger LOG = Logger.getLogger("UIDataDaemon");
+
+	static {
+		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
+	}
+
+	/** The default maximal number of sessions kept by a daemon. */
+	public static final int DEFAULT_MAX_SESSIONS = 8;
+
+	/** Marks the end of an input in the queue of its lines (compared by identity). */
+	private static final String END_OF_INPUT = new String();
+
+	private final @NotNull ExecutorService executor;
+	/** The sessions, from the least to the most recently used one. Guarded by itself. */
+	private final @NotNull Map<String, Session> sessions;
+	/** The sessions dropped from the sessions but not closed yet. Guarded by the sessions. */
+	private final @NotNull List<Session> dropped;
+	/** The line queues of the inputs being served. */
+	private final @NotNull Set<BlockingQueue<String>> inputs;
+	private volatile boolean running;
+	private @Nullable ServerSocket server;
+
+	/**
+	 * @param workers The maximal number of requests executed at the same time.
+	 */
+	public UIDataDaemon(final int workers) {
+		this(workers, DEFAULT_MAX_SESSIONS);
+	}
+
+	/**
+	 * @param workers The maximal number of requests executed at the same time.
+	 * @param maxSessions The maximal number of sessions kept by the daemon.
+	 * @throws IllegalArgumentException If maxSessions is not positive.
+	 */
+	public UIDataDaemon(final int workers, final int maxSessions) {
+		super();
+		if(maxSessions < 1) {
+			throw new IllegalArgumentException("The maximal number of sessions must be positive: " + maxSessions);
+		}
+		executor = Executors.newFixedThreadPool(workers);
+		dropped = new ArrayList<>();
+		sessions = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Session> eldest) {
+				final boolean evict = size() > maxSessions;
+				if(evict) {
+					LOG.log(Level.INFO, () -> "Session dropped: " + eldest.getKey());
+					dropped.add(eldest.getValue());
+				}
+				return evict;
+			}
+		};
+		inputs = ConcurrentHashMap.newKeySet();
+		running = true;
+		WidgetHelper.INSTANCE.initialise();
+	}
+
+	/**
+	 * Usage: (--stdio | --port port) [-w workers] [-s sessions]
+	 */
+	public static void main(final String[] args) throws IOException {
+		Integer port = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int maxSessions = DEFAULT_MAX_SESSIONS;
+		boolean stdio = false;
+
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+				case "--stdio": stdio = true; break;
+				case "--port": port = Integer.parseInt(args[++i]); break;
+				case "-w": workers = Integer.parseInt(args[++i]); break;
+				case "-s": maxSessions = Integer.parseInt(args[++i]); break;
+				default: throw new IllegalArgumentException("Unknown argument: " + args[i]);
+			}
+		}
+
+		if(stdio == (port != null)) {
+			throw new IllegalArgumentException("Arguments: (--stdio | --port port) [-w workers] [-s sessions]");
+		}
+
+		try(final UIDataDaemon daemon = new UIDataDaemon(workers, maxSessions)) {
+			if(stdio) {
+				daemon.serve(System.in, System.out);
+			}else {
+				daemon.listen(port);
+			}
+		}
+	}
+
+	/**
+	 * Accepts connections on the given port of the loopback interface until the daemon is shut down.
+	 * Each connection is served as a stream of requests (see serve).
+	 * @param port The port to listen to. 0 selects a free port.
+	 * @throws IOException If the socket cannot be opened.
+	 */
+	public void listen(final int port) throws IOException {
+		try(final ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			server = socket;
+			LOG.log(Level.INFO, () -> "Listening on port " + socket.getLocalPort());
+
+			while(running) {
+				final Socket client;
+				try {
+					client = socket.accept();
+				}catch(final IOException ex) {
+					if(running) throw ex;
+					return;
+				}
+				final Thread thread = new Thread(() -> {
+					try(client) {
+						serve(client.getInputStream(), client.getOutputStream());
+					}catch(final IOException ex) {
+						LOG.log(Level.WARNING, "Connection error", ex);
+					}
+				}, "UIDataDaemon-client");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * @return The port the daemon listens to, or -1 if it does not listen to a socket.
+	 */
+	public int getLocalPort() {
+		final ServerSocket socket = server;
+		return socket == null ? -1 : socket.getLocalPort();
+	}
+
+	/**
+	 * Reads the requests from the given input and writes the responses on the given output, until the end of the input
+	 * or a shutdown request. The method returns once all the read requests are answered.
+	 * The input is read by a daemon thread, so that a shutdown does not wait for a blocked read (e.g. on stdin).
+	 * @throws IOException If the input cannot be read.
+	 */
+	public void serve(final @NotNull InputStream in, final @NotNull OutputStream out) throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		final List<Future<?>> pendings = new ArrayList<>();
+		final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+		final IOException[] readError = {null};
+		final Thread readerThread = new Thread(() -> {
+			try {
+				String line = reader.readLine();
+				while(line != null) {
+					lines.add(line);
+					line = reader.readLine();
+				}
+			}catch(final IOException ex) {
+				readError[0] = ex;
+			}finally {
+				lines.add(END_OF_INPUT);
+			}
+		}, "UIDataDaemon-reader");
+
+		inputs.add(lines);
+		readerThread.setDaemon(true);
+		readerThread.start();
+
+		try {
+			String line = running ? lines.take() : END_OF_INPUT;
+
+			while(line != END_OF_INPUT && running) {
+				if(!line.isBlank()) {
+					final String request = line;
+					pendings.add(executor.submit(() -> {
+						handle(request, writer);
+						return null;
+					}));
+				}
+				line = running ? lines.take() : END_OF_INPUT;
+			}
+
+			for(final Future<?> pending : pendings) {
+				try {
+					pending.get();
+				}catch(final ExecutionException ex) {
+					LOG.log(Level.SEVERE, "Cannot answer a request", ex.getCause());
+				}
+			}
+		}catch(final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}finally {
+			inputs.remove(lines);
+		}
+
+		// Without shutdown, the input ended by the reader thread, which set its error before ending the queue.
+		if(running && readError[0] != null) {
+			throw readError[0];
+		}
+	}
+
+	/**
+	 * Executes the given request.
+	 * @param request The JSON request.
+	 * @return The JSON response.
+	 */
+	public @NotNull String handle(final @NotNull String request) {
+		final StringWriter out = new StringWriter();
+		try {
+			handle(request, out);
+		}catch(final IOException ex) {
+			// Cannot happen with a string writer.
+			throw new UncheckedIOException(ex);
+		}
+		return out.toString().strip();
+	}
+
+	/**
+	 * Executes the given request and writes its response, on one line, on the given output.
+	 * The output is locked while the response is written, not while the request is executed.
+	 * @param request The JSON request.
+	 * @param out The output where the response is written.
+	 * @throws IOException If the response cannot be written.
+	 */
+	public void handle(final @NotNull String request, final @NotNull Writer out) throws IOException {
+		Object id = null;
+		try {
+			final Map<String, Object> req = parseRequest(request);
+			id = req.get("id");
+
+			if(Boolean.TRUE.equals(req.get("shutdown"))) {
+				stop();
+				respond(out, "{\"id\": " + toJson(id) + ", \"status\": \"ok\"}");
+				return;
+			}
+
+			if(Boolean.TRUE.equals(req.get("metrics"))) {
+				respond(out, "{\"id\": " + toJson(id) + ", \"status\": \"ok\", \"metrics\": " + MetricsHelper.INSTANCE.toJson() + "}");
+				return;
+			}
+
+			if(Boolean.TRUE.equals(req.get("close"))) {
+				final Session session;
+				synchronized(sessions) {
+					session = sessions.remove(getSessionKey(getStrings(req, "sources"), getStrings(req, "classpath")));
+				}
+				if(session != null) {
+					closeSessions(Collections.singletonList(session));
+				}
+				respond(out, "{\"id\": " + toJson(id) + ", \"status\": \"ok\", \"closed\": " + (session != null) + "}");
+				return;
+			}
+
+			analyse(id, getStrings(req, "sources"), getStrings(req, "classpath"),
+				req.containsKey("changed") ? getStrings(req, "changed") : null, out);
+		}catch(final RuntimeException ex) {
+			LOG.log(Level.WARNING, "Cannot execute the request " + request, ex);
+			respond(out, "{\"id\": " + toJson(id) + ", \"status\": \"error\", \"message\": " +
+				JsonHelper.INSTANCE.quote(String.valueOf(ex.getMessage())) + "}");
+		}
+	}
+
+	/**
+	 * Analyses the sources in their session and streams the widget bindings of the session in the response.
+	 */
+	private void analyse(final @Nullable Object id, final @NotNull List<String> sources, final @NotNull List<String> classpath,
+						 final @Nullable List<String> changed, final @NotNull Writer out) throws IOException {
+		if(sources.isEmpty()) {
+			throw new IllegalArgumentException("No source to analyse");
+		}
+
+		final long time = System.currentTimeMillis();
+		final Session session;
+		final List<Session> toClose;
+		synchronized(sessions) {
+			session = sessions.computeIfAbsent(getSessionKey(sources, classpath),
+				k -> new Session(new UIDataWatcher(sources, classpath.toArray(new String[0]), data -> { })));
+			toClose = new ArrayList<>(dropped);
+			dropped.clear();
+		}
+		closeSessions(toClose);
+
+		synchronized(session) {
+			// A session requires a full analysis until one succeeded, whatever the request that created the session.
+			session.watcher.update(!session.initialised || changed == null ? null :
+				changed.stream().map(Paths::get).collect(Collectors.toSet()));
+			session.initialised = true;
+
+			synchronized(out) {
+				out.write("{\"id\": " + toJson(id) + ", \"status\": \"ok\", \"time\": " + (System.currentTimeMillis() - time) + ", \"uiData\": ");
+				try(final UIDataJsonWriter writer = new UIDataJsonWriter(out, true)) {
+					session.watcher.forEachWidgetBinding(writer);
+				}catch(final UncheckedIOException ex) {
+					// The output is broken.
+					throw ex.getCause();
+				}catch(final RuntimeException ex) {
+					// Ending the broken response, so that the next responses can be read.
+					out.write('\n');
+					throw ex;
+				}
+				out.write("}\n");
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * Closes the watchers of the given sessions, once their current analysis, if any, is completed.
+	 */
+	private void closeSessions(final @NotNull Collection<Session> toClose) {
+		for(final Session session : toClose) {
+			try {
+				session.watcher.close();
+			}catch(final IOException ex) {
+				LOG.log(Level.WARNING, "Cannot close a session", ex);
+			}
+		}
+	}
+
+	private static @NotNull JsonObject parseRequest(final @NotNull String request) {
+		try {
+			return new Klaxon().parseJsonObject(new StringReader(request));
+		}catch(final ClassCastException ex) {
+			throw new IllegalArgumentException("The request must be a JSON object", ex);
+		}
+	}
+
+	private static @NotNull String getSessionKey(final @NotNull List<String> sources, final @NotNull List<String> classpath) {
+		return String.join(File.pathSeparator, sources) + '\n' + String.join(File.pathSeparator, classpath);
+	}
+
+	private static @NotNull List<String> getStrings(final @NotNull Map<?, ?> req, final @NotNull String key) {
+		final Object value = req.get(key);
+		if(value == null) {
+			return Collections.emptyList();
+		}
+		if(!(value instanceof List<?>) || ((List<?>) value).stream().anyMatch(v -> !(v instanceof String))) {
+			throw new IllegalArgumentException("'" + key + "' must be an array of strings");
+		}
+		return ((List<?>) value).stream().map(String.class::cast).collect(Collectors.toList());
+	}
+
+	private static @NotNull String toJson(final @Nullable Object id) {
+		return id instanceof String ? JsonHelper.INSTANCE.quote((String) id) : String.valueOf(id);
+	}
+
+	private void respond(final @NotNull Writer writer, final @NotNull String response) throws IOException {
+		synchronized(writer) {
+			writer.write(response);
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Stops the daemon: the server socket is closed and the inputs being served are ended.
+	 */
+	private void stop() {
+		running = false;
+		closeServer();
+		inputs.forEach(lines -> lines.add(END_OF_INPUT));
+	}
+
+	private void closeServer() {
+		final ServerSocket socket = server;
+		if(socket != null) {
+			try {
+				socket.close();
+			}catch(final IOException ex) {
+				LOG.log(Level.WARNING, "Cannot close the server socket", ex);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of sessions kept by the daemon.
+	 */
+	public int getSessionCount() {
+		synchronized(sessions) {
+			return sessions.size();
+		}
+	}
+
+	@Override
+	public void close() {
+		stop();
+		executor.shutdown();
+		final List<Session> toClose;
+		synchronized(sessions) {
+			toClose = new ArrayList<>(sessions.values());
+			toClose.addAll(dropped);
+			sessions.clear();
+			dropped.clear();
+		}
+		closeSessions(toClose);
+	}
+
+	/**
+	 * The watcher of a set of sources and classpath. Its fields are guarded by the session itself.
+	 */
+	private static final class Session {
+		final @NotNull UIDataWatcher watcher;
+		/** Whether a full analysis of the sources succeeded. */
+		boolean initialised;
+
+		Session(final @NotNull UIDataWatcher watcher) {
+			super();
+			this.watcher = watcher;
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import fr.inria.inspectorguidget.internal.filter.BasicFilter;
+import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.CtModel;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * A long-running analyser that watches the input source roots and publishes an updated UIData each time
+ * source files change.
+ * The model is built incrementally: only the changed source files are compiled again, the other types are loaded
+ * from the model kept by the previous analysis (see UIDataAnalyser#setIncrementalBuildDirectory).
+ * The listener processors and the command analyses only run on the types of the changed files, on the types
+ * that refer to them, and on the types they refer to (the widgets are still identified in the whole model, since the
+ * re-analysed listeners may use widgets declared in unchanged files). The widget bindings of the other files are reused
+ * from the previous analysis.
+ */
+public class UIDataWatcher implements Closeable {
+	public static final @NotNull Logger LOG = Logger.getLogger("UIDataWatcher");
+
+	static {
+		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
+	}
+
+	private final @NotNull List<String> inputs;
+	private final @NotNull String[] classpath;
+	private final @NotNull Consumer<UIData> publisher;
+	/** The widget bindings of the last analysis, grouped by the source file of their command. */
+	private final @NotNull Map<String, List<WidgetBinding>> bindingsPerFile;
+	/** The qualified names of the types declared in each source file of the last analysis. */
+	private final @NotNull Map<String, Set<String>> typesPerFile;
+	/** The qualified names of the types referred to by each source file of the last analysis. */
+	private final @NotNull Map<String, Set<String>> referencesPerFile;
+	/** Kept between the analyses, so that its model is built incrementally. */
+	private final @NotNull UIDataAnalyser analyser;
+	/** The folder where the model is kept between the analyses. Created by the first analysis. */
+	private @Nullable Path buildDir;
+	/** The time (in ms) without any file event to wait for before analysing the changes. */
+	private long quietPeriod;
+	private @Nullable WatchService watcher;
+	private volatile boolean running;
+	/** Whether the watcher is closed. Guarded by the watcher itself. */
+	private boolean closed;
+
+	/**
+	 * Creates the watcher.
+	 * @param inputs The source files and folders to analyse and to watch.
+	 * @param classpath The classpath of the sources to analyse.
+	 * @param publisher Receives the UIData produced after each analysis.
+	 */
+	public UIDataWatcher(final @NotNull Collection<String> inputs, final @NotNull String[] classpath, final @NotNull Consumer<UIData> publisher) {
+		super();
+		this.inputs = List.copyOf(inputs);
+		this.classpath = classpath.clone();
+		this.publisher = publisher;
+		bindingsPerFile = new HashMap<>();
+		typesPerFile = new HashMap<>();
+		referencesPerFile = new HashMap<>();
+		analyser = new UIDataAnalyser();
+		this.inputs.forEach(analyser::addInputResource);
+		analyser.setSourceClasspath(this.classpath);
+		quietPeriod = 300L;
+	}
+
+	public void setQuietPeriod(final long millis) {
+		quietPeriod = millis;
+	}
+
+	/**
+	 * Analyses the whole input and then watches the input roots until the watcher is closed.
+	 * Each batch of file changes leads to an incremental analysis and to the publication of an updated UIData.
+	 * @throws IOException If the input roots cannot be watched.
+	 * @throws InterruptedException If the watching thread is interrupted.
+	 */
+	public void watch() throws IOException, InterruptedException {
+		watcher = FileSystems.getDefault().newWatchService();
+		running = true;
+
+		for(final String input : inputs) {
+			final Path path = normalise(input);
+			registerAll(Files.isDirectory(path) ? path : path.getParent());
+		}
+
+		publisher.accept(analyse(null));
+
+		while(running) {
+			final Set<Path> changed = new HashSet<>();
+			try {
+				WatchKey key = watcher.take();
+				// Collecting all the events that occur during the quiet period, so that a 'save all' leads to a single analysis.
+				while(key != null) {
+					collectEvents(key, changed);
+					key = watcher.poll(quietPeriod, TimeUnit.MILLISECONDS);
+				}
+			}catch(final ClosedWatchServiceException ex) {
+				running = false;
+			}
+
+			if(!changed.isEmpty()) {
+				publisher.accept(analyse(changed));
+			}
+		}
+	}
+
+	private void collectEvents(final @NotNull WatchKey key, final @NotNull Set<Path> changed) throws IOException {
+		final Path dir = (Path) key.watchable();
+
+		for(final WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				LOG.log(Level.WARNING, "Some file events were lost in " + dir);
+				continue;
+			}
+			final Path path = dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+
+			if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+				registerAll(path);
+				try(final Stream<Path> files = Files.walk(path)) {
+					files.filter(this::isJavaFile).forEach(changed::add);
+				}
+			}else if(isJavaFile(path) || event.kind() == StandardWatchEventKinds.ENTRY_DELETE && path.toString().endsWith(".java")) {
+				changed.add(path);
+			}
+		}
+		key.reset();
+	}
+
+	private boolean isJavaFile(final @NotNull Path path) {
+		return path.toString().endsWith(".java") && Files.isRegularFile(path);
+	}
+
+	private void registerAll(final @Nullable Path root) throws IOException {
+		if(root == null || watcher == null) return;
+
+		try(final Stream<Path> dirs = Files.walk(root)) {
+			for(final Path dir : dirs.filter(Files::isDirectory).collect(Collectors.toList())) {
+				dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			}
+		}
+	}
+
+	/**
+	 * Analyses the input sources.
+	 * @param changed The source files that changed since the previous analysis. If null, the whole input is analysed.
+	 * @return The UIData of the whole input.
+	 */
+	public @NotNull UIData analyse(final @Nullable Set<Path> changed) {
+		final List<WidgetBinding> bindings = new ArrayList<>();
+		synchronized(this) {
+			update(changed);
+			forEachWidgetBinding(bindings::add);
+		}
+		return new UIData(bindings);
+	}
+
+	/**
+	 * Analyses the input sources without producing a UIData (see forEachWidgetBinding to get the widget bindings).
+	 * @param changed The source files that changed since the previous analysis. If null, the whole input is analysed.
+	 * If empty, nothing is analysed: the bindings of the previous analysis are kept.
+	 */
+	public synchronized void update(final @Nullable Set<Path> changed) {
+		if(changed != null && changed.isEmpty()) {
+			return;
+		}
+
+		final Set<String> changedFiles = changed == null ? null :
+			changed.stream().map(p -> p.toAbsolutePath().normalize().toString()).collect(Collectors.toSet());
+		final Set<String> affectedFiles = new HashSet<>();
+		final Map<String, List<WidgetBinding>> newBindings = new HashMap<>();
+
+		analyser.setIncrementalBuildDirectory(closed ? null : getBuildDir().toFile());
+		if(changedFiles == null) {
+			analyser.forceFullBuild();
+		}
+		analyser.setProcessingScope(model -> {
+			final Map<String, Set<String>> oldTypes = new HashMap<>(typesPerFile);
+			final Map<String, Set<String>> oldReferences = new HashMap<>(referencesPerFile);
+			updateTypesPerFile(model);
+
+			if(changedFiles == null) {
+				affectedFiles.addAll(typesPerFile.keySet());
+				return model.getAllTypes();
+			}
+
+			affectedFiles.addAll(getAffectedFiles(changedFiles, oldTypes, oldReferences));
+			LOG.log(Level.INFO, () -> "Files to analyse: " + affectedFiles);
+			return model.getAllTypes().stream().filter(type -> affectedFiles.contains(getFile(type))).collect(Collectors.toList());
+		});
+
+		analyser.extractUIData(binding -> newBindings.computeIfAbsent(normalise(binding.getCmd().getLocation().getClassRef().getFile()).toString(),
+			k -> new ArrayList<>()).add(binding));
+		// The bindings are copied: the model is no longer needed until the next change.
+		analyser.releaseModel();
+
+		if(changedFiles == null) {
+			bindingsPerFile.clear();
+		}
+		// The previous bindings of the analysed files, and of the removed files, are replaced by the new ones.
+		affectedFiles.forEach(bindingsPerFile::remove);
+		bindingsPerFile.keySet().retainAll(typesPerFile.keySet());
+		bindingsPerFile.putAll(newBindings);
+	}
+
+	/**
+	 * Gives the widget bindings of the last analysis to the given consumer, without copying them.
+	 * @param consumer Receives the widget bindings.
+	 */
+	public synchronized void forEachWidgetBinding(final @NotNull Consumer<? super WidgetBinding> consumer) {
+		bindingsPerFile.values().forEach(bindings -> bindings.forEach(consumer));
+	}
+
+	private @NotNull Path getBuildDir() {
+		if(buildDir == null) {
+			try {
+				buildDir = Files.createTempDirectory("inspectorguidget-model");
+			}catch(final IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+		return buildDir;
+	}
+
+	/**
+	 * @return The changed files, the files that refer to the types declared in the changed files, and the files that declare
+	 * the types the changed files refer to (before or after the change). For example, a listener class declared in
+	 * an unchanged file may be registered on a widget of a changed file.
+	 */
+	private @NotNull Set<String> getAffectedFiles(final @NotNull Set<String> changedFiles, final @NotNull Map<String, Set<String>> oldTypes,
+												  final @NotNull Map<String, Set<String>> oldReferences) {
+		final Set<String> changedTypes = getBeforeAndAfter(changedFiles, oldTypes, typesPerFile);
+		final Set<String> usedTypes = getBeforeAndAfter(changedFiles, oldReferences, referencesPerFile);
+		final Set<String> affected = new HashSet<>(changedFiles);
+
+		referencesPerFile.forEach((file, refs) -> {
+			if(refs.stream().anyMatch(changedTypes::contains)) {
+				affected.add(file);
+			}
+		});
+		typesPerFile.forEach((file, types) -> {
+			if(types.stream().anyMatch(usedTypes::contains)) {
+				affected.add(file);
+			}
+		});
+
+		return affected;
+	}
+
+	private static @NotNull Set<String> getBeforeAndAfter(final @NotNull Set<String> files, final @NotNull Map<String, Set<String>> before,
+														  final @NotNull Map<String, Set<String>> after) {
+		return files.stream()
+			.flatMap(f -> Stream.concat(before.getOrDefault(f, Collections.emptySet()).stream(), after.getOrDefault(f, Collections.emptySet()).stream()))
+			.collect(Collectors.toSet());
+	}
+
+	private void updateTypesPerFile(final @NotNull CtModel model) {
+		typesPerFile.clear();
+		referencesPerFile.clear();
+		referencesPerFile.putAll(model.getAllTypes()
+			.parallelStream()
+			.filter(type -> getFile(type) != null)
+			.collect(Collectors.groupingByConcurrent(this::getFile,
+				Collectors.flatMapping(type -> type.getReferencedTypes().stream().map(ref -> ref.getQualifiedName()), Collectors.toSet()))));
+		model.getAllTypes().forEach(type -> {
+			final String file = getFile(type);
+			if(file != null) {
+				typesPerFile.computeIfAbsent(file, k -> new HashSet<>()).addAll(type.getElements(new BasicFilter<>(CtType.class))
+					.stream()
+					.map(t -> t.getQualifiedName())
+					.collect(Collectors.toSet()));
+			}
+		});
+	}
+
+	private @Nullable String getFile(final @NotNull CtType<?> type) {
+		final SourcePosition pos = type.getPosition();
+		return pos == null || pos.getFile() == null ? null : pos.getFile().toPath().toAbsolutePath().normalize().toString();
+	}
+
+	private static @NotNull Path normalise(final @NotNull String path) {
+		return Paths.get(path).toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Stops the watching and deletes the model kept between the analyses. The current analysis, if any, is completed.
+	 * The next analyses, if any, build the whole model.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		if(watcher != null) {
+			watcher.close();
+		}
+		synchronized(this) {
+			closed = true;
+			deleteBuildDir();
+		}
+	}
+
+	private void deleteBuildDir() throws IOException {
+		if(buildDir != null) {
+			try(final Stream<Path> files = Files.walk(buildDir)) {
+				for(final Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+					Files.deleteIfExists(file);
+				}
+			}
+			buildDir = null;
+		}
+	}
+}
@@ -30,6 +30,7 @@ public class UIListener {
 	private @NotNull Optional<UIListener> superListener;
 	private final @NotNull List<Command> cmds;
 	private final @NotNull CtExecutable<?> executable;
+	private volatile boolean truncated;
 
 	public UIListener(final @NotNull CtExecutable<?> exec) {
 		super();
@@ -46,6 +47,17 @@ public class UIListener {
 		return executable;
 	}
 
+	/**
+	 * @return True if the analysis of the listener exceeded its time budget: its commands are partial (see TruncationReport).
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public void setTruncated(final boolean truncated) {
+		this.truncated = truncated;
+	}
+
 	public void addCommand(final @NotNull Command cmd) {
 		cmds.add(cmd);
 	}
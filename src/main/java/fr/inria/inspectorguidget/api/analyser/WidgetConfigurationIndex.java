@@ -0,0 +1,199 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import fr.inria.inspectorguidget.internal.filter.StringLiteralFilter;
+import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import fr.inria.inspectorguidget.internal.helper.Tuple;
+import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.code.CtCodeElement;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.declaration.ParentNotInitializedException;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * Inverted indexes of the statements that configure the widgets (e.g. button.setActionCommand("FOO")),
+ * built once for all the commands a CommandWidgetFinder analyses.
+ * The indexes are not modified once built, so that they can be queried concurrently.
+ */
+final class WidgetConfigurationIndex {
+	/** The value of the string literals -> the statements that contain them. */
+	private final @NotNull Map<String, List<Tuple<Site, CtLiteral<?>>>> literals;
+	/** The variable declarations -> the statements (out of the listener methods) that access them. */
+	private final @NotNull Map<CtVariable<?>, List<Site>> variables;
+
+	WidgetConfigurationIndex(final @NotNull Collection<WidgetProcessor.WidgetUsage> usages) {
+		super();
+		literals = new HashMap<>();
+		variables = new IdentityHashMap<>();
+		indexLiterals(usages);
+		indexVariables(usages);
+	}
+
+	private void indexLiterals(final @NotNull Collection<WidgetProcessor.WidgetUsage> usages) {
+		final StringLiteralFilter filter = new StringLiteralFilter();
+		int ordinal = 0;
+
+		for(final WidgetProcessor.WidgetUsage usage : usages) {
+			for(final CtVariableAccess<?> acc : usage.accesses) {
+				// The code statement that uses the widget variable
+				final CtStatement stat = acc.getParent(CtStatement.class);
+				if(stat != null) {
+					final Site site = new Site(usage, ordinal);
+					ordinal++;
+					stat.getElements(filter).forEach(lit ->
+						literals.computeIfAbsent((String) lit.getValue(), k -> new ArrayList<>()).add(new Tuple<>(site, lit)));
+				}
+			}
+		}
+	}
+
+	private void indexVariables(final @NotNull Collection<WidgetProcessor.WidgetUsage> usages) {
+		int ordinal = 0;
+
+		for(final WidgetProcessor.WidgetUsage usage : usages) {
+			for(final CtCodeElement elt : usage.getUsagesWithCons()) {
+				// Ignoring the statements that are parts of a listener method. The statements that must be analysed
+				// are those that configure the widgets.
+				if(isInListenerMethod(elt)) {
+					continue;
+				}
+				// The code statement that uses the variable
+				final CtElement stat = SpoonHelper.INSTANCE.getStatementParentNotCtrlFlow(elt).orElse(null);
+				if(stat != null) {
+					final Site site = new Site(usage, ordinal);
+					ordinal++;
+					new CtScanner() {
+						@Override
+						protected void enter(final CtElement e) {
+							if(e instanceof CtVariableAccess<?>) {
+								final CtVariable<?> decl = getDeclaration((CtVariableAccess<?>) e);
+								if(decl != null) {
+									final List<Site> sites = variables.computeIfAbsent(decl, k -> new ArrayList<>());
+									// A statement may access the same variable several times
+									if(sites.isEmpty() || sites.get(sites.size() - 1) != site) {
+										sites.add(site);
+									}
+								}
+							}
+						}
+					}.scan(stat);
+				}
+			}
+		}
+	}
+
+	private static boolean isInListenerMethod(final @NotNull CtElement elt) {
+		try {
+			final CtExecutable<?> ex = elt.getParent(CtExecutable.class);
+			return ex != null && WidgetHelper.INSTANCE.isListenerClassMethod(ex);
+		}catch(final ParentNotInitializedException ex) {
+			return false;
+		}
+	}
+
+	private static @Nullable CtVariable<?> getDeclaration(final @NotNull CtVariableAccess<?> access) {
+		final CtVariableReference<?> ref = access.getVariable();
+
+		try {
+			return ref == null ? null : ref.getDeclaration();
+		}catch(final NullPointerException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param stringLiterals The string literals to look for.
+	 * @return For each statement that uses a widget variable and that contains some of the given literals, the match of the widget with these literals.
+	 * The matches are ordered as the widget usages and their accesses.
+	 */
+	@NotNull List<CommandWidgetFinder.StringLitMatch> matchStringLiterals(final @NotNull Collection<CtLiteral<?>> stringLiterals) {
+		final Map<Site, List<CtLiteral<?>>> found = new TreeMap<>();
+
+		for(final CtLiteral<?> lit : stringLiterals) {
+			for(final Tuple<Site, CtLiteral<?>> candidate : literals.getOrDefault(lit.getValue(), Collections.emptyList())) {
+				if(candidate.b.equals(lit)) {
+					final List<CtLiteral<?>> siteLits = found.computeIfAbsent(candidate.a, k -> new ArrayList<>());
+					// A statement may contain the same literal several times
+					if(siteLits.isEmpty() || siteLits.get(siteLits.size() - 1) != lit) {
+						siteLits.add(lit);
+					}
+				}
+			}
+		}
+
+		return found.entrySet()
+			.stream()
+			.map(entry -> new CommandWidgetFinder.StringLitMatch(entry.getKey().usage, entry.getValue()))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * @param vars The variables to look for.
+	 * @return For each statement that configures a widget and that accesses some of the given variables, the match of the widget with these variables.
+	 * The matches are ordered as the widget usages and their accesses.
+	 */
+	@NotNull List<CommandWidgetFinder.VarMatch> matchVariables(final @NotNull Collection<CtVariable<?>> vars) {
+		final Map<Site, List<CtVariable<?>>> found = new TreeMap<>();
+
+		for(final CtVariable<?> var : vars) {
+			for(final Site site : variables.getOrDefault(var, Collections.emptyList())) {
+				found.computeIfAbsent(site, k -> new ArrayList<>()).add(var);
+			}
+		}
+
+		return found.entrySet()
+			.stream()
+			.map(entry -> new CommandWidgetFinder.VarMatch(entry.getKey().usage, entry.getValue()))
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * A statement that configures a widget, identified by its rank in the traversal of the widget usages.
+	 */
+	private static final class Site implements Comparable<Site> {
+		final @NotNull WidgetProcessor.WidgetUsage usage;
+		final int ordinal;
+
+		Site(final @NotNull WidgetProcessor.WidgetUsage usage, final int ordinal) {
+			super();
+			this.usage = usage;
+			this.ordinal = ordinal;
+		}
+
+		@Override
+		public int compareTo(final @NotNull Site o) {
+			return Integer.compare(ordinal, o.ordinal);
+		}
+	}
+}
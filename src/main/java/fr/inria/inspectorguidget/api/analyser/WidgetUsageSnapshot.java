@@ -0,0 +1,125 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.api.processor.WidgetProcessor;
+import fr.inria.inspectorguidget.data.ClassRef;
+import fr.inria.inspectorguidget.data.Location;
+import fr.inria.inspectorguidget.data.Widget;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtElement;
+
+/**
+ * A detached and immutable copy of a widget usage (see WidgetProcessor.WidgetUsage): it holds only names and positions,
+ * so it does not keep the Spoon model reachable.
+ */
+public final class WidgetUsageSnapshot {
+	/** The name of the widget variable. */
+	public final @NotNull String name;
+	/** The simple name of the type of the widget variable. */
+	public final @NotNull String typeName;
+	/** The qualified name of the type of the widget variable. */
+	public final @NotNull String typeQualifiedName;
+	/** The declaration of the widget variable. Null if it has no position. */
+	public final @Nullable Location declaration;
+	/** The creation of the widget. Null if unknown. */
+	public final @Nullable Location creation;
+	/** The usages of the widget, including its creation (see WidgetUsage#getUsagesWithCons). */
+	public final @NotNull List<Location> usages;
+
+	/**
+	 * Copies the given widget usage.
+	 */
+	public static @NotNull WidgetUsageSnapshot of(final @NotNull WidgetProcessor.WidgetUsage usage) {
+		return new WidgetUsageSnapshot(usage.widgetVar.getSimpleName(), usage.widgetVar.getType().getSimpleName(),
+			usage.widgetVar.getType().getQualifiedName(), toLocationIfAny(usage.widgetVar),
+			usage.creation.map(cons -> toLocationIfAny(cons)).orElse(null),
+			usage.getUsagesWithCons().stream().map(u -> toLocation(u)).collect(Collectors.toList()));
+	}
+
+	public WidgetUsageSnapshot(final @NotNull String name, final @NotNull String typeName, final @NotNull String typeQualifiedName,
+							   final @Nullable Location declaration, final @Nullable Location creation, final @NotNull List<Location> usages) {
+		super();
+		this.name = name;
+		this.typeName = typeName;
+		this.typeQualifiedName = typeQualifiedName;
+		this.declaration = declaration;
+		this.creation = creation;
+		this.usages = List.copyOf(usages);
+	}
+
+	/**
+	 * @return The location of the given element (its lines and its class). The element must have a position.
+	 */
+	static @NotNull Location toLocation(final @NotNull CtElement elt) {
+		return new Location(elt.getPosition().getLine(), elt.getPosition().getEndLine(),
+			new ClassRef(elt.getPosition().getCompilationUnit().getFile().toString(),
+				elt.getParent(CtClass.class).getSimpleName(),
+				elt.getParent(CtClass.class).getQualifiedName()));
+	}
+
+	/**
+	 * @return The location of the given element, or null if it has no position or is not in a class.
+	 */
+	static @Nullable Location toLocationIfAny(final @NotNull CtElement elt) {
+		final SourcePosition pos = elt.getPosition();
+		if(!pos.isValidPosition() || pos.getCompilationUnit() == null || pos.getCompilationUnit().getFile() == null ||
+			elt.getParent(CtClass.class) == null) {
+			return null;
+		}
+		return toLocation(elt);
+	}
+
+	/**
+	 * @return The UIData widget of the usage.
+	 */
+	public @NotNull Widget toWidget() {
+		return new Widget(name, typeName, usages);
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+
+		final WidgetUsageSnapshot that = (WidgetUsageSnapshot) o;
+
+		return name.equals(that.name) && typeQualifiedName.equals(that.typeQualifiedName) &&
+			Objects.equals(declaration, that.declaration) && Objects.equals(creation, that.creation) &&
+			usages.equals(that.usages);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = name.hashCode();
+		result = 31 * result + typeQualifiedName.hashCode();
+		result = 31 * result + (declaration != null ? declaration.hashCode() : 0);
+		result = 31 * result + (creation != null ? creation.hashCode() : 0);
+		result = 31 * result + usages.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "WidgetUsageSnapshot{var: " + name + ", type: " + typeQualifiedName + ", declaration: " + declaration +
+			", creation: " + creation + ", nbUsages: " + usages.size() + "}";
+	}
+}
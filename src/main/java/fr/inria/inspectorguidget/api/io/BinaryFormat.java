@@ -0,0 +1,99 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The encoding primitives of the binary UIData format (see UIDataBinaryWriter for the layout).
+ */
+final class BinaryFormat {
+	static final byte[] MAGIC = {'I', 'G', 'U', 'D'};
+	static final int VERSION = 1;
+
+	private BinaryFormat() {
+		super();
+	}
+
+	static void writeHeader(final @NotNull OutputStream out) throws IOException {
+		out.write(MAGIC);
+		writeVarInt(out, VERSION);
+	}
+
+	static void readHeader(final @NotNull InputStream in) throws IOException {
+		if(!Arrays.equals(MAGIC, in.readNBytes(MAGIC.length))) {
+			throw new IOException("Not a binary UIData document");
+		}
+		final int version = readVarInt(in);
+		if(version != VERSION) {
+			throw new IOException("Unsupported version of the binary UIData format: " + version);
+		}
+	}
+
+	/**
+	 * Writes a non-negative integer on 1 to 5 bytes: 7 bits per byte, the high bit set when another byte follows.
+	 */
+	static void writeVarInt(final @NotNull OutputStream out, final int value) throws IOException {
+		int remaining = value;
+		while((remaining & ~0x7F) != 0) {
+			out.write((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		out.write(remaining);
+	}
+
+	static int readVarInt(final @NotNull InputStream in) throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			final int b = in.read();
+			if(b < 0) {
+				throw new EOFException("Truncated binary UIData document");
+			}
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Invalid variable-length integer");
+	}
+
+	/**
+	 * Writes a signed integer as a var int: the small negative values are encoded on few bytes too.
+	 */
+	static void writeSignedVarInt(final @NotNull OutputStream out, final int value) throws IOException {
+		writeVarInt(out, (value << 1) ^ (value >> 31));
+	}
+
+	static int readSignedVarInt(final @NotNull InputStream in) throws IOException {
+		final int value = readVarInt(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * @return The element of the given dictionary at the given index.
+	 * @throws IOException If the index is not valid.
+	 */
+	static <T> @NotNull T lookup(final @NotNull T[] dictionary, final int index) throws IOException {
+		if(index < 0 || index >= dictionary.length) {
+			throw new IOException("Invalid dictionary index: " + index);
+		}
+		return dictionary[index];
+	}
+}
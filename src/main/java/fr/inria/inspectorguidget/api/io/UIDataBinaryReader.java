@@ -0,0 +1,121 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import fr.inria.inspectorguidget.data.ClassRef;
+import fr.inria.inspectorguidget.data.Handler;
+import fr.inria.inspectorguidget.data.HandlerInteraction;
+import fr.inria.inspectorguidget.data.Location;
+import fr.inria.inspectorguidget.data.UICommand;
+import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.data.Widget;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads the UIData written by UIDataBinaryWriter.
+ * The class references and the locations are shared by the objects that refer to them.
+ */
+public class UIDataBinaryReader {
+	public UIDataBinaryReader() {
+		super();
+	}
+
+	/**
+	 * Reads a UIData from the given stream. The stream is not closed.
+	 * @throws IOException If the stream cannot be read or does not contain a valid binary UIData document.
+	 */
+	public @NotNull UIData read(final @NotNull InputStream input) throws IOException {
+		final InputStream in = new BufferedInputStream(input);
+		BinaryFormat.readHeader(in);
+
+		final String[] strings = new String[BinaryFormat.readVarInt(in)];
+		for(int i = 0; i < strings.length; i++) {
+			final int length = BinaryFormat.readVarInt(in);
+			final byte[] bytes = in.readNBytes(length);
+			if(bytes.length != length) {
+				throw new EOFException("Truncated binary UIData document");
+			}
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		final ClassRef[] classRefs = new ClassRef[BinaryFormat.readVarInt(in)];
+		for(int i = 0; i < classRefs.length; i++) {
+			classRefs[i] = new ClassRef(readString(in, strings), readString(in, strings), readString(in, strings));
+		}
+
+		// The columns of the locations.
+		final int nbLocations = BinaryFormat.readVarInt(in);
+		final ClassRef[] locationRefs = new ClassRef[nbLocations];
+		final int[] lineStarts = new int[nbLocations];
+		for(int i = 0; i < nbLocations; i++) {
+			locationRefs[i] = BinaryFormat.lookup(classRefs, BinaryFormat.readVarInt(in));
+		}
+		int previousLine = 0;
+		for(int i = 0; i < nbLocations; i++) {
+			lineStarts[i] = previousLine + BinaryFormat.readSignedVarInt(in);
+			previousLine = lineStarts[i];
+		}
+		final Location[] locations = new Location[nbLocations];
+		for(int i = 0; i < nbLocations; i++) {
+			locations[i] = new Location(lineStarts[i], lineStarts[i] + BinaryFormat.readSignedVarInt(in), locationRefs[i]);
+		}
+
+		final int nbBindings = BinaryFormat.readVarInt(in);
+		final List<WidgetBinding> bindings = new ArrayList<>(nbBindings);
+		for(int i = 0; i < nbBindings; i++) {
+			final int nbHandlers = BinaryFormat.readVarInt(in);
+			final List<Handler> handlers = new ArrayList<>(nbHandlers);
+			for(int j = 0; j < nbHandlers; j++) {
+				handlers.add(new Handler(readString(in, strings), BinaryFormat.lookup(locations, BinaryFormat.readVarInt(in))));
+			}
+
+			final Location cmdLocation = BinaryFormat.lookup(locations, BinaryFormat.readVarInt(in));
+			final int nbUses = BinaryFormat.readVarInt(in);
+			final List<ClassRef> uses = new ArrayList<>(nbUses);
+			for(int j = 0; j < nbUses; j++) {
+				uses.add(BinaryFormat.lookup(classRefs, BinaryFormat.readVarInt(in)));
+			}
+
+			final int nbWidgets = BinaryFormat.readVarInt(in);
+			final List<Widget> widgets = new ArrayList<>(nbWidgets);
+			for(int j = 0; j < nbWidgets; j++) {
+				final String id = readString(in, strings);
+				final String type = readString(in, strings);
+				final int nbUsages = BinaryFormat.readVarInt(in);
+				final List<Location> usages = new ArrayList<>(nbUsages);
+				for(int k = 0; k < nbUsages; k++) {
+					usages.add(BinaryFormat.lookup(locations, BinaryFormat.readVarInt(in)));
+				}
+				widgets.add(new Widget(id, type, usages));
+			}
+
+			bindings.add(new WidgetBinding(new HandlerInteraction(handlers), widgets, new UICommand(cmdLocation, uses)));
+		}
+
+		return new UIData(bindings);
+	}
+
+	private static @NotNull String readString(final @NotNull InputStream in, final @NotNull String[] strings) throws IOException {
+		return BinaryFormat.lookup(strings, BinaryFormat.readVarInt(in));
+	}
+}
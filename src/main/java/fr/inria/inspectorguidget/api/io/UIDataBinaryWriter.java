@@ -0,0 +1,200 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import fr.inria.inspectorguidget.data.ClassRef;
+import fr.inria.inspectorguidget.data.Handler;
+import fr.inria.inspectorguidget.data.HandlerInteraction;
+import fr.inria.inspectorguidget.data.Location;
+import fr.inria.inspectorguidget.data.UICommand;
+import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.data.Widget;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes a UIData in a compact binary format, read by UIDataBinaryReader.
+ * The strings (paths, class names, widget names) and the class references are stored once in dictionaries and
+ * referred to by index. The locations are stored once too, in a columnar block sorted by class and line, where
+ * the lines are delta-encoded. All the integers are variable-length encoded. The layout is:
+ * <pre>
+ * header:     'IGUD' version
+ * strings:    count (length utf8-bytes)*
+ * classRefs:  count (file className pkg)*                    [string indexes]
+ * locations:  count classRef* lineStartDelta* lineSpan*      [columns, signed]
+ * bindings:   count (handlers cmd widgets)*
+ *   handlers: count (type location)*
+ *   cmd:      location count classRef*
+ *   widgets:  count (id type count location*)*
+ * </pre>
+ * The conversion from and to JSON is lossless: the handlers interactions are the only kind of interaction.
+ */
+public class UIDataBinaryWriter {
+	/** The usual extension of the binary UIData files. */
+	public static final @NotNull String EXTENSION = ".uidb";
+
+	public UIDataBinaryWriter() {
+		super();
+	}
+
+	/**
+	 * Writes the given UIData in the given stream. The stream is flushed but not closed.
+	 * @throws IOException If the data cannot be written.
+	 * @throws IllegalArgumentException If an interaction of the data is not a HandlerInteraction.
+	 */
+	public void write(final @NotNull UIData data, final @NotNull OutputStream output) throws IOException {
+		final Dictionaries dict = new Dictionaries();
+		data.getWidgetBindings().forEach(binding -> dict.add(binding));
+		final Map<List<Integer>, Integer> locations = dict.sortLocations();
+
+		final BufferedOutputStream out = new BufferedOutputStream(output);
+		BinaryFormat.writeHeader(out);
+
+		BinaryFormat.writeVarInt(out, dict.strings.size());
+		for(final String str : dict.strings.keySet()) {
+			final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			BinaryFormat.writeVarInt(out, bytes.length);
+			out.write(bytes);
+		}
+
+		BinaryFormat.writeVarInt(out, dict.classRefs.size());
+		for(final List<Integer> ref : dict.classRefs.keySet()) {
+			for(final int str : ref) {
+				BinaryFormat.writeVarInt(out, str);
+			}
+		}
+
+		// The columns of the locations.
+		BinaryFormat.writeVarInt(out, locations.size());
+		for(final List<Integer> loc : locations.keySet()) {
+			BinaryFormat.writeVarInt(out, loc.get(0));
+		}
+		int previousLine = 0;
+		for(final List<Integer> loc : locations.keySet()) {
+			BinaryFormat.writeSignedVarInt(out, loc.get(1) - previousLine);
+			previousLine = loc.get(1);
+		}
+		for(final List<Integer> loc : locations.keySet()) {
+			BinaryFormat.writeSignedVarInt(out, loc.get(2) - loc.get(1));
+		}
+
+		BinaryFormat.writeVarInt(out, data.getWidgetBindings().size());
+		for(final WidgetBinding binding : data.getWidgetBindings()) {
+			final List<Handler> handlers = getHandlers(binding);
+			BinaryFormat.writeVarInt(out, handlers.size());
+			for(final Handler handler : handlers) {
+				BinaryFormat.writeVarInt(out, dict.strings.get(handler.getType()));
+				BinaryFormat.writeVarInt(out, locations.get(dict.getLocationKey(handler.getLocation())));
+			}
+
+			final UICommand cmd = binding.getCmd();
+			BinaryFormat.writeVarInt(out, locations.get(dict.getLocationKey(cmd.getLocation())));
+			BinaryFormat.writeVarInt(out, cmd.getUses().size());
+			for(final ClassRef use : cmd.getUses()) {
+				BinaryFormat.writeVarInt(out, dict.classRefs.get(dict.getClassRefKey(use)));
+			}
+
+			BinaryFormat.writeVarInt(out, binding.getWidgets().size());
+			for(final Widget widget : binding.getWidgets()) {
+				BinaryFormat.writeVarInt(out, dict.strings.get(widget.getId()));
+				BinaryFormat.writeVarInt(out, dict.strings.get(widget.getType()));
+				BinaryFormat.writeVarInt(out, widget.getUsages().size());
+				for(final Location usage : widget.getUsages()) {
+					BinaryFormat.writeVarInt(out, locations.get(dict.getLocationKey(usage)));
+				}
+			}
+		}
+
+		out.flush();
+	}
+
+	private static @NotNull List<Handler> getHandlers(final @NotNull WidgetBinding binding) {
+		if(binding.getInteraction() instanceof HandlerInteraction) {
+			return ((HandlerInteraction) binding.getInteraction()).getHandlers();
+		}
+		throw new IllegalArgumentException("Unsupported interaction: " + binding.getInteraction());
+	}
+
+	/**
+	 * The dictionaries of a document: each value is associated with its index.
+	 * The class references are identified by the indexes of their strings, the locations by the index
+	 * of their class reference and their lines.
+	 */
+	private static final class Dictionaries {
+		final @NotNull Map<String, Integer> strings = new LinkedHashMap<>();
+		final @NotNull Map<List<Integer>, Integer> classRefs = new LinkedHashMap<>();
+		final @NotNull List<List<Integer>> locations = new ArrayList<>();
+		private final @NotNull Map<List<Integer>, Integer> locationIndexes = new HashMap<>();
+
+		void add(final @NotNull WidgetBinding binding) {
+			for(final Handler handler : getHandlers(binding)) {
+				addString(handler.getType());
+				addLocation(handler.getLocation());
+			}
+			addLocation(binding.getCmd().getLocation());
+			binding.getCmd().getUses().forEach(use -> addClassRef(use));
+			for(final Widget widget : binding.getWidgets()) {
+				addString(widget.getId());
+				addString(widget.getType());
+				widget.getUsages().forEach(usage -> addLocation(usage));
+			}
+		}
+
+		private int addString(final @NotNull String str) {
+			return strings.computeIfAbsent(str, s -> strings.size());
+		}
+
+		private int addClassRef(final @NotNull ClassRef ref) {
+			final List<Integer> key = List.of(addString(ref.getFile()), addString(ref.getClassName()), addString(ref.getPkg()));
+			return classRefs.computeIfAbsent(key, k -> classRefs.size());
+		}
+
+		private void addLocation(final @NotNull Location loc) {
+			final List<Integer> key = List.of(addClassRef(loc.getClassRef()), loc.getLineStart(), loc.getLineEnd());
+			if(locationIndexes.putIfAbsent(key, locations.size()) == null) {
+				locations.add(key);
+			}
+		}
+
+		@NotNull List<Integer> getClassRefKey(final @NotNull ClassRef ref) {
+			return List.of(strings.get(ref.getFile()), strings.get(ref.getClassName()), strings.get(ref.getPkg()));
+		}
+
+		@NotNull List<Integer> getLocationKey(final @NotNull Location loc) {
+			return List.of(classRefs.get(getClassRefKey(loc.getClassRef())), loc.getLineStart(), loc.getLineEnd());
+		}
+
+		/**
+		 * @return The locations sorted by class reference and lines, associated with their final index.
+		 */
+		@NotNull Map<List<Integer>, Integer> sortLocations() {
+			final Map<List<Integer>, Integer> sorted = new LinkedHashMap<>();
+			locations.stream()
+				.sorted(Comparator.<List<Integer>>comparingInt(l -> l.get(0)).thenComparingInt(l -> l.get(1)).thenComparingInt(l -> l.get(2)))
+				.forEach(loc -> sorted.put(loc, sorted.size()));
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Converts UIData files between the JSON and the binary formats.
+ * The format of a file is given by its extension: '.json' for JSON, any other extension for the binary format.
+ */
+public final class UIDataConverter {
+	private UIDataConverter() {
+		super();
+	}
+
+	/**
+	 * Usage: path/to/input(.json|.uidb) path/to/output(.json|.uidb)
+	 */
+	public static void main(final String[] args) throws IOException {
+		if(args.length != 2) {
+			throw new IllegalArgumentException("Arguments: path/to/input(.json|.uidb) path/to/output(.json|.uidb)");
+		}
+		write(read(Paths.get(args[0])), Paths.get(args[1]));
+	}
+
+	/**
+	 * @return The UIData of the given file, in JSON or in binary according to its extension.
+	 * @throws IOException If the file cannot be read.
+	 * @throws IllegalArgumentException If the JSON file is not valid.
+	 */
+	public static @NotNull UIData read(final @NotNull Path file) throws IOException {
+		if(isJson(file)) {
+			return new UIDataJsonReader().read(Files.readString(file, StandardCharsets.UTF_8));
+		}
+		try(final InputStream in = Files.newInputStream(file)) {
+			return new UIDataBinaryReader().read(in);
+		}
+	}
+
+	/**
+	 * Writes the given UIData in the given file, in JSON or in binary according to its extension.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void write(final @NotNull UIData data, final @NotNull Path file) throws IOException {
+		if(isJson(file)) {
+			try(final UIDataJsonWriter writer = new UIDataJsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+				data.getWidgetBindings().forEach(writer);
+			}
+		}else {
+			try(final OutputStream out = Files.newOutputStream(file)) {
+				new UIDataBinaryWriter().write(data, out);
+			}
+		}
+	}
+
+	private static boolean isJson(final @NotNull Path file) {
+		return file.getFileName().toString().endsWith(".json");
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import com.beust.klaxon.Klaxon;
+import com.beust.klaxon.KlaxonException;
+import fr.inria.inspectorguidget.data.ClassRef;
+import fr.inria.inspectorguidget.data.Handler;
+import fr.inria.inspectorguidget.data.HandlerInteraction;
+import fr.inria.inspectorguidget.data.Location;
+import fr.inria.inspectorguidget.data.UICommand;
+import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.data.Widget;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads the UIData JSON documents (as produced by Klaxon or UIDataJsonWriter).
+ * The documents are parsed by Klaxon.
+ */
+public class UIDataJsonReader {
+	private final @NotNull Klaxon klaxon;
+
+	public UIDataJsonReader() {
+		super();
+		klaxon = new Klaxon();
+	}
+
+	/**
+	 * @param json The JSON document.
+	 * @return The UIData of the document.
+	 * @throws IllegalArgumentException If the document is not a valid UIData document.
+	 */
+	public @NotNull UIData read(final @NotNull String json) {
+		try {
+			return new UIData(getList(klaxon.parseJsonObject(new StringReader(json)), "widgetBindings", this::toWidgetBinding));
+		}catch(final KlaxonException | ClassCastException | NullPointerException ex) {
+			throw new IllegalArgumentException("Not a valid UIData document", ex);
+		}
+	}
+
+	private @NotNull WidgetBinding toWidgetBinding(final @NotNull Map<String, Object> binding) {
+		final Map<String, Object> interaction = asObject(binding.get("interaction"));
+		if(!HandlerInteraction.class.getSimpleName().equals(interaction.get("type"))) {
+			throw new IllegalArgumentException("Unsupported interaction: " + interaction.get("type"));
+		}
+
+		final Map<String, Object> cmd = asObject(binding.get("cmd"));
+
+		return new WidgetBinding(
+			new HandlerInteraction(getList(interaction, "handlers", h -> new Handler((String) h.get("type"), toLocation(asObject(h.get("location")))))),
+			getList(binding, "widgets", w -> new Widget((String) w.get("id"), (String) w.get("type"), getList(w, "usages", this::toLocation))),
+			new UICommand(toLocation(asObject(cmd.get("location"))), getList(cmd, "uses", this::toClassRef)));
+	}
+
+	private @NotNull Location toLocation(final @NotNull Map<String, Object> location) {
+		return new Location(((Number) location.get("lineStart")).intValue(), ((Number) location.get("lineEnd")).intValue(),
+			toClassRef(asObject(location.get("classRef"))));
+	}
+
+	private @NotNull ClassRef toClassRef(final @NotNull Map<String, Object> ref) {
+		return new ClassRef((String) ref.get("file"), (String) ref.get("className"), (String) ref.get("pkg"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static @NotNull Map<String, Object> asObject(final Object value) {
+		if(value instanceof Map<?, ?>) {
+			return (Map<String, Object>) value;
+		}
+		throw new IllegalArgumentException("A JSON object is expected: " + value);
+	}
+
+	private static <T> @NotNull List<T> getList(final @NotNull Map<String, Object> obj, final @NotNull String key,
+												final @NotNull Function<Map<String, Object>, T> converter) {
+		final Object value = obj.get(key);
+		if(!(value instanceof List<?>)) {
+			throw new IllegalArgumentException("A JSON array is expected for " + key + ": " + value);
+		}
+		return ((List<?>) value).stream().map(elt -> converter.apply(asObject(elt))).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.data.WidgetBinding;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes a UIData document in JSON one widget binding at a time, so that the whole UIData is never in memory.
+ * The produced document has the same structure as the one produced by Klaxon for a UIData object.
+ * Each binding is flushed once written, so that the readers of the stream can process it before the end of the analysis.
+ * Usage:
+ * <pre>
+ * try(final UIDataJsonWriter writer = new UIDataJsonWriter(Files.newBufferedWriter(path))) {
+ *     analyser.extractUIData(writer);
+ * }
+ * </pre>
+ */
+public class UIDataJsonWriter implements Consumer<WidgetBinding>, Closeable {
+	private final @NotNull Writer out;
+	private final @NotNull Klaxon klaxon;
+	/** Whether the document is embedded in another one: written on a single line, it does not own the stream. */
+	private final boolean embedded;
+	private boolean empty;
+	private boolean closed;
+
+	/**
+	 * Creates the writer and starts the document.
+	 * @param writer The stream where the document is written. Closed with this writer.
+	 * @throws IOException If the document cannot be started.
+	 */
+	public UIDataJsonWriter(final @NotNull Writer writer) throws IOException {
+		this(writer, false);
+	}
+
+	/**
+	 * Creates the writer and starts the document.
+	 * @param writer The stream where the document is written.
+	 * @param embedded If true, the document is embedded in another JSON document (e.g. a response of UIDataDaemon):
+	 * it is written on a single line, and the stream is not closed with this writer.
+	 * Otherwise, the stream is closed with this writer.
+	 * @throws IOException If the document cannot be started.
+	 */
+	public UIDataJsonWriter(final @NotNull Writer writer, final boolean embedded) throws IOException {
+		super();
+		out = writer;
+		klaxon = new Klaxon();
+		this.embedded = embedded;
+		empty = true;
+		closed = false;
+		out.write("{\"widgetBindings\": [");
+	}
+
+	/**
+	 * Writes the given binding in the document.
+	 * @throws IOException If the binding cannot be written.
+	 * @throws IllegalStateException If the writer is closed.
+	 */
+	public void write(final @NotNull WidgetBinding binding) throws IOException {
+		if(closed) {
+			throw new IllegalStateException("The writer is closed");
+		}
+
+		if(!empty) {
+			out.write(',');
+		}
+		empty = false;
+		if(!embedded) {
+			out.write('\n');
+		}
+		out.write(klaxon.toJsonString(binding, null));
+		out.flush();
+	}
+
+	/**
+	 * Writes the given binding in the document (see write).
+	 * @throws UncheckedIOException If the binding cannot be written.
+	 */
+	@Override
+	public void accept(final @NotNull WidgetBinding binding) {
+		try {
+			write(binding);
+		}catch(final IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Ends the document and closes the underlying stream, unless the document is embedded.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed) {
+			return;
+		}
+
+		closed = true;
+		if(embedded) {
+			out.write("]}");
+			out.flush();
+			return;
+		}
+
+		try {
+			out.write("\n]}\n");
+		}finally {
+			out.close();
+		}
+	}
+}
@@ -16,8 +16,8 @@ package fr.inria.inspectorguidget.api.processor;
 
 import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import spoon.reflect.declaration.CtClass;
 
@@ -26,17 +26,23 @@ public class ActionProcessor extends InspectorGuidgetProcessor<CtClass<?>> {
 
 	public ActionProcessor() {
 		super();
-		actions = new HashSet<>();
+		actions = ConcurrentHashMap.newKeySet();
 	}
 
 	public @NotNull Set<CtClass<?>> getActions() {
 		return Collections.unmodifiableSet(actions);
 	}
 
+	@Override
+	public void clear() {
+		super.clear();
+		actions.clear();
+	}
+
 
 	@Override
 	public boolean isToBeProcessed(final @NotNull CtClass<?> candidate) {
-		return candidate.isSubtypeOf(WidgetHelper.INSTANCE.getActionRef(candidate.getFactory()));
+		return WidgetHelper.INSTANCE.isSubtypeOf(candidate, WidgetHelper.INSTANCE.getActionRef(candidate.getFactory()));
 	}
 
 
@@ -38,13 +38,20 @@ public class ClassListenerProcessor extends InspectorGuidgetProcessor<CtClass<?>
 
 	public ClassListenerProcessor() {
 		super();
-		listenerMethods = new IdentityHashMap<>();
+		// Identity map: two classes can be structurally equal. Synchronised for the parallel processing.
+		listenerMethods = Collections.synchronizedMap(new IdentityHashMap<>());
 	}
 
 	public @NotNull Map<CtClass<?>, Set<CtMethod<?>>> getAllListenerMethods() {
 		return Collections.unmodifiableMap(listenerMethods);
 	}
 
+	@Override
+	public void clear() {
+		super.clear();
+		listenerMethods.clear();
+	}
+
 
 	@Override
 	public void process(final @NotNull CtClass<?> clazz) {
@@ -53,25 +60,25 @@ public class ClassListenerProcessor extends InspectorGuidgetProcessor<CtClass<?>
 		final BooleanProperty isAdded = new SimpleBooleanProperty(false);
 
 		// Case SWING
-		WidgetHelper.INSTANCE.getSwingListenersRef(getFactory()).stream().filter(clazz::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getSwingListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(clazz, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			addListenerMethodsFrom(ref, clazz);
 		});
 
 		// Case AWT
-		WidgetHelper.INSTANCE.getAWTListenersRef(getFactory()).stream().filter(clazz::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getAWTListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(clazz, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			addListenerMethodsFrom(ref, clazz);
 		});
 
 		// Case JFX
-		WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).stream().filter(clazz::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(clazz, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			addListenerMethodsFrom(ref, clazz);
 		});
 
 		// Case SWT
-		WidgetHelper.INSTANCE.getSWTListenersRef(getFactory()).stream().filter(clazz::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getSWTListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(clazz, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			addListenerMethodsFrom(ref, clazz);
 		});
@@ -84,13 +91,11 @@ public class ClassListenerProcessor extends InspectorGuidgetProcessor<CtClass<?>
 
 	private void addListenerMethodsFrom(final @NotNull CtTypeReference<?> ref, final @NotNull CtClass<?> clazz) {
 		final Set<CtMethod<?>> methods = getImplementedListenerMethods(clazz, ref);
-		final Set<CtMethod<?>> savedMethods = listenerMethods.get(clazz);
 
-		if(savedMethods != null) {
-			methods.addAll(savedMethods);
-		}
-
-		listenerMethods.put(clazz, methods);
+		listenerMethods.merge(clazz, methods, (savedMethods, newMethods) -> {
+			savedMethods.addAll(newMethods);
+			return savedMethods;
+		});
 	}
 
 
@@ -104,14 +109,14 @@ public class ClassListenerProcessor extends InspectorGuidgetProcessor<CtClass<?>
 	 * Store each method from cl that implements interf
 	 */
 	private Set<CtMethod<?>> getImplementedListenerMethods(final @NotNull CtClass<?> cl, final @NotNull CtTypeReference<?> interf) {
-		return interf.getTypeDeclaration().getMethods()
+		return SpoonHelper.INSTANCE.resolveTypes(getFactory(), () -> interf.getTypeDeclaration()).getMethods()
 			.parallelStream()
 			.map(interfM -> {
 				CtMethod<?> m = cl.getMethod(interfM.getSimpleName(), interfM.getParameters().stream().map(p -> p.getType()).toArray(CtTypeReference<?>[]::new));
 
 				//FIXME generics in methods are not correctly managed by Spoon or Java (getClass from Class
 				// does not provide any generics). So...
-				if(m == null && cl.isSubtypeOf(WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).get(0))) {
+				if(m == null && WidgetHelper.INSTANCE.isSubtypeOf(cl, WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).get(0))) {
 					m = cl.getMethodsByName(interfM.getSimpleName()).get(0);
 				}
 				return m;
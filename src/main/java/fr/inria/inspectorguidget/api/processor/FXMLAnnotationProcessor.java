@@ -22,8 +22,8 @@ import spoon.reflect.declaration.CtField;
 import spoon.reflect.declaration.CtMethod;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 //TODO see whether AbstractManualProcessor improves the performance by precising the visit.
 public class FXMLAnnotationProcessor extends InspectorGuidgetProcessor<CtAnnotation<?>> {
@@ -32,8 +32,8 @@ public class FXMLAnnotationProcessor extends InspectorGuidgetProcessor<CtAnnotat
 
 	public FXMLAnnotationProcessor() {
 		super();
-		fieldAnnotations = new HashSet<>();
-		methodAnnotations = new HashSet<>();
+		fieldAnnotations = ConcurrentHashMap.newKeySet();
+		methodAnnotations = ConcurrentHashMap.newKeySet();
 	}
 
 	@Override
@@ -60,4 +60,11 @@ public class FXMLAnnotationProcessor extends InspectorGuidgetProcessor<CtAnnotat
 	public @NotNull Set<CtMethod<?>> getMethodAnnotations() {
 		return Collections.unmodifiableSet(methodAnnotations);
 	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		fieldAnnotations.clear();
+		methodAnnotations.clear();
+	}
 }
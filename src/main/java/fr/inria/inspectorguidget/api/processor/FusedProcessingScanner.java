@@ -0,0 +1,254 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.processor;
+
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import spoon.processing.ProcessInterruption;
+import spoon.processing.Processor;
+import spoon.processing.TraversalStrategy;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * Applies several processors in a single traversal of the model: each element is visited once and given to
+ * the processors that consume its kind of node (as Spoon's processing visitor does for one processor).
+ * The processors are initialised before the traversal and notified of its end after it, in the order they were given.
+ * When a parallelism greater than one is given, the top-level types are traversed concurrently by a pool of workers
+ * that share the factory of the model. The processors must then be thread-safe. Moreover, Spoon's type factory is not:
+ * the resolutions of types that may build shadow declarations (e.g. getTypeDeclaration, isSubtypeOf) must be serialised
+ * on the factory (see SpoonHelper#resolveTypes). The InspectorGuidget processors do both.
+ * Besides the whole traversal ('process.traversal'), the time spent in each processor during the traversal is measured
+ * ('process.&lt;processor class&gt;', whose items are the processed elements), as well as the end of each processor
+ * ('processingDone.&lt;processor class&gt;').
+ */
+public class FusedProcessingScanner extends CtScanner {
+	private final @NotNull Factory factory;
+	private final @NotNull List<Processor<CtElement>> processors;
+	/** The pre-order and post-order processors of each kind of node, computed on the first element of this kind. */
+	private final @NotNull Map<Class<?>, List<Processor<CtElement>>> preOrderDispatch;
+	private final @NotNull Map<Class<?>, List<Processor<CtElement>>> postOrderDispatch;
+	/** The processors interrupted during the traversal. */
+	private final @NotNull Set<Processor<CtElement>> interrupted;
+	/** The number of workers that traverse the model. */
+	private final int parallelism;
+	/** Where the traversal and the end of the processors are measured. */
+	private final @NotNull MetricsHelper metrics;
+	/** The time spent in each processor during the current traversal. Filled before the traversal, then only read. */
+	private final @NotNull Map<Processor<CtElement>, ProcessorTime> processTimes;
+
+	public FusedProcessingScanner(final @NotNull Factory factory, final @NotNull Collection<? extends Processor<?>> processors) {
+		this(factory, processors, 1);
+	}
+
+	/**
+	 * @param processingParallelism The number of workers that traverse the model. 1 means a sequential traversal.
+	 * @throws IllegalArgumentException If the parallelism is not positive.
+	 */
+	public FusedProcessingScanner(final @NotNull Factory factory, final @NotNull Collection<? extends Processor<?>> processors,
+								final int processingParallelism) {
+		this(factory, processors, processingParallelism, MetricsHelper.INSTANCE);
+	}
+
+	/**
+	 * @param processingParallelism The number of workers that traverse the model. 1 means a sequential traversal.
+	 * @param metrics Where the traversal and the end of the processors are measured.
+	 * @throws IllegalArgumentException If the parallelism is not positive.
+	 */
+	@SuppressWarnings("unchecked")
+	public FusedProcessingScanner(final @NotNull Factory factory, final @NotNull Collection<? extends Processor<?>> processors,
+								final int processingParallelism, final @NotNull MetricsHelper metrics) {
+		super();
+
+		if(processingParallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive: " + processingParallelism);
+		}
+
+		this.factory = factory;
+		this.processors = new ArrayList<>();
+		parallelism = processingParallelism;
+		this.metrics = metrics;
+		preOrderDispatch = new ConcurrentHashMap<>();
+		postOrderDispatch = new ConcurrentHashMap<>();
+		interrupted = ConcurrentHashMap.newKeySet();
+		processTimes = new IdentityHashMap<>();
+		processors.forEach(p -> this.processors.add((Processor<CtElement>) p));
+	}
+
+	/**
+	 * Runs all the processors on the given elements (and their children) in one traversal.
+	 */
+	public void process(final @NotNull Collection<? extends CtElement> elements) {
+		preOrderDispatch.clear();
+		postOrderDispatch.clear();
+		interrupted.clear();
+		processTimes.clear();
+
+		for(final Processor<CtElement> processor : processors) {
+			processTimes.put(processor, new ProcessorTime());
+			processor.setFactory(factory);
+			processor.init();
+			processor.process();
+		}
+
+		try {
+			metrics.time("process.traversal", () -> {
+				if(parallelism == 1) {
+					new ArrayList<>(elements).forEach(this::scan);
+				}else {
+					scanInParallel(elements);
+				}
+			});
+		}finally {
+			for(final Processor<CtElement> processor : processors) {
+				final ProcessorTime time = processTimes.get(processor);
+				metrics.record("process." + processor.getClass().getSimpleName(), time.nanos.sum(), time.elements.sum());
+			}
+			for(final Processor<CtElement> processor : processors) {
+				final long start = System.nanoTime();
+				processor.processingDone();
+				metrics.record("processingDone." + processor.getClass().getSimpleName(), System.nanoTime() - start, 0L);
+			}
+		}
+	}
+
+	/**
+	 * Traverses the top-level types of the given elements concurrently.
+	 * The packages are not traversed by the workers: they are dispatched (and their annotations scanned) by the calling
+	 * thread, before their types for the pre-order processors and after all the types for the post-order ones.
+	 */
+	private void scanInParallel(final @NotNull Collection<? extends CtElement> elements) {
+		final List<CtPackage> packages = new ArrayList<>();
+		final List<CtElement> units = new ArrayList<>();
+
+		for(final CtElement element : elements) {
+			if(element instanceof CtPackage) {
+				collectUnits((CtPackage) element, packages, units);
+			}else {
+				units.add(element);
+			}
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.submit(() -> units.parallelStream().forEach(this::scan)).get();
+		}catch(final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			factory.getEnvironment().setProcessingStopped(true);
+		}catch(final ExecutionException ex) {
+			if(ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			if(ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		}finally {
+			pool.shutdown();
+		}
+
+		// The sub-packages are notified before their parent, as in a post-order traversal.
+		for(int i = packages.size() - 1; i >= 0; i--) {
+			dispatch(packages.get(i), postOrderDispatch, TraversalStrategy.POST_ORDER);
+		}
+	}
+
+	private void collectUnits(final @NotNull CtPackage pkg, final @NotNull List<CtPackage> packages, final @NotNull List<CtElement> units) {
+		packages.add(pkg);
+		dispatch(pkg, preOrderDispatch, TraversalStrategy.PRE_ORDER);
+		pkg.getAnnotations().forEach(this::scan);
+		for(final CtType<?> type : pkg.getTypes()) {
+			units.add(type);
+		}
+		for(final CtPackage sub : pkg.getPackages()) {
+			collectUnits(sub, packages, units);
+		}
+	}
+
+	@Override
+	public void scan(final CtElement element) {
+		if(element == null) {
+			return;
+		}
+
+		dispatch(element, preOrderDispatch, TraversalStrategy.PRE_ORDER);
+		super.scan(element);
+		dispatch(element, postOrderDispatch, TraversalStrategy.POST_ORDER);
+	}
+
+	private void dispatch(final @NotNull CtElement element, final @NotNull Map<Class<?>, List<Processor<CtElement>>> table,
+						final @NotNull TraversalStrategy strategy) {
+		final List<Processor<CtElement>> candidates = table.computeIfAbsent(element.getClass(), c -> consumersOf(c, strategy));
+
+		if(candidates.isEmpty() || factory.getEnvironment().isProcessingStopped()) {
+			return;
+		}
+
+		for(final Processor<CtElement> processor : candidates) {
+			if(!interrupted.contains(processor)) {
+				final ProcessorTime time = processTimes.get(processor);
+				final long start = System.nanoTime();
+				try {
+					if(processor.isToBeProcessed(element)) {
+						processor.process(element);
+						time.elements.increment();
+					}
+				}catch(final ProcessInterruption ignore) {
+					interrupted.add(processor);
+				}finally {
+					time.nanos.add(System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The processors of the given traversal strategy that consume the given kind of node.
+	 * As in Spoon's processing visitor, a node is consumed when its class is a sub-type of all the processed types.
+	 */
+	private @NotNull List<Processor<CtElement>> consumersOf(final @NotNull Class<?> nodeClass, final @NotNull TraversalStrategy strategy) {
+		final List<Processor<CtElement>> consumers = new ArrayList<>();
+		for(final Processor<CtElement> processor : processors) {
+			if(processor.getTraversalStrategy() == strategy && processor.getProcessedElementTypes() != null &&
+				processor.getProcessedElementTypes().stream().allMatch(type -> type.isAssignableFrom(nodeClass))) {
+				consumers.add(processor);
+			}
+		}
+		return consumers.isEmpty() ? Collections.emptyList() : consumers;
+	}
+
+	/**
+	 * The time spent in a processor (in its isToBeProcessed and process methods) and the number of elements it processed.
+	 * Updated concurrently by the workers.
+	 */
+	private static final class ProcessorTime {
+		final LongAdder nanos = new LongAdder();
+		final LongAdder elements = new LongAdder();
+	}
+}
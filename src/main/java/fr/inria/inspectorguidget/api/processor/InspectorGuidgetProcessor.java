@@ -15,6 +15,9 @@
 package fr.inria.inspectorguidget.api.processor;
 
 import fr.inria.inspectorguidget.internal.helper.LoggingHelper;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
 import java.util.Collection;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -31,17 +34,46 @@ public abstract class InspectorGuidgetProcessor<T extends CtElement> extends Abs
 		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
 	}
 
+	/**
+	 * The types declared in the model and the toolkit types are resolved without locking (see WidgetHelper#isSubtypeOf).
+	 * The other types may require shadow declarations: their resolution is serialised on their factory (see SpoonHelper#resolveTypes).
+	 */
 	public static boolean isASubTypeOf(final @Nullable CtTypeReference<?> candidate, final @NotNull Collection<CtTypeReference<?>> types) {
-		return candidate != null && candidate.getTypeDeclaration() != null && types.stream().anyMatch(type -> {
+		if(candidate == null) {
+			return false;
+		}
+		if(candidate.getDeclaration() == null && SpoonHelper.INSTANCE.resolveTypes(candidate.getFactory(), () -> candidate.getTypeDeclaration()) == null) {
+			return false;
+		}
+		return types.stream().anyMatch(type -> {
 			try {
-				return candidate.isSubtypeOf(type);
+				return WidgetHelper.INSTANCE.isSubtypeOf(candidate, type);
 			}catch(final SpoonClassNotFoundException ex) {
 				return false;
 			}
 		});
 	}
 
+	/** Where the processor records its metrics. */
+	protected @NotNull MetricsHelper metrics;
+
 	public InspectorGuidgetProcessor() {
 		super();
+		metrics = MetricsHelper.INSTANCE;
+	}
+
+	/**
+	 * @param metrics Where the processor records its metrics (MetricsHelper.INSTANCE by default).
+	 */
+	public void setMetrics(final @NotNull MetricsHelper metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Forgets the elements of the model found by the processor, so that the model can be garbage collected.
+	 * The processor can then be applied on another model.
+	 */
+	public void clear() {
+		setFactory(null);
 	}
 }
@@ -16,8 +16,8 @@ package fr.inria.inspectorguidget.api.processor;
 
 import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -30,13 +30,19 @@ public class LambdaListenerProcessor extends InspectorGuidgetProcessor<CtLambda<
 
 	public LambdaListenerProcessor() {
 		super();
-		allListenerLambdas = new HashSet<>();
+		allListenerLambdas = ConcurrentHashMap.newKeySet();
 	}
 
 	public @NotNull Set<CtLambda<?>> getAllListenerLambdas() {
 		return Collections.unmodifiableSet(allListenerLambdas);
 	}
 
+	@Override
+	public void clear() {
+		super.clear();
+		allListenerLambdas.clear();
+	}
+
 	@Override
 	public void process(final @NotNull CtLambda<?> lambda) {
 		LOG.log(Level.INFO, "process CtLambda: " + lambda);
@@ -45,25 +51,25 @@ public class LambdaListenerProcessor extends InspectorGuidgetProcessor<CtLambda<
 		final CtTypeReference<?> type = lambda.getType();
 
 		// Case SWING
-		WidgetHelper.INSTANCE.getSwingListenersRef(getFactory()).stream().filter(type::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getSwingListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(type, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			processMethods(lambda);
 		});
 
 		// Case AWT
-		WidgetHelper.INSTANCE.getAWTListenersRef(getFactory()).stream().filter(type::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getAWTListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(type, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			processMethods(lambda);
 		});
 
 		// Case JFX
-		WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).stream().filter(type::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getJFXListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(type, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			processMethods(lambda);
 		});
 
 		// Case SWT
-		WidgetHelper.INSTANCE.getSWTListenersRef(getFactory()).stream().filter(type::isSubtypeOf).forEach(ref -> {
+		WidgetHelper.INSTANCE.getSWTListenersRef(getFactory()).stream().filter(ref -> WidgetHelper.INSTANCE.isSubtypeOf(type, ref)).forEach(ref -> {
 			isAdded.setValue(true);
 			processMethods(lambda);
 		});
@@ -14,19 +14,20 @@
 
 package fr.inria.inspectorguidget.api.processor;
 
-import fr.inria.inspectorguidget.internal.filter.MyVariableAccessFilter;
+import fr.inria.inspectorguidget.internal.helper.IdentityKey;
 import fr.inria.inspectorguidget.internal.helper.SpoonHelper;
+import fr.inria.inspectorguidget.internal.helper.VariableAccessIndex;
 import fr.inria.inspectorguidget.internal.helper.WidgetHelper;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
@@ -63,8 +64,10 @@ import spoon.reflect.visitor.filter.VariableAccessFilter;
  * Detects declaration of widgets.
  */
 public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?>> {
-	/** The widgets instiantiation and their usages. */
+	/** The widgets instiantiation and their usages. Computed from usagesPerVar once the processing is done. */
 	private final @NotNull Set<WidgetUsage> widgetUsages;
+	/** The widget usages found during the processing, grouped by their variable (compared by identity). Cleared once the processing is done. */
+	private final @NotNull ConcurrentMap<IdentityKey<CtVariable<?>>, List<WidgetUsage>> usagesPerVar;
 	/** The widgets created and directly added in a container. */
 	private final @NotNull Set<CtInvocation<?>> refWidgets;
 
@@ -80,9 +83,10 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 	public WidgetProcessor(final boolean withConfigurationStatmts) {
 		super();
 		widgetUsages = new HashSet<>();
-		refWidgets = new HashSet<>();
+		usagesPerVar = new ConcurrentHashMap<>();
+		refWidgets = ConcurrentHashMap.newKeySet();
 		withConfigStat = withConfigurationStatmts;
-		cacheTypeChecked = new HashMap<>();
+		cacheTypeChecked = new ConcurrentHashMap<>();
 	}
 
 	@Override
@@ -95,41 +99,33 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 	public void processingDone() {
 		// Now have to extract the usages of each widgets.
 
-		// Grouping all the widgets by their var definition.
+		// The widgets are grouped by their var definition.
 		// Some widgets may be redefined into an existing variable (used for another widget).
 		// In this case the list<widgetusage> corresponding to the ctvariable will contain 2 elements. The constructor
 		// differenciates the widgets.
-		// The next line does not work since Identify is required and groupBy has to use widgetVar
-//		final Map<CtVariable<?>, List<WidgetUsage>> usages = widgetUsages.parallelStream().collect(Collectors.groupingBy(u -> u.widgetVar));
-		final Map<CtVariable<?>, List<WidgetUsage>> usages = new IdentityHashMap<>();
-		widgetUsages.forEach(u -> {
-			final List<WidgetUsage> usage = usages.computeIfAbsent(u.widgetVar, k -> new ArrayList<>());
-			usage.add(u);
-		});
-
 
 		// For each variable, computing its usages
-		final List<WidgetUsage> finalUsages = usages.entrySet().parallelStream().map(entry -> {
+		final List<WidgetUsage> finalUsages = usagesPerVar.values().parallelStream().map(varUsages -> {
 			// We suppose the usage cannot be empty because of the constructor call.
-			if(entry.getValue().isEmpty()) {
-				LOG.log(Level.SEVERE, () -> "This variable does not have widget usage: " + entry.getValue());
+			if(varUsages.isEmpty()) {
+				LOG.log(Level.SEVERE, () -> "This variable does not have widget usage: " + varUsages);
 				return Collections.<WidgetUsage>emptyList();
 			}
 
-			if(entry.getValue().size() == 1) {
-				WidgetUsage u1 = entry.getValue().get(0);
+			if(varUsages.size() == 1) {
+				WidgetUsage u1 = varUsages.get(0);
 				// Getting the usages of this widget.
 				return Collections.singletonList(new WidgetUsage(u1.widgetVar, u1.creation.orElse(null), extractUsagesOfWidgetVar(u1.widgetVar)));
 			}else {
-				if(entry.getValue().stream().anyMatch(u -> !u.creation.isPresent())){
-					LOG.log(Level.SEVERE, () -> "A constructor is not defined while several usages are present: " + entry.getValue());
+				if(varUsages.stream().anyMatch(u -> !u.creation.isPresent())){
+					LOG.log(Level.SEVERE, () -> "A constructor is not defined while several usages are present: " + varUsages);
 					return Collections.<WidgetUsage>emptyList();
 				}
 
 				// Have to find out which statement is part of which widget using their position in the code.
-				final List<CtVariableAccess<?>> allUsages = extractUsagesOfWidgetVar(entry.getValue().get(0).widgetVar);
+				final List<CtVariableAccess<?>> allUsages = extractUsagesOfWidgetVar(varUsages.get(0).widgetVar);
 				// Sorting the widget using the position of their initialisation.
-				final List<WidgetUsage> widgetSorted = entry.getValue().stream().sorted(
+				final List<WidgetUsage> widgetSorted = varUsages.stream().sorted(
 					(a, b) -> a.creation.get().getPosition().getLine() < b.creation.get().getPosition().getLine() ? -1 : 1).
 					collect(Collectors.toList());
 
@@ -160,7 +156,7 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 				final CtElement consCallParent = u.creation.get().getParent();
 
 				if(consCallParent instanceof CtAssignment<?, ?>) {
-					final List<CtVariableAccess<?>> varCreation = consCallParent.getElements(new MyVariableAccessFilter(u.widgetVar));
+					final List<CtVariableAccess<?>> varCreation = VariableAccessIndex.of(getFactory(), metrics).getAccesses(u.widgetVar, consCallParent);
 					u.accesses.removeAll(varCreation);
 				}
 			}catch(final ParentNotInitializedException ex) {
@@ -170,8 +166,14 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 
 		super.processingDone();
 		cacheTypeChecked.clear();
+		// The usages are now in widgetUsages: the per-variable map would only retain model elements.
+		usagesPerVar.clear();
+		metrics.addItems("processingDone.WidgetProcessor", widgetUsages.size());
 	}
 
+	/**
+	 * @return The widget usages. Filled once the processing is done.
+	 */
 	public @NotNull Set<WidgetUsage> getWidgetUsages() {
 		return widgetUsages;
 	}
@@ -180,6 +182,16 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 		return refWidgets;
 	}
 
+	@Override
+	public void clear() {
+		super.clear();
+		widgetUsages.clear();
+		usagesPerVar.clear();
+		refWidgets.clear();
+		cacheTypeChecked.clear();
+		controlType = null;
+	}
+
 	@Override
 	public boolean isToBeProcessed(final CtTypeReference<?> type) {
 		final String ty = type.getQualifiedName();
@@ -268,21 +280,26 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 
 
 	private void processConstructorCallInVar(final @NotNull CtVariable<?> var, final @NotNull CtConstructorCall<?> call) {
-		synchronized(widgetUsages) {
-			final List<WidgetUsage> widgets = widgetUsages.parallelStream().filter(u -> u.widgetVar == var).collect(Collectors.toList());
+		// The lists of usages are never modified in place: they are replaced atomically.
+		usagesPerVar.compute(IdentityKey.of(var), (key, widgets) -> {
+			if(widgets == null) {
+				return List.of(new WidgetUsage(var, call, Collections.emptyList()));
+			}
 
 			// The constructor must not be already present in the widget usages.
-			if(widgets.stream().noneMatch(u -> u.creation.isPresent() && u.creation.get()==call)) {
-				if(widgets.size() == 1 && widgets.get(0).creation.isEmpty()) {
-					final WidgetUsage widgetUsage = widgets.get(0);
-					widgetUsages.remove(widgetUsage);
-					widgetUsages.add(new WidgetUsage(var, call, widgetUsage.accesses));
-				} else {
-					// The var is already created. So another widget usage will be created
-					widgetUsages.add(new WidgetUsage(var, call, Collections.emptyList()));
-				}
+			if(widgets.stream().anyMatch(u -> u.creation.isPresent() && u.creation.get()==call)) {
+				return widgets;
 			}
-		}
+
+			if(widgets.size() == 1 && widgets.get(0).creation.isEmpty()) {
+				return List.of(new WidgetUsage(var, call, widgets.get(0).accesses));
+			}
+
+			// The var is already created. So another widget usage will be created
+			final List<WidgetUsage> newWidgets = new ArrayList<>(widgets);
+			newWidgets.add(new WidgetUsage(var, call, Collections.emptyList()));
+			return Collections.unmodifiableList(newWidgets);
+		});
 	}
 
 	private void analyseWidgetConstructorCall(final @NotNull CtConstructorCall<?> call) {
@@ -389,31 +406,26 @@ public class WidgetProcessor extends InspectorGuidgetProcessor<CtTypeReference<?
 
 	public boolean isWidgetVarUsed(final @Nullable CtVariable<?> var) {
 		if(var==null) return false;
-		synchronized(widgetUsages) {
-			return widgetUsages.parallelStream().anyMatch(u -> u.widgetVar == var);
-		}
+		// During the processing, the usages are per variable. Once it is done, they are in widgetUsages.
+		return usagesPerVar.containsKey(IdentityKey.of(var)) || widgetUsages.stream().anyMatch(u -> u.widgetVar == var);
 	}
 
 
 	private void onWidgetCreatedInContainer(final @Nullable CtInvocation<?> invocation) {
 		if(invocation!=null) {
-			synchronized(refWidgets) {
-				refWidgets.add(invocation);
-			}
+			refWidgets.add(invocation);
 		}
 	}
 
 	private void onWidgetVar(final @Nullable CtVariable<?> var) {
-		if(var!=null && !isWidgetVarUsed(var)) {
-			synchronized(widgetUsages) {
-				widgetUsages.add(new WidgetUsage(var, null, Collections.emptyList()));
-			}
+		if(var!=null) {
+			usagesPerVar.computeIfAbsent(IdentityKey.of(var), k -> List.of(new WidgetUsage(var, null, Collections.emptyList())));
 		}
 	}
 
 	private List<CtVariableAccess<?>> extractUsagesOfWidgetVar(final CtVariable<?> var) {
 		if(withConfigStat) {
-			return SpoonHelper.INSTANCE.extractUsagesOfVar(var);
+			return SpoonHelper.INSTANCE.extractUsagesOfVar(var, metrics);
 		}
 		return Collections.emptyList();
 	}
@@ -0,0 +1,78 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.time.Duration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The end of the time budget of an analysis (e.g. of a listener or of a command).
+ * The cancellation is cooperative: the analysis calls check in its loops and stops, keeping its partial results,
+ * when the budget is exceeded.
+ */
+public final class Deadline {
+	/** A deadline that never expires. */
+	public static final @NotNull Deadline NONE = new Deadline(null);
+
+	private final @Nullable Duration budget;
+	private final long end;
+
+	/**
+	 * @param budget The time budget from now. If null, the deadline never expires.
+	 * @return The deadline.
+	 * @throws IllegalArgumentException If the budget is not positive.
+	 */
+	public static @NotNull Deadline after(final @Nullable Duration budget) {
+		if(budget == null) {
+			return NONE;
+		}
+		checkBudget(budget);
+		return new Deadline(budget);
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the given budget is not null and not positive.
+	 */
+	public static void checkBudget(final @Nullable Duration budget) {
+		if(budget != null && (budget.isNegative() || budget.isZero())) {
+			throw new IllegalArgumentException("The time budget must be positive: " + budget);
+		}
+	}
+
+	private Deadline(final @Nullable Duration budget) {
+		super();
+		this.budget = budget;
+		end = budget == null ? 0L : System.nanoTime() + budget.toNanos();
+	}
+
+	/**
+	 * @return True if the budget is exceeded.
+	 */
+	public boolean isExpired() {
+		return budget != null && System.nanoTime() - end >= 0L;
+	}
+
+	/**
+	 * @throws ExceededException If the budget is exceeded.
+	 */
+	public void check() {
+		if(isExpired()) {
+			throw new ExceededException(budget);
+		}
+	}
+
+	/**
+	 * @return The time budget. Null if the deadline never expires.
+	 */
+	public @Nullable Duration getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Thrown by check to stop an analysis which budget is exceeded.
+	 */
+	public static final class ExceededException extends RuntimeException {
+		ExceededException(final @Nullable Duration budget) {
+			super("Time budget exceeded: " + budget, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import fr.inria.inspectorguidget.internal.filter.LocalVariableAccessFilter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.ParentNotInitializedException;
+import spoon.reflect.reference.CtLocalVariableReference;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * The def-use chains of the local variables of an executable (e.g. a listener method or lambda): the local variables
+ * it declares with their accesses (reads and writes), and the references to local variables of its code sorted by position.
+ * The index is built with a single traversal of the executable the first time it is queried and is attached to the executable.
+ * The index does not follow the modifications of the executable: invalidate must be called after such modifications.
+ */
+public final class DefUseIndex {
+	private static final @NotNull String METADATA_KEY = "inspectorguidget.defUseIndex";
+
+	private final @NotNull CtExecutable<?> executable;
+	/** The local variables declared in the executable and their accesses, sorted by line. */
+	private final @NotNull Map<CtLocalVariable<?>, Uses> declarations;
+	/** The references to local variables in the executable, sorted by position, and their declarations. */
+	private final @NotNull CtLocalVariableReference<?>[] references;
+	private final @NotNull CtLocalVariable<?>[] referencedVars;
+	private final @NotNull int[] referenceStarts;
+	/** The indexes of the references that have no position. */
+	private final @NotNull int[] unpositioned;
+
+	/**
+	 * @return The index of the given executable. Built on the first call (measured in MetricsHelper.INSTANCE).
+	 */
+	public static @NotNull DefUseIndex of(final @NotNull CtExecutable<?> exec) {
+		return of(exec, MetricsHelper.INSTANCE);
+	}
+
+	/**
+	 * @param metrics Where the building of the index is measured (e.g. the metrics of the running analyser).
+	 * @return The index of the given executable. Built on the first call.
+	 */
+	public static @NotNull DefUseIndex of(final @NotNull CtExecutable<?> exec, final @NotNull MetricsHelper metrics) {
+		synchronized(exec) {
+			final Object index = exec.getMetadata(METADATA_KEY);
+			if(index instanceof DefUseIndex) {
+				return (DefUseIndex) index;
+			}
+			final DefUseIndex newIndex = metrics.time("index.defUse", () -> new DefUseIndex(exec));
+			exec.putMetadata(METADATA_KEY, newIndex);
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Removes the index of the given executable. The next query will rebuild it.
+	 */
+	public static void invalidate(final @NotNull CtExecutable<?> exec) {
+		synchronized(exec) {
+			exec.putMetadata(METADATA_KEY, null);
+		}
+	}
+
+	private DefUseIndex(final @NotNull CtExecutable<?> exec) {
+		super();
+		executable = exec;
+		declarations = new IdentityHashMap<>();
+
+		final List<CtLocalVariableReference<?>> refs = new ArrayList<>();
+		final List<CtLocalVariable<?>> vars = new ArrayList<>();
+
+		new CtScanner() {
+			@Override
+			protected void enter(final CtElement e) {
+				if(e instanceof CtLocalVariable<?> && e.getParent(CtExecutable.class) == exec) {
+					declarations.putIfAbsent((CtLocalVariable<?>) e, new Uses());
+				}else if(e instanceof CtLocalVariableReference<?>) {
+					final CtLocalVariable<?> decl = ((CtLocalVariableReference<?>) e).getDeclaration();
+					if(decl != null) {
+						refs.add((CtLocalVariableReference<?>) e);
+						vars.add(decl);
+					}
+				}
+			}
+		}.scan(exec);
+
+		final int[] starts = refs.stream().mapToInt(ref -> getStart(ref)).toArray();
+		final int[] order = IntStream.range(0, refs.size()).boxed()
+			.sorted(Comparator.comparingInt(i -> starts[i])).mapToInt(i -> i).toArray();
+
+		references = new CtLocalVariableReference<?>[order.length];
+		referencedVars = new CtLocalVariable<?>[order.length];
+		referenceStarts = new int[order.length];
+		for(int i = 0; i < order.length; i++) {
+			references[i] = refs.get(order[i]);
+			referencedVars[i] = vars.get(order[i]);
+			referenceStarts[i] = starts[order[i]];
+		}
+		unpositioned = IntStream.range(0, order.length).filter(i -> referenceStarts[i] < 0).toArray();
+
+		// The accesses of the local variables declared in the executable.
+		for(int i = 0; i < order.length; i++) {
+			final Uses uses = declarations.get(referencedVars[i]);
+			if(uses != null && references[i].isParentInitialized() && references[i].getParent() instanceof CtVariableAccess<?>) {
+				uses.accesses.add((CtVariableAccess<?>) references[i].getParent());
+			}
+		}
+		declarations.values().forEach(uses -> uses.sort());
+	}
+
+	private static int getStart(final @NotNull CtElement elt) {
+		SourcePosition pos = elt.getPosition();
+		if(!pos.isValidPosition() && elt.isParentInitialized()) {
+			pos = elt.getParent().getPosition();
+		}
+		return pos.isValidPosition() ? pos.getSourceStart() : -1;
+	}
+
+	/**
+	 * @return The executable indexed.
+	 */
+	public @NotNull CtExecutable<?> getExecutable() {
+		return executable;
+	}
+
+	/**
+	 * @return True if the given local variable is declared in the executable (and not in a nested one).
+	 */
+	public boolean isDeclaredHere(final @NotNull CtLocalVariable<?> var) {
+		return declarations.containsKey(var);
+	}
+
+	/**
+	 * @return The accesses (reads and writes) to the given local variable of the executable, sorted by line.
+	 * Empty if the variable is not declared in the executable.
+	 */
+	public @NotNull List<CtVariableAccess<?>> getUses(final @NotNull CtLocalVariable<?> var) {
+		final Uses uses = declarations.get(var);
+		return uses == null ? Collections.emptyList() : Collections.unmodifiableList(uses.accesses);
+	}
+
+	/**
+	 * @return The accesses to the given local variable of the executable located at the given line or before it.
+	 */
+	public @NotNull List<CtVariableAccess<?>> getUsesUntilLine(final @NotNull CtLocalVariable<?> var, final int line) {
+		final Uses uses = declarations.get(var);
+		if(uses == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(uses.accesses.subList(0, upperBound(uses.lines, line)));
+	}
+
+	/**
+	 * @return The local variables (declared in the executable or outside) referenced in the given element, without duplicates.
+	 */
+	public @NotNull List<CtLocalVariable<?>> getLocalVariablesUsedIn(final @NotNull CtElement elt) {
+		final List<CtLocalVariable<?>> used = new ArrayList<>();
+		final Set<CtLocalVariable<?>> found = Collections.newSetFromMap(new IdentityHashMap<>());
+		final SourcePosition pos = elt.getPosition();
+
+		if(!pos.isValidPosition() || !isInExecutable(elt)) {
+			// Not in the indexed code, so the element is traversed.
+			elt.getElements(new LocalVariableAccessFilter()).forEach(ref -> {
+				final CtLocalVariable<?> decl = (CtLocalVariable<?>) ref.getDeclaration();
+				if(found.add(decl)) {
+					used.add(decl);
+				}
+			});
+			return used;
+		}
+
+		for(int i = upperBound(referenceStarts, pos.getSourceStart() - 1); i < references.length && referenceStarts[i] <= pos.getSourceEnd(); i++) {
+			if(references[i].hasParent(elt) && found.add(referencedVars[i])) {
+				used.add(referencedVars[i]);
+			}
+		}
+		for(final int i : unpositioned) {
+			if(references[i].hasParent(elt) && found.add(referencedVars[i])) {
+				used.add(referencedVars[i]);
+			}
+		}
+		return used;
+	}
+
+	/**
+	 * @return The local variables referenced in the given element, and (transitively) the local variables their
+	 * declarations refer to.
+	 */
+	public @NotNull Set<CtLocalVariable<?>> getLocalVariableClosure(final @NotNull CtElement elt) {
+		final Set<CtLocalVariable<?>> closure = new HashSet<>();
+		final Set<CtLocalVariable<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Deque<CtElement> toAnalyse = new ArrayDeque<>();
+		toAnalyse.add(elt);
+
+		while(!toAnalyse.isEmpty()) {
+			for(final CtLocalVariable<?> var : getLocalVariablesUsedIn(toAnalyse.poll())) {
+				if(visited.add(var)) {
+					closure.add(var);
+					toAnalyse.add(var);
+				}
+			}
+		}
+		return closure;
+	}
+
+	private boolean isInExecutable(final @NotNull CtElement elt) {
+		try {
+			return elt == executable || elt.hasParent(executable);
+		}catch(final ParentNotInitializedException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return The index of the first value greater than the given one in the given sorted array.
+	 */
+	private static int upperBound(final @NotNull int[] values, final int value) {
+		int low = 0;
+		int high = values.length;
+		while(low < high) {
+			final int mid = (low + high) >>> 1;
+			if(values[mid] <= value) {
+				low = mid + 1;
+			}else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static final class Uses {
+		final @NotNull List<CtVariableAccess<?>> accesses = new ArrayList<>();
+		@NotNull int[] lines = new int[0];
+
+		void sort() {
+			accesses.sort(Comparator.comparingInt(a -> a.getPosition().getLine()));
+			lines = accesses.stream().mapToInt(a -> a.getPosition().getLine()).toArray();
+		}
+	}
+}
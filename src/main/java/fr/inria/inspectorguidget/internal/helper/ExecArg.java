@@ -1,7 +1,9 @@
 package fr.inria.inspectorguidget.internal.helper;
 
+import fr.inria.inspectorguidget.api.UIDataExtractor;
 import fr.inria.inspectorguidget.api.analyser.InspectorGuidetAnalyser;
 import java.util.Arrays;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -15,20 +17,28 @@ public class ExecArg {
 	}
 
 	public void parse(final @Nullable String[] args, final @NotNull InspectorGuidetAnalyser launcher) {
+		parse(args, launcher::addInputResource, launcher::setSourceClasspath);
+	}
+
+	public void parse(final @Nullable String[] args, final @NotNull UIDataExtractor extractor) {
+		parse(args, extractor::addInputResource, extractor::setSourceClasspath);
+	}
+
+	private void parse(final @Nullable String[] args, final @NotNull Consumer<String> inputs, final @NotNull Consumer<String[]> classpath) {
 		if(args == null || args.length == 0 || !EXEC_SRC_ARG.equals(args[0])) {
 			throw getArgumentException();
 		}
 
 		int i = 1;
 		while(i < args.length && !args[i].equals(EXEC_CP_ARG)) {
-			launcher.addInputResource(args[i]);
+			inputs.accept(args[i]);
 			i++;
 		}
 
 		if(i < args.length && EXEC_CP_ARG.equals(args[i])) {
 			i++;
 			System.out.println(Arrays.stream(args, i, args.length).collect(Collectors.toList()));
-			launcher.setSourceClasspath(Arrays.stream(args, i, args.length).toArray(String[]::new));
+			classpath.accept(Arrays.stream(args, i, args.length).toArray(String[]::new));
 		}
 	}
 
@@ -0,0 +1,218 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.code.CtAssignment;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtIf;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtSwitch;
+import spoon.reflect.code.CtVariableWrite;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.reference.CtLocalVariableReference;
+import spoon.reflect.reference.CtParameterReference;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * The local variables of a code block that depend on GUI parameters (e.g. the event parameter of a listener method):
+ * a local variable is tainted if its declaration or one of its assignments in the block refers to a GUI parameter or to a tainted local variable.
+ * The tainted variables are computed once, at fixed point, from a single traversal of the block.
+ * The conditions of the conditional statements of the block are resolved at the same time.
+ */
+public final class GUIParamTaint {
+	private static final @NotNull String METADATA_KEY = "inspectorguidget.guiParamTaint";
+
+	private final @NotNull List<CtParameterReference<?>> guiParams;
+	/** The expressions that define the value of each local variable (default expression and assigned expressions). */
+	private final @NotNull Map<CtLocalVariable<?>, List<CtExpression<?>>> sources;
+	private final @NotNull Set<CtLocalVariable<?>> tainted;
+	/** The conditions of the conditional statements of the block, and whether they use a GUI parameter. */
+	private final @NotNull Map<CtExpression<?>, Boolean> conditions;
+
+	/**
+	 * @return The taint of the body of the given executable, the GUI parameters being the parameters of the executable.
+	 * Computed on the first call (measured in MetricsHelper.INSTANCE). The result does not follow the modifications of the executable:
+	 * invalidate must be called after such modifications.
+	 */
+	public static @NotNull GUIParamTaint of(final @NotNull CtExecutable<?> exec) {
+		return of(exec, MetricsHelper.INSTANCE);
+	}
+
+	/**
+	 * @param metrics Where the computation of the taint is measured (e.g. the metrics of the running analyser).
+	 * @return The taint of the body of the given executable (see of(CtExecutable)).
+	 */
+	public static @NotNull GUIParamTaint of(final @NotNull CtExecutable<?> exec, final @NotNull MetricsHelper metrics) {
+		synchronized(exec) {
+			final Object taint = exec.getMetadata(METADATA_KEY);
+			if(taint instanceof GUIParamTaint) {
+				return (GUIParamTaint) taint;
+			}
+			final GUIParamTaint newTaint = metrics.time("command.guiParamTaint", () -> new GUIParamTaint(exec.getBody(),
+				exec.getParameters().stream().map(param -> param.getReference()).collect(Collectors.toList())));
+			exec.putMetadata(METADATA_KEY, newTaint);
+			return newTaint;
+		}
+	}
+
+	/**
+	 * Removes the taint of the given executable. The next query will compute it again.
+	 */
+	public static void invalidate(final @NotNull CtExecutable<?> exec) {
+		synchronized(exec) {
+			exec.putMetadata(METADATA_KEY, null);
+		}
+	}
+
+	/**
+	 * @param block The code to analyse. May be null (nothing is tainted).
+	 * @param guiParams The GUI parameters.
+	 */
+	public GUIParamTaint(final @Nullable CtElement block, final @NotNull List<CtParameterReference<?>> guiParams) {
+		super();
+		this.guiParams = guiParams;
+		sources = new IdentityHashMap<>();
+		tainted = Collections.newSetFromMap(new IdentityHashMap<>());
+		conditions = new IdentityHashMap<>();
+
+		final List<CtExpression<?>> conds = new ArrayList<>();
+		final Deque<CtLocalVariable<?>> toDeclare = new ArrayDeque<>();
+
+		if(block != null) {
+			new CtScanner() {
+				@Override
+				protected void enter(final CtElement e) {
+					if(e instanceof CtLocalVariable<?>) {
+						toDeclare.add((CtLocalVariable<?>) e);
+					}else if(e instanceof CtLocalVariableReference<?>) {
+						final CtLocalVariable<?> decl = ((CtLocalVariableReference<?>) e).getDeclaration();
+						if(decl != null) {
+							// The variable may be declared outside the block.
+							toDeclare.add(decl);
+						}
+					}else if(e instanceof CtAssignment<?, ?>) {
+						final CtAssignment<?, ?> assig = (CtAssignment<?, ?>) e;
+						final CtLocalVariable<?> decl = getAssignedVar(assig);
+						if(decl != null && assig.getAssignment() != null) {
+							sources.computeIfAbsent(decl, k -> new ArrayList<>()).add(assig.getAssignment());
+						}
+					}else if(e instanceof CtIf) {
+						conds.add(((CtIf) e).getCondition());
+					}else if(e instanceof CtSwitch<?>) {
+						conds.add(((CtSwitch<?>) e).getSelector());
+					}
+				}
+			}.scan(block);
+		}
+
+		// The uses of the local variables in their sources.
+		final Map<CtLocalVariable<?>, List<CtLocalVariable<?>>> dependents = new IdentityHashMap<>();
+		final Set<CtLocalVariable<?>> declared = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Deque<CtLocalVariable<?>> toTaint = new ArrayDeque<>();
+
+		while(!toDeclare.isEmpty()) {
+			final CtLocalVariable<?> var = toDeclare.poll();
+			if(declared.add(var)) {
+				final List<CtExpression<?>> varSources = sources.computeIfAbsent(var, k -> new ArrayList<>());
+				if(var.getDefaultExpression() != null) {
+					varSources.add(var.getDefaultExpression());
+				}
+				for(final CtExpression<?> source : varSources) {
+					final Refs refs = new Refs(source);
+					if(refs.guiParam) {
+						toTaint.add(var);
+					}
+					refs.vars.forEach(used -> {
+						dependents.computeIfAbsent(used, k -> new ArrayList<>()).add(var);
+						// Variables declared outside the block are discovered through their uses.
+						toDeclare.add(used);
+					});
+				}
+			}
+		}
+
+		// Fixed point: the variables that depend on a tainted variable are tainted.
+		while(!toTaint.isEmpty()) {
+			final CtLocalVariable<?> var = toTaint.poll();
+			if(tainted.add(var)) {
+				toTaint.addAll(dependents.getOrDefault(var, Collections.emptyList()));
+			}
+		}
+
+		conds.stream().filter(cond -> cond != null).forEach(cond -> conditions.put(cond, new Refs(cond).usesGUIParam()));
+	}
+
+	private static @Nullable CtLocalVariable<?> getAssignedVar(final @NotNull CtAssignment<?, ?> assig) {
+		if(assig.getAssigned() instanceof CtVariableWrite<?>) {
+			final CtVariableReference<?> ref = ((CtVariableWrite<?>) assig.getAssigned()).getVariable();
+			if(ref instanceof CtLocalVariableReference<?>) {
+				return ((CtLocalVariableReference<?>) ref).getDeclaration();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return True if the given local variable depends on a GUI parameter.
+	 */
+	public boolean isTainted(final @NotNull CtLocalVariable<?> var) {
+		return tainted.contains(var);
+	}
+
+	/**
+	 * @return True if the condition of the given conditional statement (if, switch) uses a GUI parameter, directly or through tainted local variables.
+	 */
+	public boolean conditionalUsesGUIParam(final @NotNull CtElement stat) {
+		final CtExpression<?> condition = stat instanceof CtIf ? ((CtIf) stat).getCondition() : stat instanceof CtSwitch<?> ? ((CtSwitch<?>) stat).getSelector() : null;
+		return condition != null && usesGUIParam(condition);
+	}
+
+	/**
+	 * @return True if the given element uses a GUI parameter, directly or through tainted local variables.
+	 */
+	public boolean usesGUIParam(final @NotNull CtElement elt) {
+		final Boolean uses = conditions.get(elt);
+		return uses == null ? new Refs(elt).usesGUIParam() : uses;
+	}
+
+	/**
+	 * The GUI parameters and the local variables an element refers to.
+	 */
+	private final class Refs {
+		boolean guiParam;
+		final @NotNull List<CtLocalVariable<?>> vars;
+
+		Refs(final @NotNull CtElement elt) {
+			super();
+			vars = new ArrayList<>();
+			new CtScanner() {
+				@Override
+				protected void enter(final CtElement e) {
+					if(e instanceof CtParameterReference<?> && guiParams.contains(e)) {
+						guiParam = true;
+					}else if(e instanceof CtLocalVariableReference<?>) {
+						final CtLocalVariable<?> decl = ((CtLocalVariableReference<?>) e).getDeclaration();
+						if(decl != null) {
+							vars.add(decl);
+						}
+					}
+				}
+			}.scan(elt);
+		}
+
+		boolean usesGUIParam() {
+			return guiParam || vars.stream().anyMatch(var -> tainted.contains(var));
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Wraps an object so that hash-based collections compare it by identity.
+ * Spoon elements implement equals structurally (two identical statements at different places are equal),
+ * and the concurrent collections do not have an identity variant such as IdentityHashMap.
+ * @param <T> The type of the wrapped object.
+ */
+public final class IdentityKey<T> {
+	private final @NotNull T object;
+
+	public static <T> @NotNull IdentityKey<T> of(final @NotNull T object) {
+		return new IdentityKey<>(object);
+	}
+
+	private IdentityKey(final @NotNull T object) {
+		super();
+		this.object = object;
+	}
+
+	public @NotNull T get() {
+		return object;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		return this == o || o instanceof IdentityKey<?> && ((IdentityKey<?>) o).object == object;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(object);
+	}
+
+	@Override
+	public String toString() {
+		return "IdentityKey{" + object + '}';
+	}
+}
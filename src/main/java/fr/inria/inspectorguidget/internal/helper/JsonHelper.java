@@ -0,0 +1,38 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Helps writing the small JSON documents produced by the tools (responses, reports). The JSON documents are parsed with Klaxon.
+ */
+public final class JsonHelper {
+	public static final JsonHelper INSTANCE = new JsonHelper();
+
+	private JsonHelper() {
+		super();
+	}
+
+	/**
+	 * @return The given text as a JSON string literal (with the quotes).
+	 */
+	public @NotNull String quote(final @NotNull String text) {
+		final StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+		for(int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			switch(c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if(c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					}else {
+						sb.append(c);
+					}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
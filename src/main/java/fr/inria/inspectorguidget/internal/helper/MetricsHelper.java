@@ -0,0 +1,165 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects the wall time, the number of invocations and the number of processed items of the phases of the analyses.
+ * The phases are identified by a name, for example 'process.traversal' or 'finder.registeredWidgets'.
+ * Each analyser has its own metrics (see InspectorGuidetAnalyser#getMetrics), so that the metrics of analyses run
+ * concurrently (e.g. the projects of a batch) are not mixed. The metrics of an analyser are also added to its parent,
+ * INSTANCE, where they are cumulated over all the analyses run in the JVM until reset is called. The indexes shared by
+ * the analyses (e.g. 'index.defUse') are only measured in INSTANCE.
+ * The metrics can be exported as JSON or as a Prometheus text file.
+ */
+public final class MetricsHelper {
+	public static final MetricsHelper INSTANCE = new MetricsHelper(null);
+
+	private final @NotNull Map<String, Metric> metrics;
+	private final @Nullable MetricsHelper parent;
+
+	/**
+	 * @param parent The metrics to which the recorded metrics are also added. May be null.
+	 */
+	public MetricsHelper(final @Nullable MetricsHelper parent) {
+		super();
+		metrics = new ConcurrentHashMap<>();
+		this.parent = parent;
+	}
+
+	/**
+	 * Records one invocation of a phase.
+	 * @param phase The name of the phase.
+	 * @param nanos The wall time of the invocation, in nanoseconds.
+	 * @param items The number of items processed by the invocation.
+	 */
+	public void record(final @NotNull String phase, final long nanos, final long items) {
+		final Metric metric = metrics.computeIfAbsent(phase, k -> new Metric());
+		metric.time.add(nanos);
+		metric.count.increment();
+		metric.items.add(items);
+		if(parent != null) {
+			parent.record(phase, nanos, items);
+		}
+	}
+
+	/**
+	 * Adds processed items to a phase, without counting an invocation.
+	 */
+	public void addItems(final @NotNull String phase, final long items) {
+		metrics.computeIfAbsent(phase, k -> new Metric()).items.add(items);
+		if(parent != null) {
+			parent.addItems(phase, items);
+		}
+	}
+
+	/**
+	 * Executes and measures one invocation of a phase.
+	 */
+	public void time(final @NotNull String phase, final @NotNull Runnable task) {
+		final long start = System.nanoTime();
+		try {
+			task.run();
+		}finally {
+			record(phase, System.nanoTime() - start, 0L);
+		}
+	}
+
+	/**
+	 * Executes and measures one invocation of a phase.
+	 * @return The result of the task.
+	 */
+	public <T> T time(final @NotNull String phase, final @NotNull Supplier<T> task) {
+		final long start = System.nanoTime();
+		try {
+			return task.get();
+		}finally {
+			record(phase, System.nanoTime() - start, 0L);
+		}
+	}
+
+	/**
+	 * Executes and measures one invocation of a phase.
+	 * @param items Computes the number of items processed by the invocation from its result.
+	 * @return The result of the task.
+	 */
+	public <T> T time(final @NotNull String phase, final @NotNull Supplier<T> task, final @NotNull ToLongFunction<? super T> items) {
+		final long start = System.nanoTime();
+		final T result = task.get();
+		record(phase, System.nanoTime() - start, items.applyAsLong(result));
+		return result;
+	}
+
+	/**
+	 * Forgets the metrics recorded so far. The parent metrics are not reset.
+	 */
+	public void reset() {
+		metrics.clear();
+	}
+
+	/**
+	 * @return The metrics as a JSON object: {"phase": {"timeMs": ..., "count": ..., "items": ...}, ...}
+	 */
+	public @NotNull String toJson() {
+		final StringBuilder sb = new StringBuilder("{");
+		snapshot().forEach((phase, values) -> {
+			if(sb.length() > 1) sb.append(", ");
+			sb.append(JsonHelper.INSTANCE.quote(phase)).append(": {\"timeMs\": ").append(values[0] / 1_000_000d)
+				.append(", \"count\": ").append(values[1]).append(", \"items\": ").append(values[2]).append('}');
+		});
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * @return The metrics in the Prometheus text exposition format.
+	 */
+	public @NotNull String toPrometheus() {
+		final Map<String, long[]> metricValues = snapshot();
+		final StringBuilder sb = new StringBuilder();
+		sb.append("# TYPE inspectorguidget_phase_seconds_total counter\n");
+		metricValues.forEach((phase, values) -> sb.append("inspectorguidget_phase_seconds_total{phase=\"").append(phase).append("\"} ")
+			.append(values[0] / 1_000_000_000d).append('\n'));
+		sb.append("# TYPE inspectorguidget_phase_invocations_total counter\n");
+		metricValues.forEach((phase, values) -> sb.append("inspectorguidget_phase_invocations_total{phase=\"").append(phase).append("\"} ")
+			.append(values[1]).append('\n'));
+		sb.append("# TYPE inspectorguidget_phase_items_total counter\n");
+		metricValues.forEach((phase, values) -> sb.append("inspectorguidget_phase_items_total{phase=\"").append(phase).append("\"} ")
+			.append(values[2]).append('\n'));
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the metrics in the given file: in the Prometheus format if the file name ends with '.prom',
+	 * in JSON otherwise.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void export(final @NotNull Path file) throws IOException {
+		final String content = file.getFileName().toString().endsWith(".prom") ? toPrometheus() : toJson() + '\n';
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return For each phase (sorted by name): its total time in ns, its number of invocations and its number of items.
+	 */
+	public @NotNull Map<String, long[]> snapshot() {
+		final Map<String, long[]> values = new TreeMap<>();
+		metrics.forEach((phase, metric) -> values.put(phase, new long[] {metric.time.sum(), metric.count.sum(), metric.items.sum()}));
+		return values;
+	}
+
+	private static final class Metric {
+		final LongAdder time = new LongAdder();
+		final LongAdder count = new LongAdder();
+		final LongAdder items = new LongAdder();
+	}
+}
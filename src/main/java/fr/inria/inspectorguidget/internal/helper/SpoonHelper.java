@@ -1,7 +1,6 @@
 package fr.inria.inspectorguidget.internal.helper;
 
 import fr.inria.inspectorguidget.internal.filter.BasicFilter;
-import fr.inria.inspectorguidget.internal.filter.MyVariableAccessFilter;
 import fr.inria.inspectorguidget.internal.filter.VariableAccessFilter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -10,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -49,6 +49,7 @@ import spoon.reflect.declaration.CtPackage;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.CtVariable;
 import spoon.reflect.declaration.ParentNotInitializedException;
+import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtLocalVariableReference;
 import spoon.reflect.reference.CtTypeReference;
 
@@ -63,6 +64,23 @@ public final class SpoonHelper {
 		logNames = new HashSet<>(Arrays.asList("log", "debug", "warning", "error", "severe", "fine", "finest", "finer", "info", "message"));
 	}
 
+	/**
+	 * Executes a resolution of types that may make Spoon build shadow declarations by reflection
+	 * (e.g. CtTypeReference#getTypeDeclaration, CtTypeInformation#isSubtypeOf). Spoon registers these declarations
+	 * in structures of the factory that are not thread-safe: the resolutions are thus serialised per factory, so that
+	 * the processors and the analyses can work concurrently on the same model (see FusedProcessingScanner).
+	 * Only the calls that may build shadow declarations must be given: the lookups in the model (e.g. CtTypeReference#getDeclaration)
+	 * do not need to be serialised.
+	 * @param factory The factory of the resolved types.
+	 * @param resolution The resolution to execute.
+	 * @return The result of the resolution.
+	 */
+	public <T> T resolveTypes(final @NotNull Factory factory, final @NotNull Supplier<T> resolution) {
+		synchronized(factory) {
+			return resolution.get();
+		}
+	}
+
 	public <T> Optional<CtCase<? super  T>> getNonEmptySwitchCase(final @Nullable CtCase<? super  T> ctcase) {
 		if(ctcase==null) {
 			return Optional.empty();
@@ -296,6 +314,11 @@ public final class SpoonHelper {
 			return new HashSet<>();
 		}
 
+		final CtExecutable<?> exec = elt.isParentInitialized() ? elt.getParent(CtExecutable.class) : null;
+		if(exec != null) {
+			return DefUseIndex.of(exec).getLocalVariableClosure(elt);
+		}
+
 		return elt.getElements(new BasicFilter<>(CtLocalVariableReference.class)).stream().map(varRef -> {
 			final CtLocalVariable<?> varDecl = varRef.getDeclaration();
 			Set<CtLocalVariable<?>> localVars = getAllLocalVarDeclaration(varDecl);
@@ -390,6 +413,13 @@ public final class SpoonHelper {
 	}
 
 	public List<CtVariableAccess<?>> extractUsagesOfVar(final @NotNull CtVariable<?> var) {
+		return extractUsagesOfVar(var, MetricsHelper.INSTANCE);
+	}
+
+	/**
+	 * @param metrics Where the building of the variable access index is measured, if needed (see VariableAccessIndex).
+	 */
+	public List<CtVariableAccess<?>> extractUsagesOfVar(final @NotNull CtVariable<?> var, final @NotNull MetricsHelper metrics) {
 		CtElement parent;
 
 		if(var instanceof CtLocalVariable<?>) {
@@ -418,7 +448,7 @@ public final class SpoonHelper {
 		}
 
 		if(parent != null) {
-			return parent.getElements(new MyVariableAccessFilter(var));
+			return VariableAccessIndex.of(var.getFactory(), metrics).getAccesses(var, parent);
 		}
 
 		return Collections.emptyList();
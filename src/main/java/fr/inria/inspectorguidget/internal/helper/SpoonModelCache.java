@@ -0,0 +1,180 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import spoon.Launcher;
+import spoon.compiler.Environment;
+import spoon.reflect.factory.Factory;
+import spoon.support.SerializationModelStreamer;
+
+/**
+ * An on-disk cache of built Spoon models.
+ * Each set of input resources has its own cache entry. An entry is identified by a key that hashes the content of
+ * the input sources, the classpath and the environment settings: when one of them changes, the key changes and
+ * the entry is invalidated (and then replaced by the next saved model).
+ */
+public class SpoonModelCache {
+	private static final @NotNull String MAGIC = "InspectorGuidget model cache v1";
+
+	private final @NotNull File cacheDir;
+
+	public SpoonModelCache(final @NotNull File cacheDirectory) {
+		super();
+		cacheDir = cacheDirectory;
+	}
+
+	/**
+	 * @param inputs The input resources (files and folders) of the model.
+	 * @param classpath The source classpath used to build the model.
+	 * @param env The environment used to build the model.
+	 * @return The key identifying the model built from the given parameters.
+	 * @throws IOException If an input resource or a classpath entry cannot be read.
+	 */
+	public @NotNull String computeKey(final @NotNull Collection<File> inputs, final @NotNull String[] classpath,
+									  final @NotNull Environment env) throws IOException {
+		final MessageDigest digest = createDigest();
+
+		for(final Path src : getFiles(inputs.stream().map(File::toPath), true)) {
+			digest.update(src.toString().getBytes(StandardCharsets.UTF_8));
+			digest.update(Files.readAllBytes(src));
+		}
+
+		// For the libraries, their size and modification date are considered.
+		for(final Path lib : getFiles(Arrays.stream(classpath).map(File::new).map(File::toPath), false)) {
+			digest.update((lib + ";" + Files.size(lib) + ";" + Files.getLastModifiedTime(lib).toMillis()).getBytes(StandardCharsets.UTF_8));
+		}
+
+		digest.update(("compliance=" + env.getComplianceLevel() + ";comments=" + env.isCommentsEnabled() +
+			";noclasspath=" + env.getNoClasspath() + ";autoimports=" + env.isAutoImports() +
+			";spoon=" + Launcher.class.getPackage().getImplementationVersion()).getBytes(StandardCharsets.UTF_8));
+
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Loads the cached model of the given input resources.
+	 * @param inputs The input resources of the model.
+	 * @param key The expected key of the model (see computeKey).
+	 * @return The factory of the cached model, or nothing if no valid entry exists. In this last case,
+	 * a stale entry is removed.
+	 * @throws IOException If the entry cannot be read.
+	 */
+	public @NotNull Optional<Factory> load(final @NotNull Collection<File> inputs, final @NotNull String key) throws IOException {
+		final Path entry = getEntry(inputs);
+
+		if(!Files.isRegularFile(entry)) {
+			return Optional.empty();
+		}
+
+		try(final InputStream in = Files.newInputStream(entry)) {
+			final DataInputStream data = new DataInputStream(in);
+
+			if(MAGIC.equals(data.readUTF()) && key.equals(data.readUTF())) {
+				return Optional.of(new SerializationModelStreamer().load(in));
+			}
+		}
+
+		// The sources, the classpath or the settings changed since the model was stored.
+		Files.deleteIfExists(entry);
+		return Optional.empty();
+	}
+
+	/**
+	 * Stores the given model in the cache. The previous entry of the input resources, if any, is replaced.
+	 * @param inputs The input resources of the model.
+	 * @param key The key of the model (see computeKey).
+	 * @param factory The factory of the model to store.
+	 * @throws IOException If the model cannot be written.
+	 */
+	public void save(final @NotNull Collection<File> inputs, final @NotNull String key, final @NotNull Factory factory) throws IOException {
+		Files.createDirectories(cacheDir.toPath());
+		final Path entry = getEntry(inputs);
+		final Path tmp = Files.createTempFile(cacheDir.toPath(), entry.getFileName().toString(), ".tmp");
+
+		try {
+			try(final OutputStream out = Files.newOutputStream(tmp)) {
+				final DataOutputStream data = new DataOutputStream(out);
+				data.writeUTF(MAGIC);
+				data.writeUTF(key);
+				data.flush();
+				new SerializationModelStreamer().save(factory, out);
+			}
+			// Several analyses may share the cache: the entry is replaced atomically.
+			Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private @NotNull Path getEntry(final @NotNull Collection<File> inputs) {
+		final MessageDigest digest = createDigest();
+		inputs.stream().map(f -> f.getAbsoluteFile().toPath().normalize().toString()).sorted()
+			.forEach(f -> digest.update(f.getBytes(StandardCharsets.UTF_8)));
+		return cacheDir.toPath().resolve(toHex(digest.digest()) + ".model");
+	}
+
+	private static @NotNull List<Path> getFiles(final @NotNull Stream<Path> roots, final boolean javaOnly) throws IOException {
+		final List<Path> files = new ArrayList<>();
+
+		for(final Path root : roots.collect(Collectors.toList())) {
+			if(Files.isDirectory(root)) {
+				try(final Stream<Path> walk = Files.walk(root)) {
+					walk.filter(Files::isRegularFile).filter(p -> !javaOnly || p.toString().endsWith(".java")).forEach(files::add);
+				}
+			}else if(Files.isRegularFile(root)) {
+				files.add(root);
+			}
+		}
+
+		files.sort(null);
+		return files;
+	}
+
+	private static @NotNull MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}catch(final NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static @NotNull String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for(final byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+}
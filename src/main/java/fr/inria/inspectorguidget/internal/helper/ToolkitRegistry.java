@@ -0,0 +1,128 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtTypeReference;
+
+/**
+ * The toolkit type references (listeners, widgets) of one Spoon factory.
+ * A registry is immutable: it is fully built before being published, so that it can be read without locking by
+ * concurrent analyses. Each factory has its own registry, so that the models analysed in the same JVM do not share
+ * type references.
+ */
+final class ToolkitRegistry {
+	private static final @NotNull String METADATA_KEY = "inspectorguidget.toolkitRegistry";
+
+	/**
+	 * The registries of the living factories. Replaced (copy on write) when a registry is added, read without locking.
+	 * The registries are kept alive by the root package of their model (as metadata), so that the entries do not
+	 * retain the models (the type references of a registry refer to their factory).
+	 */
+	private static volatile @NotNull Entry[] entries = new Entry[0];
+
+	private static final @NotNull Object LOCK = new Object();
+
+	final @NotNull CtTypeReference<?> actionRef;
+	final @NotNull List<CtTypeReference<?>> swingListenersRef;
+	final @NotNull List<CtTypeReference<?>> awtListenersRef;
+	final @NotNull List<CtTypeReference<?>> jfxListenersRef;
+	final @NotNull List<CtTypeReference<?>> swtListenersRef;
+	final @NotNull List<CtTypeReference<?>> rootEventListenersRef;
+	final @NotNull List<CtTypeReference<?>> widgetTypes;
+	/** The signatures of the listener methods and the qualified name of their listener interface. */
+	final @NotNull Map<String, String> listenerMethodPrototypes;
+
+	/**
+	 * @return The registry of the given factory. Built on the first call for this factory.
+	 */
+	static @NotNull ToolkitRegistry of(final @NotNull Factory factory) {
+		final ToolkitRegistry registry = find(entries, factory);
+		if(registry != null) {
+			return registry;
+		}
+
+		synchronized(LOCK) {
+			final ToolkitRegistry existing = find(entries, factory);
+			if(existing != null) {
+				return existing;
+			}
+
+			final ToolkitRegistry newRegistry = new ToolkitRegistry(factory, WidgetHelper.INSTANCE.getSnapshot());
+			final CtPackage root = factory.getModel().getRootPackage();
+			synchronized(root) {
+				root.putMetadata(METADATA_KEY, newRegistry);
+			}
+
+			// Removing the entries of the collected factories.
+			final List<Entry> alive = Arrays.stream(entries).filter(e -> e.isAlive()).collect(Collectors.toCollection(ArrayList::new));
+			alive.add(new Entry(factory, newRegistry));
+			entries = alive.toArray(new Entry[0]);
+			return newRegistry;
+		}
+	}
+
+	private static @Nullable ToolkitRegistry find(final @NotNull Entry[] entriesToSearch, final @NotNull Factory factory) {
+		for(final Entry entry : entriesToSearch) {
+			if(entry.factory.get() == factory) {
+				return entry.registry.get();
+			}
+		}
+		return null;
+	}
+
+	private ToolkitRegistry(final @NotNull Factory factory, final @Nullable ToolkitSnapshot snapshot) {
+		super();
+		actionRef = factory.Type().createReference(javax.swing.AbstractAction.class);
+		swingListenersRef = createReferences(factory, WidgetHelper.SWING_LISTENERS);
+		awtListenersRef = createReferences(factory, WidgetHelper.AWT_LISTENERS);
+		jfxListenersRef = createReferences(factory, WidgetHelper.JFX_LISTENERS);
+		swtListenersRef = createReferences(factory, WidgetHelper.SWT_LISTENERS);
+		rootEventListenersRef = createReferences(factory, List.of(java.util.EventListener.class, org.eclipse.swt.widgets.Listener.class));
+		widgetTypes = createReferences(factory, WidgetHelper.WIDGET_TYPES);
+
+		final Map<String, String> prototypes = new HashMap<>();
+		for(final List<CtTypeReference<?>> listeners : List.of(swingListenersRef, awtListenersRef, jfxListenersRef, swtListenersRef)) {
+			if(snapshot == null) {
+				prototypes.putAll(WidgetHelper.getListenerMethodsSignatures(listeners));
+			}else {
+				final Set<String> names = listeners.stream().map(type -> type.getQualifiedName()).collect(Collectors.toSet());
+				snapshot.getListenerMethods().forEach((sign, listener) -> {
+					if(names.contains(listener)) {
+						prototypes.put(sign, listener);
+					}
+				});
+			}
+		}
+		listenerMethodPrototypes = Collections.unmodifiableMap(prototypes);
+	}
+
+	private static @NotNull List<CtTypeReference<?>> createReferences(final @NotNull Factory factory, final @NotNull List<Class<?>> types) {
+		return types.stream().map(type -> factory.Type().createReference(type)).collect(Collectors.toUnmodifiableList());
+	}
+
+	private static final class Entry {
+		final @NotNull WeakReference<Factory> factory;
+		final @NotNull WeakReference<ToolkitRegistry> registry;
+
+		Entry(final @NotNull Factory factory, final @NotNull ToolkitRegistry registry) {
+			super();
+			this.factory = new WeakReference<>(factory);
+			this.registry = new WeakReference<>(registry);
+		}
+
+		boolean isAlive() {
+			return factory.get() != null && registry.get() != null;
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import com.beust.klaxon.Klaxon;
+import com.beust.klaxon.KlaxonException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.factory.FactoryImpl;
+import spoon.support.DefaultCoreFactory;
+import spoon.support.StandardEnvironment;
+
+/**
+ * A precomputed description of the toolkit types used by WidgetHelper: the signatures of the listener methods
+ * (with their listener interface) and the direct super types of the public toolkit types, from which their
+ * super type closures are computed.
+ * Without it, Spoon has to build the shadow declarations of these types by reflection at the start of each run.
+ * With it, the listener methods and the sub-typing of the toolkit types are answered without reflection. The listener
+ * interface returned by WidgetHelper#getListenerInterface is still a declaration built by Spoon, by reflection for the
+ * toolkit interfaces.
+ * The snapshot is generated during the build (see main) and shipped as a resource of the jar. It is used only when
+ * its format version and its fingerprint (see fingerprint) match the running environment: otherwise WidgetHelper
+ * falls back to reflection.
+ */
+public final class ToolkitSnapshot {
+	public static final @NotNull Logger LOG = Logger.getLogger("ToolkitSnapshot");
+
+	static {
+		LOG.setLevel(LoggingHelper.INSTANCE.loggingLevel);
+	}
+
+	/** The version of the format of the snapshot. To increment each time the content of the snapshot changes. */
+	public static final int FORMAT_VERSION = 1;
+	public static final @NotNull String RESOURCE = "/fr/inria/inspectorguidget/toolkit-snapshot.json";
+
+	/** The signatures of the listener methods and the qualified name of their listener interface. */
+	private final @NotNull Map<String, String> listenerMethods;
+	/** The direct super types (super class and interfaces) of each toolkit type. */
+	private final @NotNull Map<String, List<String>> directSupertypes;
+	/** The super type closures computed so far. */
+	private final @NotNull Map<String, Set<String>> closures;
+
+	ToolkitSnapshot(final @NotNull Map<String, String> listenerMethods, final @NotNull Map<String, List<String>> directSupertypes) {
+		super();
+		this.listenerMethods = Collections.unmodifiableMap(listenerMethods);
+		this.directSupertypes = directSupertypes;
+		closures = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Loads the shipped snapshot.
+	 * @return Nothing if the snapshot is missing, unreadable or stale.
+	 */
+	public static @NotNull Optional<ToolkitSnapshot> load() {
+		try(final InputStream in = ToolkitSnapshot.class.getResourceAsStream(RESOURCE)) {
+			if(in == null) {
+				LOG.log(Level.INFO, "No toolkit snapshot: the toolkit types will be built by reflection");
+				return Optional.empty();
+			}
+			final String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			return MetricsHelper.INSTANCE.time("toolkit.snapshot", () -> read(json, fingerprint()));
+		}catch(final IOException | IllegalArgumentException | ClassCastException ex) {
+			LOG.log(Level.WARNING, "Cannot read the toolkit snapshot", ex);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Reads a snapshot.
+	 * @param json The content of the snapshot.
+	 * @param expectedFingerprint The fingerprint of the running environment.
+	 * @return Nothing if the snapshot does not have the current format or the expected fingerprint.
+	 * @throws IllegalArgumentException If the content is not valid JSON.
+	 * @throws ClassCastException If the content does not have the expected structure.
+	 */
+	static @NotNull Optional<ToolkitSnapshot> read(final @NotNull String json, final @NotNull String expectedFingerprint) {
+		final Map<String, Object> content;
+		try {
+			content = new Klaxon().parseJsonObject(new StringReader(json));
+		}catch(final KlaxonException ex) {
+			throw new IllegalArgumentException("Not a valid JSON document", ex);
+		}
+		final Object format = content.get("format");
+
+		if(!(format instanceof Number) || ((Number) format).longValue() != FORMAT_VERSION || !(content.get("fingerprint") instanceof String) ||
+			!matches((String) content.get("fingerprint"), expectedFingerprint)) {
+			LOG.log(Level.INFO, "Stale toolkit snapshot: the toolkit types will be built by reflection");
+			return Optional.empty();
+		}
+
+		final Map<String, String> methods = new LinkedHashMap<>();
+		((Map<?, ?>) content.get("listenerMethods")).forEach((sign, listener) -> methods.put((String) sign, (String) listener));
+
+		final Map<String, List<String>> supertypes = new LinkedHashMap<>();
+		((Map<?, ?>) content.get("supertypes")).forEach((type, supers) ->
+			supertypes.put((String) type, ((List<?>) supers).stream().map(s -> (String) s).collect(Collectors.toList())));
+
+		return Optional.of(new ToolkitSnapshot(methods, supertypes));
+	}
+
+	/**
+	 * @return The signatures of the listener methods and the qualified name of their listener interface.
+	 */
+	public @NotNull Map<String, String> getListenerMethods() {
+		return listenerMethods;
+	}
+
+	/**
+	 * @return True if the snapshot knows the super types of the given type.
+	 */
+	public boolean contains(final @NotNull String qualifiedName) {
+		return directSupertypes.containsKey(qualifiedName);
+	}
+
+	/**
+	 * @return The qualified names of the given type and of all its super types. Empty if the type is not in the snapshot.
+	 */
+	public @NotNull Set<String> getSupertypes(final @NotNull String qualifiedName) {
+		final Set<String> closure = closures.get(qualifiedName);
+
+		if(closure != null) {
+			return closure;
+		}
+		if(!contains(qualifiedName)) {
+			return Collections.emptySet();
+		}
+
+		final Set<String> supertypes = new HashSet<>();
+		final Deque<String> toVisit = new ArrayDeque<>();
+		toVisit.push(qualifiedName);
+
+		while(!toVisit.isEmpty()) {
+			final String type = toVisit.pop();
+			if(supertypes.add(type)) {
+				directSupertypes.getOrDefault(type, Collections.emptyList()).forEach(toVisit::push);
+			}
+		}
+
+		final Set<String> previous = closures.putIfAbsent(qualifiedName, Collections.unmodifiableSet(supertypes));
+		return previous == null ? closures.get(qualifiedName) : previous;
+	}
+
+	/**
+	 * Computes the fingerprint of the toolkits of the running environment, without reflecting over the toolkit types:
+	 * the Java version (for the toolkits of the JDK) and, for each jar (or folder) providing toolkit types,
+	 * its file name, its size and its last modification time, for example 'java=11.0.2;jars=swt.jar:2158:1552406400000'.
+	 * The toolkits bundled in the jar of InspectorGuidget are not part of the fingerprint: the snapshot was generated with them.
+	 * @return The fingerprint.
+	 */
+	static @NotNull String fingerprint() {
+		final Path own = getLocation(ToolkitSnapshot.class);
+
+		return "java=" + Runtime.version() + ";jars=" + getToolkitLocations().stream()
+			.filter(location -> !location.equals(own))
+			.map(location -> {
+				final File file = location.toFile();
+				return location.getFileName() + ":" + (file.isDirectory() ? 0L : file.length()) + ':' + file.lastModified();
+			})
+			.sorted()
+			.collect(Collectors.joining(","));
+	}
+
+	/**
+	 * @param snapshotFingerprint The fingerprint of the environment the snapshot was generated in.
+	 * @param runningFingerprint The fingerprint of the running environment.
+	 * @return True if the Java versions are the same and if each jar of the running environment is one of the snapshot environment.
+	 * The running environment may have less jars: when the toolkits are bundled in the jar of InspectorGuidget.
+	 */
+	static boolean matches(final @NotNull String snapshotFingerprint, final @NotNull String runningFingerprint) {
+		final String[] snapshotParts = snapshotFingerprint.split(";jars=", -1);
+		final String[] runningParts = runningFingerprint.split(";jars=", -1);
+
+		if(snapshotParts.length != 2 || runningParts.length != 2 || !snapshotParts[0].equals(runningParts[0])) {
+			return false;
+		}
+
+		final Set<String> snapshotJars = new HashSet<>(Arrays.asList(snapshotParts[1].split(",")));
+		return runningParts[1].isEmpty() || snapshotJars.containsAll(Arrays.asList(runningParts[1].split(",")));
+	}
+
+	/**
+	 * @return The jars (or folders) that provide the listener and widget types that are not part of the JDK.
+	 */
+	private static @NotNull Set<Path> getToolkitLocations() {
+		return getSnapshotTypes().stream()
+			.map(type -> getLocation(type))
+			.filter(location -> location != null)
+			.collect(Collectors.toCollection(TreeSet::new));
+	}
+
+	/**
+	 * @return The jar (or folder) the given class was loaded from, or null for the classes of the JDK.
+	 */
+	private static @Nullable Path getLocation(final @NotNull Class<?> type) {
+		final CodeSource source = type.getProtectionDomain().getCodeSource();
+		if(source == null || source.getLocation() == null) {
+			return null;
+		}
+		try {
+			return Paths.get(source.getLocation().toURI());
+		}catch(final URISyntaxException | IllegalArgumentException ex) {
+			LOG.log(Level.WARNING, "Invalid code source: " + source.getLocation(), ex);
+			return null;
+		}
+	}
+
+	private static @NotNull List<Class<?>> getSnapshotTypes() {
+		return Stream.of(WidgetHelper.SWING_LISTENERS, WidgetHelper.AWT_LISTENERS, WidgetHelper.JFX_LISTENERS,
+			WidgetHelper.SWT_LISTENERS, WidgetHelper.WIDGET_TYPES).flatMap(s -> s.stream()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Generates the snapshot of the toolkits available on the classpath. Executed during the build.
+	 * @param args The path of the snapshot file to write.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	public static void main(final String[] args) throws IOException {
+		if(args.length != 1) {
+			throw new IllegalArgumentException("Argument: path/to/toolkit-snapshot.json");
+		}
+
+		final Path output = Paths.get(args[0]);
+		if(output.getParent() != null) {
+			Files.createDirectories(output.getParent());
+		}
+		Files.write(output, generate().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Computes the snapshot by reflection.
+	 * @return The content of the snapshot.
+	 */
+	static @NotNull String generate() throws IOException {
+		final Factory factory = new FactoryImpl(new DefaultCoreFactory(), new StandardEnvironment());
+		final Map<String, String> methods = new TreeMap<>();
+		final Map<String, List<String>> supertypes = new TreeMap<>();
+
+		// The listener types are registered in the order used by the analyses.
+		Stream.of(WidgetHelper.SWING_LISTENERS, WidgetHelper.AWT_LISTENERS, WidgetHelper.JFX_LISTENERS, WidgetHelper.SWT_LISTENERS)
+			.forEach(types -> methods.putAll(WidgetHelper.getListenerMethodsSignatures(
+				types.stream().map(type -> factory.Type().createReference(type)).collect(Collectors.toList()))));
+
+		final Deque<Class<?>> toVisit = new ArrayDeque<>(getSnapshotTypes());
+		for(final String name : listToolkitClasses()) {
+			try {
+				final Class<?> type = Class.forName(name, false, ToolkitSnapshot.class.getClassLoader());
+				if(Modifier.isPublic(type.getModifiers())) {
+					toVisit.add(type);
+				}
+			}catch(final ClassNotFoundException | LinkageError ex) {
+				LOG.log(Level.INFO, () -> "Cannot load the toolkit type " + name + ": " + ex);
+			}
+		}
+
+		while(!toVisit.isEmpty()) {
+			final Class<?> type = toVisit.pop();
+			if(!supertypes.containsKey(type.getName())) {
+				final List<Class<?>> supers = new ArrayList<>(Arrays.asList(type.getInterfaces()));
+				if(type.getSuperclass() != null) {
+					supers.add(type.getSuperclass());
+				}
+				supertypes.put(type.getName(), supers.stream().map(Class::getName).collect(Collectors.toList()));
+				toVisit.addAll(supers);
+			}
+		}
+
+		final JsonHelper json = JsonHelper.INSTANCE;
+		final StringBuilder sb = new StringBuilder("{\n\"format\": ").append(FORMAT_VERSION)
+			.append(",\n\"fingerprint\": ").append(json.quote(fingerprint()))
+			.append(",\n\"listenerMethods\": {");
+		sb.append(methods.entrySet().stream().map(e -> "\n" + json.quote(e.getKey()) + ": " + json.quote(e.getValue()))
+			.collect(Collectors.joining(",")));
+		sb.append("\n},\n\"supertypes\": {");
+		sb.append(supertypes.entrySet().stream().map(e -> "\n" + json.quote(e.getKey()) + ": [" +
+			e.getValue().stream().map(json::quote).collect(Collectors.joining(", ")) + "]").collect(Collectors.joining(",")));
+		return sb.append("\n}\n}\n").toString();
+	}
+
+	/**
+	 * @return The names of the named classes of the widget packages, found in the JDK modules and in the jars
+	 * of the toolkits.
+	 */
+	private static @NotNull Set<String> listToolkitClasses() throws IOException {
+		final Set<String> names = new TreeSet<>();
+		final Set<String> packages = WidgetHelper.INSTANCE.getWidgetPackages();
+
+		final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+		try(final Stream<Path> modules = Files.list(jrt.getPath("/modules"))) {
+			for(final Path module : modules.collect(Collectors.toList())) {
+				final String moduleName = module.getFileName().toString();
+				if("java.desktop".equals(moduleName) || moduleName.startsWith("javafx.")) {
+					try(final Stream<Path> files = Files.walk(module)) {
+						files.forEach(file -> addClassName(module.relativize(file).toString(), packages, names));
+					}
+				}
+			}
+		}
+
+		for(final Path jar : getToolkitLocations()) {
+			if(Files.isDirectory(jar)) {
+				try(final Stream<Path> files = Files.walk(jar)) {
+					files.forEach(file -> addClassName(jar.relativize(file).toString(), packages, names));
+				}
+			}else {
+				try(final JarFile jarFile = new JarFile(jar.toFile())) {
+					jarFile.stream().map(JarEntry::getName).forEach(file -> addClassName(file, packages, names));
+				}
+			}
+		}
+
+		return names;
+	}
+
+	private static void addClassName(final @NotNull String file, final @NotNull Set<String> packages, final @NotNull Set<String> names) {
+		if(!file.endsWith(".class") || file.endsWith("module-info.class") || file.endsWith("package-info.class")) {
+			return;
+		}
+
+		final String name = file.substring(0, file.length() - ".class".length()).replace('/', '.').replace('\\', '.');
+
+		// Anonymous and local classes are not part of the API of the toolkits.
+		if(!name.matches(".*\\$\\d.*") && packages.stream().anyMatch(pkg -> name.startsWith(pkg + '.'))) {
+			names.add(name);
+		}
+	}
+
+	@Override
+	public @NotNull String toString() {
+		return "ToolkitSnapshot{" + listenerMethods.size() + " listener methods, " + directSupertypes.size() + " types}";
+	}
+}
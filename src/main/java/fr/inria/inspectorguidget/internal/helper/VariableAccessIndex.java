@@ -0,0 +1,113 @@
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtVariableReference;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * Maps each variable declaration of a model to its accesses (in the order of the model traversal).
+ * The index is built with a single traversal of the model the first time it is queried and is attached to
+ * the root package of the model, so that it lives as long as the model.
+ * It matches the same accesses as MyVariableAccessFilter: the accesses whose variable reference resolves to the declaration.
+ * The index does not follow the modifications of the model: invalidate must be called after such modifications.
+ */
+public final class VariableAccessIndex {
+	private static final @NotNull String METADATA_KEY = "inspectorguidget.variableAccessIndex";
+
+	private final @NotNull Map<CtVariable<?>, List<CtVariableAccess<?>>> accesses;
+
+	/**
+	 * @return The index of the model of the given factory. Built on the first call (measured in MetricsHelper.INSTANCE).
+	 */
+	public static @NotNull VariableAccessIndex of(final @NotNull Factory factory) {
+		return of(factory, MetricsHelper.INSTANCE);
+	}
+
+	/**
+	 * @param metrics Where the building of the index is measured (e.g. the metrics of the running analyser).
+	 * @return The index of the model of the given factory. Built on the first call.
+	 */
+	public static @NotNull VariableAccessIndex of(final @NotNull Factory factory, final @NotNull MetricsHelper metrics) {
+		final CtPackage root = factory.getModel().getRootPackage();
+
+		synchronized(root) {
+			final Object index = root.getMetadata(METADATA_KEY);
+			if(index instanceof VariableAccessIndex) {
+				return (VariableAccessIndex) index;
+			}
+			final VariableAccessIndex newIndex = metrics.time("index.variableAccesses", () -> new VariableAccessIndex(root));
+			root.putMetadata(METADATA_KEY, newIndex);
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Removes the index of the model of the given factory. The next query will rebuild it.
+	 */
+	public static void invalidate(final @NotNull Factory factory) {
+		final CtPackage root = factory.getModel().getRootPackage();
+
+		synchronized(root) {
+			root.putMetadata(METADATA_KEY, null);
+		}
+	}
+
+	private VariableAccessIndex(final @NotNull CtElement root) {
+		super();
+		accesses = new IdentityHashMap<>();
+
+		new CtScanner() {
+			@Override
+			protected void enter(final CtElement e) {
+				if(e instanceof CtVariableAccess<?>) {
+					final CtVariable<?> declaration = getDeclaration((CtVariableAccess<?>) e);
+					if(declaration != null) {
+						accesses.computeIfAbsent(declaration, k -> new ArrayList<>()).add((CtVariableAccess<?>) e);
+					}
+				}
+			}
+		}.scan(root);
+	}
+
+	private static @Nullable CtVariable<?> getDeclaration(final @NotNull CtVariableAccess<?> access) {
+		final CtVariableReference<?> ref = access.getVariable();
+
+		try {
+			return ref == null ? null : ref.getDeclaration();
+		}catch(final NullPointerException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return The accesses to the given variable in the whole model.
+	 */
+	public @NotNull List<CtVariableAccess<?>> getAccesses(final @NotNull CtVariable<?> var) {
+		return Collections.unmodifiableList(accesses.getOrDefault(var, Collections.emptyList()));
+	}
+
+	/**
+	 * @return A new list of the accesses to the given variable contained in the given element (or being this element).
+	 */
+	public @NotNull List<CtVariableAccess<?>> getAccesses(final @NotNull CtVariable<?> var, final @NotNull CtElement scope) {
+		if(scope == scope.getFactory().getModel().getRootPackage()) {
+			return new ArrayList<>(accesses.getOrDefault(var, Collections.emptyList()));
+		}
+		return accesses.getOrDefault(var, Collections.emptyList())
+			.stream()
+			.filter(access -> access == scope || access.hasParent(scope))
+			.collect(Collectors.toList());
+	}
+}
@@ -1,23 +1,24 @@
 package fr.inria.inspectorguidget.internal.helper;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.eclipse.swt.widgets.Listener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import spoon.reflect.code.CtLambda;
 import spoon.reflect.declaration.CtExecutable;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.declaration.CtTypeInformation;
+import spoon.reflect.declaration.CtTypeParameter;
 import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtArrayTypeReference;
+import spoon.reflect.reference.CtIntersectionTypeReference;
+import spoon.reflect.reference.CtTypeParameterReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.support.SpoonClassNotFoundException;
 
@@ -26,152 +27,160 @@ public final class WidgetHelper {
 
 	public final @NotNull List<String> ACTION_CMD_METHOD_NAMES = Collections.singletonList("setActionCommand");
 
-	private List<CtTypeReference<?>> controlTypes;
-	private Set<String> widgetPackages;
-	private List<CtTypeReference<?>> swingListenersRef;
-	private List<CtTypeReference<?>> awtListenersRef;
-	private List<CtTypeReference<?>> jfxListenersRef;
-	private List<CtTypeReference<?>> swtListenersRef;
-	private List<CtTypeReference<?>> rootEventListenerRef;
-	private Map<String, CtExecutable<?>> listenerMethodPrototypes;
-	private CtTypeReference<?> actionRef;
+	/** The Swing listener types. */
+	static final @NotNull List<Class<?>> SWING_LISTENERS = List.of(
+		javax.swing.event.CaretListener.class,
+		javax.swing.event.CellEditorListener.class,
+		javax.swing.event.ChangeListener.class,
+		javax.swing.event.DocumentListener.class,
+		javax.swing.event.HyperlinkListener.class,
+		javax.swing.event.InternalFrameListener.class,
+		javax.swing.event.ListDataListener.class,
+		javax.swing.event.ListSelectionListener.class,
+		javax.swing.event.MenuKeyListener.class,
+		javax.swing.event.MenuListener.class,
+		javax.swing.event.MouseInputListener.class,
+		javax.swing.event.PopupMenuListener.class,
+		javax.swing.event.RowSorterListener.class,
+		javax.swing.event.TableColumnModelListener.class,
+		javax.swing.event.TableModelListener.class,
+		javax.swing.event.TreeExpansionListener.class,
+		javax.swing.event.TreeModelListener.class,
+		javax.swing.event.TreeSelectionListener.class,
+		javax.swing.event.TreeWillExpandListener.class,
+		javax.swing.event.UndoableEditListener.class,
+		javax.swing.event.MenuDragMouseEvent.class);
+	/** The AWT listener types. */
+	static final @NotNull List<Class<?>> AWT_LISTENERS = List.of(
+		java.awt.event.ActionListener.class,
+		java.awt.event.AdjustmentListener.class,
+		java.awt.event.AWTEventListener.class,
+		java.awt.event.ComponentListener.class,
+		java.awt.event.ContainerListener.class,
+		java.awt.event.FocusListener.class,
+		java.awt.event.InputMethodListener.class,
+		java.awt.event.ItemListener.class,
+		java.awt.event.KeyListener.class,
+		java.awt.event.MouseListener.class,
+		java.awt.event.MouseMotionListener.class,
+		java.awt.event.MouseWheelListener.class,
+		java.awt.event.TextListener.class,
+		java.awt.event.WindowFocusListener.class,
+		java.awt.event.WindowStateListener.class,
+		java.awt.event.WindowListener.class,
+		java.awt.dnd.DragGestureListener.class,
+		java.awt.dnd.DragSourceListener.class,
+		java.awt.dnd.DragSourceMotionListener.class,
+		java.awt.dnd.DropTargetListener.class);
+	/** The JavaFX listener types. */
+	static final @NotNull List<Class<?>> JFX_LISTENERS = List.of(
+		javafx.event.EventHandler.class);
+	/** The SWT listener types. */
+	static final @NotNull List<Class<?>> SWT_LISTENERS = List.of(
+		org.eclipse.swt.widgets.Listener.class,
+		org.eclipse.swt.internal.SWTEventListener.class,
+		org.eclipse.swt.events.ArmListener.class,
+		org.eclipse.swt.events.ControlListener.class,
+		org.eclipse.swt.events.DisposeListener.class,
+		org.eclipse.swt.events.DragDetectListener.class,
+		org.eclipse.swt.events.ExpandListener.class,
+		org.eclipse.swt.events.FocusListener.class,
+		org.eclipse.swt.events.GestureListener.class,
+		org.eclipse.swt.events.HelpListener.class,
+		org.eclipse.swt.events.KeyListener.class,
+		org.eclipse.swt.events.MenuDetectListener.class,
+		org.eclipse.swt.events.MouseListener.class,
+		org.eclipse.swt.events.ModifyListener.class,
+		org.eclipse.swt.events.MouseMoveListener.class,
+		org.eclipse.swt.events.MouseTrackAdapter.class,
+		org.eclipse.swt.events.MenuListener.class,
+		org.eclipse.swt.events.MouseWheelListener.class,
+		org.eclipse.swt.events.PaintListener.class,
+		org.eclipse.swt.events.SegmentListener.class,
+		org.eclipse.swt.events.SelectionListener.class,
+		org.eclipse.swt.events.TouchListener.class,
+		org.eclipse.swt.events.TraverseListener.class,
+		org.eclipse.swt.events.TreeListener.class,
+		org.eclipse.swt.events.VerifyListener.class);
+	/** The root types of the widgets of each toolkit. */
+	static final @NotNull List<Class<?>> WIDGET_TYPES = List.of(
+		javafx.scene.Node.class,
+		javafx.scene.control.MenuItem.class,
+		javafx.scene.control.Dialog.class,
+		javafx.stage.Window.class,
+		java.awt.Component.class,
+		org.eclipse.swt.widgets.Widget.class);
 
-	private final Object LOCK = new Object();
+	private static final @NotNull Set<String> WIDGET_PACKAGES = Set.of("javafx.scene", "javafx.stage", "java.awt", "javax.swing", "org.eclipse.swt");
+
+	private volatile @Nullable Optional<ToolkitSnapshot> snapshot;
 
 	private WidgetHelper() {
 		super();
 	}
 
-	public CtTypeReference<?> getActionRef(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(actionRef == null) {
-				actionRef = factory.Type().createReference(javax.swing.AbstractAction.class);
-			}
-			return actionRef;
-		}
+	/**
+	 * Loads the toolkit snapshot shared by all the analyses run in the JVM.
+	 * Calling this method before starting concurrent analyses avoids that the first analyses wait for the loading.
+	 * The type references themselves are specific to each Spoon factory and are built on their first use.
+	 */
+	public void initialise() {
+		getSnapshot();
 	}
 
-	public List<CtTypeReference<?>> getSwingListenersRef(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(swingListenersRef == null) {
-				swingListenersRef = new ArrayList<>();
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.CaretListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.CellEditorListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.ChangeListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.DocumentListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.HyperlinkListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.InternalFrameListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.ListDataListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.ListSelectionListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.MenuKeyListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.MenuListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.MouseInputListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.PopupMenuListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.RowSorterListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TableColumnModelListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TableModelListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TreeExpansionListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TreeModelListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TreeSelectionListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.TreeWillExpandListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.UndoableEditListener.class));
-				swingListenersRef.add(factory.Type().createReference(javax.swing.event.MenuDragMouseEvent.class));
-				registerListenerMethodsSignatures(swingListenersRef);
+	/**
+	 * @return The shipped snapshot of the toolkit types, if it exists and matches the running toolkits.
+	 */
+	@Nullable ToolkitSnapshot getSnapshot() {
+		Optional<ToolkitSnapshot> toolkits = snapshot;
+		if(toolkits == null) {
+			synchronized(this) {
+				toolkits = snapshot;
+				if(toolkits == null) {
+					toolkits = ToolkitSnapshot.load();
+					snapshot = toolkits;
+				}
 			}
 		}
-		return swingListenersRef;
+		return toolkits.orElse(null);
 	}
 
-	private void registerListenerMethodsSignatures(final @NotNull List<CtTypeReference<?>> types) {
-		synchronized(LOCK) {
-			if(listenerMethodPrototypes == null) {
-				listenerMethodPrototypes = new HashMap<>();
-			}
+	public CtTypeReference<?> getActionRef(final @NotNull Factory factory) {
+		return ToolkitRegistry.of(factory).actionRef;
+	}
 
-			listenerMethodPrototypes.putAll(types.stream().map(typ -> typ.getDeclaredExecutables()).flatMap(s -> s.stream()).collect(Collectors.
-				toMap(exec -> exec.getExecutableDeclaration().getSignature(), exec -> exec.getExecutableDeclaration())));
-		}
+	public List<CtTypeReference<?>> getSwingListenersRef(final @NotNull Factory factory) {
+		return ToolkitRegistry.of(factory).swingListenersRef;
+	}
+
+	/**
+	 * Computes by reflection the listener methods of the given listener types.
+	 * Spoon builds the shadow declarations of these types to do so.
+	 * @return The signatures of the listener methods and the qualified name of their listener interface.
+	 */
+	static @NotNull Map<String, String> getListenerMethodsSignatures(final @NotNull List<CtTypeReference<?>> types) {
+		return types.stream().map(typ -> typ.getDeclaredExecutables()).flatMap(s -> s.stream()).collect(Collectors.
+			toMap(exec -> exec.getExecutableDeclaration().getSignature(),
+				exec -> exec.getExecutableDeclaration().getParent(CtType.class).getQualifiedName()));
 	}
 
 	public List<CtTypeReference<?>> getAWTListenersRef(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(awtListenersRef == null) {
-				awtListenersRef = new ArrayList<>();
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.ActionListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.AdjustmentListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.AWTEventListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.ComponentListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.ContainerListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.FocusListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.InputMethodListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.ItemListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.KeyListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.MouseListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.MouseMotionListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.MouseWheelListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.TextListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.WindowFocusListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.WindowStateListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.event.WindowListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.dnd.DragGestureListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.dnd.DragSourceListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.dnd.DragSourceMotionListener.class));
-				awtListenersRef.add(factory.Type().createReference(java.awt.dnd.DropTargetListener.class));
-				registerListenerMethodsSignatures(awtListenersRef);
-			}
-		}
-		return awtListenersRef;
+		return ToolkitRegistry.of(factory).awtListenersRef;
 	}
 
 	public List<CtTypeReference<?>> getJFXListenersRef(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(jfxListenersRef == null) {
-				jfxListenersRef = new ArrayList<>();
-				jfxListenersRef.add(factory.Type().createReference(javafx.event.EventHandler.class));
-				registerListenerMethodsSignatures(jfxListenersRef);
-			}
-		}
-		return jfxListenersRef;
+		return ToolkitRegistry.of(factory).jfxListenersRef;
 	}
 
 	public List<CtTypeReference<?>> getSWTListenersRef(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(swtListenersRef == null) {
-				swtListenersRef = new ArrayList<>();
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.widgets.Listener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.internal.SWTEventListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.ArmListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.ControlListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.DisposeListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.DragDetectListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.ExpandListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.FocusListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.GestureListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.HelpListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.KeyListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MenuDetectListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MouseListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.ModifyListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MouseMoveListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MouseTrackAdapter.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MenuListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.MouseWheelListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.PaintListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.SegmentListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.SelectionListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.TouchListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.TraverseListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.TreeListener.class));
-				swtListenersRef.add(factory.Type().createReference(org.eclipse.swt.events.VerifyListener.class));
-				registerListenerMethodsSignatures(swtListenersRef);
-			}
-		}
-		return swtListenersRef;
+		return ToolkitRegistry.of(factory).swtListenersRef;
 	}
 
 
 	/**
 	 * Looks for the listener interface that implements the given executable.
+	 * The interface is identified from the listener method signatures (see ToolkitSnapshot), but its declaration is
+	 * resolved by Spoon: for a toolkit interface, Spoon builds its shadow declaration by reflection.
 	 * @param exec The executable to search in the interfaces.
 	 * @return The found interface or nothing. Cannot be null.
 	 */
@@ -180,19 +189,20 @@ public final class WidgetHelper {
 			return Optional.empty();
 		}
 
-		final CtExecutable<?> listenerExec = listenerMethodPrototypes.get(exec.getSignature());
+		final String listener = ToolkitRegistry.of(exec.getFactory()).listenerMethodPrototypes.get(exec.getSignature());
 
-		if(listenerExec == null) {
+		if(listener == null) {
 			return Optional.empty();
 		}
 
-		return Optional.of(listenerExec.getParent(CtType.class));
+		return Optional.ofNullable(SpoonHelper.INSTANCE.resolveTypes(exec.getFactory(),
+			() -> exec.getFactory().Type().createReference(listener).getTypeDeclaration()));
 	}
 
 
 	public boolean isListenerClassMethod(final @NotNull CtExecutable<?> exec) {
 		return isListenerClass(exec.getReference().getDeclaringType(), exec.getFactory(), null) && (exec instanceof CtLambda<?> ||
-			listenerMethodPrototypes.get(exec.getSignature()) != null);
+			ToolkitRegistry.of(exec.getFactory()).listenerMethodPrototypes.get(exec.getSignature()) != null);
 	}
 
 	/**
@@ -203,51 +213,25 @@ public final class WidgetHelper {
 	 * @return True if the given type is a listener (and conforms the given 'ofType'). False otherwise.
 	 */
 	public boolean isListenerClass(final @Nullable CtTypeInformation type, final @NotNull Factory factory, final @Nullable CtType<?> ofType) {
-		synchronized(LOCK) {
-			if(rootEventListenerRef == null && type != null) {
-				rootEventListenerRef = Arrays.asList(factory.Type().createReference(java.util.EventListener.class),
-					factory.Type().createReference(Listener.class));
-			}
-		}
 		try {
-			return type != null && rootEventListenerRef.stream().anyMatch(l -> type.isSubtypeOf(l)) &&
-				!type.isSubtypeOf(getActionRef(factory)) && (ofType == null || type.equals(ofType.getReference()));
+			return type != null && ToolkitRegistry.of(factory).rootEventListenersRef.stream().anyMatch(l -> isSubtypeOf(type, l)) &&
+				!isSubtypeOf(type, getActionRef(factory)) && (ofType == null || type.equals(ofType.getReference()));
 		}catch(final SpoonClassNotFoundException ex) {
 			return false;
 		}
 	}
 
 	public @NotNull List<CtTypeReference<?>> getWidgetTypes(final @NotNull Factory factory) {
-		synchronized(LOCK) {
-			if(controlTypes == null) {
-				controlTypes = Arrays.asList(factory.Type().createReference(javafx.scene.Node.class),
-					factory.Type().createReference(javafx.scene.control.MenuItem.class),
-					factory.Type().createReference(javafx.scene.control.Dialog.class),
-					factory.Type().createReference(javafx.stage.Window.class),
-					factory.Type().createReference(java.awt.Component.class),
-					factory.Type().createReference(org.eclipse.swt.widgets.Widget.class));
-			}
-		}
-		return controlTypes;
+		return ToolkitRegistry.of(factory).widgetTypes;
 	}
 
 	public @NotNull Set<String> getWidgetPackages() {
-		synchronized(LOCK) {
-			if(widgetPackages == null) {
-				widgetPackages = new HashSet<>();
-				widgetPackages.add("javafx.scene");
-				widgetPackages.add("javafx.stage");
-				widgetPackages.add("java.awt");
-				widgetPackages.add("javax.swing");
-				widgetPackages.add("org.eclipse.swt");
-			}
-		}
-		return widgetPackages;
+		return WIDGET_PACKAGES;
 	}
 
 	public boolean isTypeRefAWidget(final @NotNull CtTypeReference<?> typeref) {
 		try {
-			return getWidgetTypes(typeref.getFactory()).stream().anyMatch(type -> type == typeref || typeref.isSubtypeOf(type));
+			return getWidgetTypes(typeref.getFactory()).stream().anyMatch(type -> type == typeref || isSubtypeOf(typeref, type));
 		}catch(final SpoonClassNotFoundException ex) {
 			return false;
 		}
@@ -257,4 +241,71 @@ public final class WidgetHelper {
 		final String qName = typeref.getQualifiedName();
 		return getWidgetPackages().stream().anyMatch(pkg -> qName.startsWith(pkg));
 	}
+
+	/**
+	 * Checks whether a type is a sub-type of another one, as CtTypeInformation#isSubtypeOf does.
+	 * The super types of the toolkit types are taken from the toolkit snapshot (when available), so that Spoon does not
+	 * have to build their shadow declarations by reflection. The types the snapshot and the model cannot tell about
+	 * are delegated to Spoon. Only this delegation, which may build shadow declarations, is serialised on the factory
+	 * (see SpoonHelper#resolveTypes): the snapshot and the model are read without locking.
+	 * @throws SpoonClassNotFoundException As CtTypeInformation#isSubtypeOf.
+	 */
+	public boolean isSubtypeOf(final @NotNull CtTypeInformation type, final @NotNull CtTypeReference<?> superType) {
+		final ToolkitSnapshot toolkits = getSnapshot();
+
+		if(toolkits != null) {
+			final Boolean subtype = isSubtypeOf(toolkits, type, superType.getQualifiedName(), new HashSet<>());
+			if(subtype != null) {
+				return subtype;
+			}
+		}
+
+		return SpoonHelper.INSTANCE.resolveTypes(superType.getFactory(), () -> type.isSubtypeOf(superType));
+	}
+
+	/**
+	 * @return Whether 'type' is a sub-type of 'superName', or null if it cannot be decided using the snapshot and the model.
+	 */
+	private @Nullable Boolean isSubtypeOf(final @NotNull ToolkitSnapshot toolkits, final @NotNull CtTypeInformation type,
+										final @NotNull String superName, final @NotNull Set<String> visited) {
+		if(type.isPrimitive() || type instanceof CtArrayTypeReference || type instanceof CtIntersectionTypeReference ||
+			type instanceof CtTypeParameterReference || type instanceof CtTypeParameter) {
+			return null;
+		}
+
+		final String name = type.getQualifiedName();
+
+		if(name.equals(superName)) {
+			return Boolean.TRUE;
+		}
+		if(!visited.add(name)) {
+			return Boolean.FALSE;
+		}
+		if(toolkits.contains(name)) {
+			return toolkits.getSupertypes(name).contains(superName);
+		}
+
+		final CtType<?> decl = type instanceof CtType<?> ? (CtType<?>) type : ((CtTypeReference<?>) type).getDeclaration();
+
+		if(decl == null || decl.isShadow()) {
+			return null;
+		}
+
+		final List<CtTypeReference<?>> supertypes = new ArrayList<>(decl.getSuperInterfaces());
+		if(decl.getSuperclass() != null) {
+			supertypes.add(decl.getSuperclass());
+		}
+
+		boolean undecided = false;
+		for(final CtTypeReference<?> supertype : supertypes) {
+			final Boolean subtype = isSubtypeOf(toolkits, supertype, superName, visited);
+			if(subtype == null) {
+				undecided = true;
+			}else if(subtype) {
+				return Boolean.TRUE;
+			}
+		}
+
+		return undecided ? null : Boolean.FALSE;
+	}
 }
@@ -0,0 +1,113 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.internal.helper.CodeBlockPos;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtIf;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.code.CtUnaryOperator;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestCommand {
+	CtMethod<?> method;
+	List<CtStatement> stats;
+
+	@BeforeEach
+	void setUp() {
+		method = Launcher.parseClass(
+			"class A {\n" +
+			"  void m() {\n" +
+			"    int a = 1;\n" +
+			"    if(a > 0) {\n" +
+			"      a++;\n" +
+			"    }\n" +
+			"    a--;\n" +
+			"    if(a < 0) a = 0;\n" +
+			"  }\n" +
+			"}").getMethodsByName("m").get(0);
+		stats = method.getBody().getStatements();
+	}
+
+	static CommandStatmtEntry entry(final CtElement stat) {
+		return new CommandStatmtEntry(false, Collections.singletonList(stat));
+	}
+
+	@Test
+	void testCachedLines() {
+		final CommandStatmtEntry entry = entry(stats.get(0));
+		assertThat(entry.getLineStart()).isEqualTo(3);
+		assertThat(entry.getLineEnd()).isEqualTo(3);
+		entry.addStatement(stats.get(1));
+		assertThat(entry.getLineStart()).isEqualTo(3);
+		assertThat(entry.getLineEnd()).isEqualTo(6);
+	}
+
+	@Test
+	void testLineContainedEntriesRemoved() {
+		final Command cmd = new Command(new CommandStatmtEntry(true, stats.subList(1, 2)), Collections.emptyList(), method);
+		final CommandStatmtEntry decl = entry(stats.get(0));
+		final CommandStatmtEntry dec = entry(stats.get(2));
+		cmd.addAllStatements(List.of(entry(stats.get(1).getElements(new TypeFilter<>(CtUnaryOperator.class)).get(0)), decl, dec, entry(stats.get(0))));
+		assertThat(cmd.getStatements()).hasSize(3);
+		assertThat(cmd.getStatements().get(0).isMainEntry()).isTrue();
+		assertThat(cmd.getStatements().subList(1, 3)).containsExactly(decl, dec);
+	}
+
+	@Test
+	void testElementContainedEntriesRemoved() {
+		final CtIf ifStat = (CtIf) stats.get(3);
+		final Command cmd = new Command(new CommandStatmtEntry(true, stats.subList(3, 4)), Collections.emptyList(), method);
+		cmd.addAllStatements(List.of(entry(ifStat.getThenStatement()), entry(ifStat)));
+		assertThat(cmd.getStatements()).hasSize(1);
+		assertThat(cmd.getStatements().get(0).isMainEntry()).isTrue();
+	}
+
+	@Test
+	void testNestedBlockMerged() {
+		final CtIf ifStat = (CtIf) stats.get(1);
+		final CtStatement inner = ((CtBlock<?>) ifStat.getThenStatement()).getStatement(0);
+		// The condition block (lines 4-6) contains the main statement (line 5), and is followed by 'a--' (line 7).
+		final Command cmd = new Command(new CommandStatmtEntry(true, Collections.singletonList(inner)),
+			List.of(new CommandConditionEntry(ifStat, ifStat.getCondition())), method);
+		cmd.addAllStatements(List.of(entry(stats.get(2))));
+		final List<CodeBlockPos> blocks = cmd.getOptimalCodeBlocks();
+		assertThat(blocks).hasSize(1);
+		assertThat(blocks.get(0).startLine).isEqualTo(4);
+		assertThat(blocks.get(0).endLine).isEqualTo(7);
+	}
+
+	@Test
+	void testEntriesOrderKept() {
+		final Command cmd = new Command(new CommandStatmtEntry(true, stats.subList(2, 3)), Collections.emptyList(), method);
+		final CommandStatmtEntry decl = entry(stats.get(0));
+		final CommandStatmtEntry last = entry(stats.get(3));
+		cmd.addAllStatements(0, List.of(last, decl));
+		assertThat(cmd.getStatements()).hasSize(3);
+		assertThat(cmd.getStatements().subList(0, 2)).containsExactly(last, decl);
+		assertThat(cmd.getLineStart()).isEqualTo(7);
+		assertThat(cmd.getLineEnd()).isEqualTo(7);
+		assertThat(cmd.getAllLocalStatmtsOrdered()).containsExactly(stats.get(0), stats.get(2), stats.get(3));
+	}
+}
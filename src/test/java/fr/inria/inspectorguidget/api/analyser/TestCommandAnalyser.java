@@ -17,6 +17,7 @@ package fr.inria.inspectorguidget.api.analyser;
 import fr.inria.inspectorguidget.api.TestInspectorGuidget;
 import fr.inria.inspectorguidget.internal.helper.CodeBlockPos;
 import fr.inria.inspectorguidget.internal.helper.SpoonStructurePrinter;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -28,6 +29,10 @@ import org.junit.jupiter.api.*;
 import spoon.reflect.code.CtBinaryOperator;
 import spoon.reflect.code.CtLiteral;
 import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.factory.FactoryImpl;
+import spoon.support.DefaultCoreFactory;
+import spoon.support.StandardEnvironment;
+import spoon.support.compiler.jdt.JDTBasedSpoonCompiler;
 import spoon.testing.Assert;
 import static org.assertj.core.api.Assertions.*;
 
@@ -52,6 +57,24 @@ public class TestCommandAnalyser {
 		}
 	}
 
+	@Test
+	public void testReleaseModelOfGivenBuilder() {
+		final StandardEnvironment env = new StandardEnvironment();
+		env.setComplianceLevel(8);
+		final JDTBasedSpoonCompiler builder = new JDTBasedSpoonCompiler(new FactoryImpl(new DefaultCoreFactory(), env));
+		builder.addInputSource(new File("src/test/resources/java/analysers/ActionListenerNoConditClass.java"));
+		builder.build();
+		final CommandAnalyser builderAnalyser = new CommandAnalyser(builder);
+		builderAnalyser.process();
+
+		builderAnalyser.releaseModel();
+		assertThat(builderAnalyser.getCommands()).isEmpty();
+		// The model is rebuilt from the sources of the given builder
+		builderAnalyser.run();
+		assertThat(builderAnalyser.getModelBuilder()).isNotSameAs(builder);
+		assertThat(builderAnalyser.getCommands().values().stream().mapToLong(c -> c.getNbTotalCmds()).sum()).isEqualTo(1L);
+	}
+
 	@Test
 	public void testEmptyClassListenerMethodNoCommand() {
 		analyser.addInputResource("src/test/resources/java/analysers/ActionListenerEmptyClass.java");
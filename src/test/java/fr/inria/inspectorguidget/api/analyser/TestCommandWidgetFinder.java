@@ -320,6 +320,26 @@ public class TestCommandWidgetFinder {
 		assertThat(entries.get(3).getValue().getWidgetUsages(results.values()).size()).isEqualTo(1);
 	}
 
+	@Test
+	public void testResolvedWidgetUsagesSameAsPerEntry() {
+		initTest("src/test/resources/java/refactoring/RefactoringCommandNotPossible.java");
+		final Map<Command, Set<WidgetProcessor.WidgetUsage>> resolved = finder.getResolvedWidgetUsages();
+		assertThat(resolved.size()).isEqualTo(results.size());
+		results.forEach((cmd, entry) -> assertThat(resolved.get(cmd)).isEqualTo(entry.getWidgetUsages(results.values())));
+		assertThat(finder.getResolvedWidgetUsages()).isSameAs(resolved);
+	}
+
+	@Test
+	public void testResolvedWidgetUsagesDuringProcessNotCached() {
+		initTest("src/test/resources/java/refactoring/RefactoringCommandNotPossible.java");
+		final CommandWidgetFinder streamed = new CommandWidgetFinder(new ArrayList<>(results.keySet()), widgetProc.getWidgetUsages());
+		streamed.process(entry -> streamed.getResolvedWidgetUsages());
+
+		final Map<Command, Set<WidgetProcessor.WidgetUsage>> resolved = streamed.getResolvedWidgetUsages();
+		assertThat(resolved.size()).isEqualTo(results.size());
+		assertThat(streamed.getResolvedWidgetUsages()).isSameAs(resolved);
+	}
+
 	@Test
 	public void testSuperSwitchActionListener() {
 		initTest("src/test/resources/java/refactoring/SuperSwitchActionListener.java");
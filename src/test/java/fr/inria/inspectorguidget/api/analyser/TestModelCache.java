@@ -0,0 +1,89 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestModelCache {
+	@TempDir
+	Path tmp;
+	Path cacheDir;
+	Path src;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		cacheDir = tmp.resolve("cache");
+		src = tmp.resolve("Foo.java");
+		Files.copy(Paths.get("src/test/resources/java/analysers/ActionListenerCondSwitch.java"), src);
+	}
+
+	private CommandAnalyser analyse() {
+		final CommandAnalyser analyser = new CommandAnalyser();
+		analyser.setModelCacheDirectory(cacheDir.toFile());
+		analyser.addInputResource(src.toString());
+		analyser.run();
+		return analyser;
+	}
+
+	private long nbEntries() throws IOException {
+		try(final Stream<Path> files = Files.list(cacheDir)) {
+			return files.filter(f -> f.toString().endsWith(".model")).count();
+		}
+	}
+
+	@Test
+	void testModelStored() throws IOException {
+		analyse();
+		assertThat(nbEntries()).isEqualTo(1L);
+	}
+
+	private static long getItems(final CommandAnalyser analyser, final String phase) {
+		final long[] values = analyser.getMetrics().snapshot().get(phase);
+		return values == null ? 0L : values[2];
+	}
+
+	@Test
+	void testCachedModelGivesSameCommands() {
+		final CommandAnalyser first = analyse();
+		final long nbCmds = first.getCommands().values().stream().mapToLong(UIListener::getNbTotalCmds).sum();
+		assertThat(getItems(first, "model.cache.misses")).isEqualTo(1L);
+		assertThat(getItems(first, "model.cache.hits")).isZero();
+
+		final CommandAnalyser second = analyse();
+		// The second model is loaded from the cache, not built.
+		assertThat(getItems(second, "model.cache.hits")).isEqualTo(1L);
+		assertThat(getItems(second, "model.cache.misses")).isZero();
+		assertThat(nbCmds).isPositive();
+		assertThat(second.getCommands().values().stream().mapToLong(UIListener::getNbTotalCmds).sum()).isEqualTo(nbCmds);
+	}
+
+	@Test
+	void testEntryReplacedWhenSourcesChange() throws IOException {
+		analyse();
+		Files.writeString(src, Files.readString(src) + "\nclass Bar {}\n");
+		final CommandAnalyser analyser = analyse();
+		assertThat(analyser.getModel().getAllTypes().stream().anyMatch(t -> "Bar".equals(t.getSimpleName()))).isTrue();
+		assertThat(nbEntries()).isEqualTo(1L);
+	}
+}
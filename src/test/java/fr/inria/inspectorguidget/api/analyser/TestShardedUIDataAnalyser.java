@@ -0,0 +1,123 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestShardedUIDataAnalyser {
+	@TempDir
+	Path srcDir;
+	ShardedUIDataAnalyser analyser;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Files.createDirectories(srcDir.resolve("view"));
+		Files.createDirectories(srcDir.resolve("ctrl"));
+		Files.writeString(srcDir.resolve("view/Panel.java"),
+			"package view;\n" +
+			"import javax.swing.JButton;\n" +
+			"public class Panel {\n" +
+			"	public JButton button = new JButton();\n" +
+			"}\n");
+		Files.writeString(srcDir.resolve("ctrl/Ctrl.java"),
+			"package ctrl;\n" +
+			"import java.awt.event.ActionEvent;\n" +
+			"import java.awt.event.ActionListener;\n" +
+			"import view.Panel;\n" +
+			"class Ctrl {\n" +
+			"	Ctrl(Panel panel) {\n" +
+			"		panel.button.addActionListener(new ActionListener() {\n" +
+			"			@Override\n" +
+			"			public void actionPerformed(ActionEvent e) {\n" +
+			"				System.out.println(e.getSource());\n" +
+			"			}\n" +
+			"		});\n" +
+			"	}\n" +
+			"}\n");
+		analyser = new ShardedUIDataAnalyser(ShardedUIDataAnalyser.ShardingMode.PACKAGE);
+		analyser.addInputResource(srcDir.toString());
+	}
+
+	@Test
+	void testOneShardPerPackage() {
+		assertThat(analyser.computeShards()).hasSize(2);
+	}
+
+	@Test
+	void testSingleShardPerModule() {
+		final ShardedUIDataAnalyser moduleAnalyser = new ShardedUIDataAnalyser(ShardedUIDataAnalyser.ShardingMode.MODULE);
+		moduleAnalyser.addInputResource(srcDir.toString());
+		assertThat(moduleAnalyser.computeShards()).hasSize(1);
+	}
+
+	@Test
+	void testSameBindingsAsSingleShard() {
+		final UIDataAnalyser single = new UIDataAnalyser();
+		single.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		final ShardedUIDataAnalyser sharded = new ShardedUIDataAnalyser(ShardedUIDataAnalyser.ShardingMode.PACKAGE);
+		sharded.addInputResource(Paths.get("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java").toString());
+		assertThat(sharded.extractUIData().getWidgetBindings()).isEqualTo(single.extractUIData().getWidgetBindings());
+	}
+
+	@Test
+	void testWidgetFieldFromAnotherShardResolved() {
+		final UIData data = analyser.extractUIData();
+		assertThat(data.getWidgetBindings()).hasSize(1);
+		assertThat(data.getWidgetBindings().get(0).getWidgets()).hasSize(1);
+		assertThat(data.getWidgetBindings().get(0).getWidgets().get(0).getId()).isEqualTo("button");
+	}
+
+	@Test
+	void testWidgetMethodFromAnotherShardResolved() throws IOException {
+		Files.writeString(srcDir.resolve("view/Panel.java"),
+			"package view;\n" +
+			"import javax.swing.JButton;\n" +
+			"public class Panel {\n" +
+			"	private JButton button = new JButton();\n" +
+			"	public JButton getButton() {\n" +
+			"		return button;\n" +
+			"	}\n" +
+			"}\n");
+		Files.writeString(srcDir.resolve("ctrl/Ctrl.java"),
+			"package ctrl;\n" +
+			"import view.Panel;\n" +
+			"class Ctrl {\n" +
+			"	Ctrl(Panel panel) {\n" +
+			"		panel.getButton().addActionListener(e -> System.out.println(e.getSource()));\n" +
+			"	}\n" +
+			"}\n");
+		final UIData data = analyser.extractUIData();
+		assertThat(data.getWidgetBindings()).hasSize(1);
+		assertThat(data.getWidgetBindings().get(0).getWidgets()).hasSize(1);
+		assertThat(data.getWidgetBindings().get(0).getWidgets().get(0).getId()).isEqualTo("button");
+	}
+
+	@Test
+	void testOverlappingShardsNotDuplicated() {
+		final ShardedUIDataAnalyser overlapping = new ShardedUIDataAnalyser(ShardedUIDataAnalyser.ShardingMode.MODULE);
+		overlapping.addInputResource(srcDir.toString());
+		overlapping.addInputResource(srcDir.toString());
+		assertThat(overlapping.extractUIData().getWidgetBindings()).hasSize(1);
+	}
+}
@@ -16,12 +16,18 @@ package fr.inria.inspectorguidget.api.analyser;
 
 import com.beust.klaxon.Klaxon;
 import fr.inria.inspectorguidget.data.UIData;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import java.time.Duration;
+import java.util.List;
 import org.apache.log4j.Level;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class TestUIDataAnalyser {
 	UIDataAnalyser analyser;
 
@@ -35,6 +41,115 @@ public class TestUIDataAnalyser {
 		analyser = new UIDataAnalyser();
 	}
 
+	@Test
+	void testPhasesMeasured() {
+		MetricsHelper.INSTANCE.reset();
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		analyser.extractUIData();
+
+		assertThat(MetricsHelper.INSTANCE.snapshot()).containsKeys("model.build", "process.traversal",
+			"processingDone.ClassListenerProcessor", "processingDone.WidgetProcessor", "command.listenerAnalysis", "command.localVarSlicing",
+			"command.badCommandCleanup", "finder.registeredWidgets", "finder.widgetsUsedInConditions", "finder.widgetClasses",
+			"finder.widgetsFromSharedVars", "finder.widgetsFromStringLiterals");
+		assertThat(MetricsHelper.INSTANCE.snapshot().get("finder.registeredWidgets")[1]).isEqualTo(1L);
+		assertThat(MetricsHelper.INSTANCE.snapshot().get("process.traversal")[1]).isEqualTo(1L);
+		assertThat(MetricsHelper.INSTANCE.toPrometheus()).contains("inspectorguidget_phase_seconds_total{phase=\"model.build\"}");
+	}
+
+	@Test
+	void testPhasesMeasuredPerAnalyser() {
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		analyser.extractUIData();
+		final UIDataAnalyser other = new UIDataAnalyser();
+		other.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		other.extractUIData();
+
+		assertThat(analyser.getMetrics().snapshot().get("process.traversal")[1]).isEqualTo(1L);
+		assertThat(analyser.getMetrics().snapshot().get("finder.registeredWidgets")[1]).isEqualTo(1L);
+		// The items of the finder phases are the widgets found.
+		assertThat(analyser.getMetrics().snapshot().get("finder.registeredWidgets")[2]).isEqualTo(1L);
+		assertThat(analyser.getMetrics().snapshot().get("processingDone.WidgetProcessor")[2]).isPositive();
+	}
+
+	@Test
+	void testNoBudgetNoTruncation() {
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		analyser.extractUIData();
+		assertThat(analyser.getTruncationReport().isEmpty()).isTrue();
+		assertThat(analyser.finder.getResults().values()).noneMatch(entry -> entry.isTruncated());
+	}
+
+	@Test
+	void testListenerBudgetExceeded() {
+		analyser.setListenerBudget(Duration.ofNanos(1));
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		analyser.extractUIData();
+		assertThat(analyser.getTruncationReport().getEntries()).isNotEmpty();
+		assertThat(analyser.getTruncationReport().getEntries()).allMatch(entry -> entry.phase.startsWith("command."));
+		assertThat(analyser.getTruncationReport().toJson()).contains("\"budgetMs\": 0");
+	}
+
+	@Test
+	void testCommandBudgetExceededKeepsPartialResults() {
+		analyser.setCommandBudget(Duration.ofNanos(1));
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		final UIData data = analyser.extractUIData();
+		assertThat(analyser.finder.getResults().values()).hasSize(1).allMatch(entry -> entry.isTruncated());
+		assertThat(analyser.getTruncationReport().getEntries()).hasSize(1);
+		assertThat(analyser.getTruncationReport().getEntries().get(0).phase).isEqualTo("finder.command");
+		// The registered widgets are identified before the first check
+		assertThat(data.getWidgetBindings().get(0).getWidgets()).hasSize(1);
+	}
+
+	@Test
+	void testTruncationReportOfLastAnalysisOnly() {
+		analyser.setCommandBudget(Duration.ofNanos(1));
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		analyser.extractUIData();
+		analyser.releaseModel();
+		analyser.extractUIData();
+		assertThat(analyser.getTruncationReport().getEntries()).hasSize(1);
+
+		analyser.setCommandBudget(null);
+		analyser.releaseModel();
+		analyser.extractUIData();
+		assertThat(analyser.getTruncationReport().isEmpty()).isTrue();
+	}
+
+	@Test
+	void testInvalidBudget() {
+		assertThrows(IllegalArgumentException.class, () -> analyser.setCommandBudget(Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> analyser.setListenerBudget(Duration.ofSeconds(-1)));
+	}
+
+	@Test
+	void testSnapshotsSameBindings() {
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		final UIData data = analyser.extractUIData();
+		final List<CommandSnapshot> snapshots = analyser.getSnapshots();
+		assertThat(snapshots).hasSize(1);
+		assertThat(snapshots.get(0).widgets).hasSize(1);
+		assertThat(snapshots.stream().map(snap -> snap.toWidgetBinding())).containsExactlyInAnyOrderElementsOf(data.getWidgetBindings());
+	}
+
+	@Test
+	void testReleaseModel() {
+		analyser.addInputResource("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java");
+		final UIData data = analyser.extractUIData();
+		final List<CommandSnapshot> snapshots = analyser.getSnapshots();
+		analyser.releaseModel();
+		assertThat(analyser.getSnapshots()).isSameAs(snapshots);
+		assertThat(analyser.getWidgetUsages()).isEmpty();
+		assertThat(analyser.finder).isNull();
+		// The model is rebuilt
+		assertThat(analyser.extractUIData()).isEqualTo(data);
+	}
+
+	@Test
+	void testNoSnapshotsBeforeAnalysis() {
+		assertThat(analyser.getSnapshots()).isEmpty();
+	}
+
 	@Disabled
 	@Test
 	void testArgoUML() {
@@ -0,0 +1,94 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.api.io.UIDataConverter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestUIDataBatchAnalyser {
+	@TempDir
+	Path outDir;
+
+	@Test
+	void testManifestParsed() {
+		final UIDataBatchAnalyser batch = new UIDataBatchAnalyser(List.of("# comment", "", "p1 -s a/b -c lib.jar", "p2 -s c"), outDir.toFile(), 1);
+		assertThat(batch.getProjects()).containsExactly("p1", "p2");
+	}
+
+	@Test
+	void testDuplicatedProject() {
+		assertThrows(IllegalArgumentException.class, () -> new UIDataBatchAnalyser(List.of("p1 -s a", "p1 -s b"), outDir.toFile(), 1));
+	}
+
+	@Test
+	void testOneOutputPerProject() throws IOException {
+		final UIDataBatchAnalyser batch = new UIDataBatchAnalyser(List.of(
+			"p1 -s src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java",
+			"p2 -s src/test/resources/java/widgetsIdentification/LambdaOnSingleFieldWidgetNoCond.java",
+			"p3 -s src/test/resources/java/widgetsIdentification/ClassSingleWidgetNoCond.java"), outDir.toFile(), 2);
+
+		assertThat(batch.run()).isEmpty();
+		assertThat(batch.getOutputFile("p1")).isRegularFile();
+		assertThat(batch.getOutputFile("p2")).isRegularFile();
+		assertThat(batch.getOutputFile("p3")).isRegularFile();
+		assertThat(batch.getMetricsFile("p1")).doesNotExist();
+	}
+
+	@Test
+	void testMetricsPerProject() throws IOException {
+		final UIDataBatchAnalyser batch = new UIDataBatchAnalyser(List.of(
+			"p1 -s src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java",
+			"p2 -s src/test/resources/java/widgetsIdentification/LambdaOnSingleFieldWidgetNoCond.java"), outDir.toFile(), 2);
+		batch.setMetricsExported(true);
+
+		assertThat(batch.run()).isEmpty();
+		for(final String project : batch.getProjects()) {
+			final Map<?, ?> metrics = new Klaxon().parseJsonObject(new StringReader(Files.readString(batch.getMetricsFile(project))));
+			// The metrics of the concurrent projects are not mixed.
+			assertThat(((Number) ((Map<?, ?>) metrics.get("process.traversal")).get("count")).longValue()).isEqualTo(1L);
+			assertThat(((Number) ((Map<?, ?>) metrics.get("finder.registeredWidgets")).get("count")).longValue()).isEqualTo(1L);
+		}
+	}
+
+	@Test
+	void testConcurrentSameAsSequential() throws IOException {
+		final List<String> manifest = List.of(
+			"p1 -s src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java",
+			"p2 -s src/test/resources/java/widgetsIdentification/LambdaOnSingleFieldWidgetNoCond.java",
+			"p3 -s src/test/resources/java/widgetsIdentification/ClassSingleWidgetNoCond.java",
+			"p4 -s src/test/resources/java/widgetsIdentification/WidgetClassListener.java");
+		final UIDataBatchAnalyser sequential = new UIDataBatchAnalyser(manifest, outDir.resolve("seq").toFile(), 1);
+		final UIDataBatchAnalyser concurrent = new UIDataBatchAnalyser(manifest, outDir.resolve("conc").toFile(), 4);
+
+		assertThat(sequential.run()).isEmpty();
+		assertThat(concurrent.run()).isEmpty();
+		for(final String project : sequential.getProjects()) {
+			// The bindings are written in no particular order.
+			assertThat(UIDataConverter.read(concurrent.getOutputFile(project)).getWidgetBindings())
+				.containsExactlyInAnyOrderElementsOf(UIDataConverter.read(sequential.getOutputFile(project)).getWidgetBindings());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestUIDataDaemon {
+	static final String SRC = "src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java";
+	UIDataDaemon daemon;
+
+	@BeforeEach
+	void setUp() {
+		daemon = new UIDataDaemon(2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		daemon.close();
+	}
+
+	private Map<?, ?> handle(final String request) {
+		return new Klaxon().parseJsonObject(new StringReader(daemon.handle(request)));
+	}
+
+	@Test
+	void testAnalysisRequest() {
+		final Map<?, ?> res = handle("{\"id\": \"a\", \"sources\": [\"" + SRC + "\"]}");
+		assertThat(res.get("id")).isEqualTo("a");
+		assertThat(res.get("status")).isEqualTo("ok");
+		assertThat((List<?>) ((Map<?, ?>) res.get("uiData")).get("widgetBindings")).hasSize(1);
+	}
+
+	@Test
+	void testIncrementalRequestReusesSession() {
+		handle("{\"id\": 1, \"sources\": [\"" + SRC + "\"]}");
+		final Map<?, ?> res = handle("{\"id\": 2, \"sources\": [\"" + SRC + "\"], \"changed\": [\"" + SRC + "\"]}");
+		assertThat(res.get("status")).isEqualTo("ok");
+		assertThat((List<?>) ((Map<?, ?>) res.get("uiData")).get("widgetBindings")).hasSize(1);
+		assertThat(daemon.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testEmptyChangedAnswersPreviousBindings() {
+		handle("{\"id\": 1, \"sources\": [\"" + SRC + "\"]}");
+		final long builds = MetricsHelper.INSTANCE.snapshot().get("model.build")[1];
+		final Map<?, ?> res = handle("{\"id\": 2, \"sources\": [\"" + SRC + "\"], \"changed\": []}");
+		assertThat(res.get("status")).isEqualTo("ok");
+		assertThat((List<?>) ((Map<?, ?>) res.get("uiData")).get("widgetBindings")).hasSize(1);
+		assertThat(MetricsHelper.INSTANCE.snapshot().get("model.build")[1]).isEqualTo(builds);
+	}
+
+	@Test
+	void testInvalidRequest() {
+		final Map<?, ?> res = handle("{\"id\": 3, \"sources\": 12}");
+		assertThat(res.get("id")).isEqualTo(3);
+		assertThat(res.get("status")).isEqualTo("error");
+	}
+
+	@Test
+	void testMalformedRequest() {
+		assertThat(handle("{\"id\": ").get("status")).isEqualTo("error");
+	}
+
+	@Test
+	void testServeAnswersAllRequests() throws IOException {
+		final String requests = "{\"id\": 1, \"sources\": [\"" + SRC + "\"]}\n\n{\"id\": 2, \"sources\": []}\n";
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		daemon.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+		assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).hasSize(2);
+	}
+
+	@Test
+	void testChangedOnNewSessionIsFullAnalysis() {
+		final Map<?, ?> res = handle("{\"id\": 1, \"sources\": [\"" + SRC + "\"], \"changed\": []}");
+		assertThat((List<?>) ((Map<?, ?>) res.get("uiData")).get("widgetBindings")).hasSize(1);
+	}
+
+	@Test
+	void testSessionsBounded() {
+		daemon.close();
+		daemon = new UIDataDaemon(2, 1);
+		handle("{\"id\": 1, \"sources\": [\"" + SRC + "\"]}");
+		handle("{\"id\": 2, \"sources\": [\"" + SRC + "\"], \"classpath\": [\"foo.jar\"]}");
+		assertThat(daemon.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testInvalidMaxSessions() {
+		assertThrows(IllegalArgumentException.class, () -> new UIDataDaemon(1, 0));
+	}
+
+	@Test
+	void testCloseRequest() {
+		handle("{\"id\": 1, \"sources\": [\"" + SRC + "\"]}");
+		final Map<?, ?> res = handle("{\"id\": 2, \"close\": true, \"sources\": [\"" + SRC + "\"]}");
+		assertThat(res.get("status")).isEqualTo("ok");
+		assertThat(res.get("closed")).isEqualTo(true);
+		assertThat(daemon.getSessionCount()).isZero();
+	}
+
+	@Test
+	void testShutdownStopsBlockedServe() throws Exception {
+		try(final PipedOutputStream pipe = new PipedOutputStream(); final PipedInputStream in = new PipedInputStream(pipe)) {
+			final CompletableFuture<Void> served = CompletableFuture.runAsync(() -> {
+				try {
+					daemon.serve(in, new ByteArrayOutputStream());
+				}catch(final IOException ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			// Nothing is written on the pipe: the reading of the input is blocked.
+			handle("{\"id\": 1, \"shutdown\": true}");
+			served.get(10, TimeUnit.SECONDS);
+		}
+	}
+}
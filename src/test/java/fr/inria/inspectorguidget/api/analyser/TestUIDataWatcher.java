@@ -0,0 +1,156 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.analyser;
+
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestUIDataWatcher {
+	@TempDir
+	Path srcDir;
+	Path src;
+	List<UIData> published;
+	UIDataWatcher watcher;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		src = srcDir.resolve("Foo.java");
+		Files.copy(Paths.get("src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java"), src);
+		published = new ArrayList<>();
+		watcher = new UIDataWatcher(Collections.singletonList(srcDir.toString()), new String[0], published::add);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		watcher.close();
+	}
+
+	@Test
+	void testFullAnalysis() {
+		assertThat(watcher.analyse(null).getWidgetBindings()).hasSize(1);
+	}
+
+	@Test
+	void testChangedFileDoesNotDuplicateBindings() {
+		watcher.analyse(null);
+		assertThat(watcher.analyse(Set.of(src)).getWidgetBindings()).hasSize(1);
+	}
+
+	@Test
+	void testUnchangedFilesReused() throws IOException {
+		watcher.analyse(null);
+		final Path other = srcDir.resolve("Bar.java");
+		Files.writeString(other, "class Bar {}");
+		assertThat(watcher.analyse(Set.of(other)).getWidgetBindings()).hasSize(1);
+	}
+
+	@Test
+	void testRemovedFile() throws IOException {
+		watcher.analyse(null);
+		Files.delete(src);
+		assertThat(watcher.analyse(Set.of(src)).getWidgetBindings()).isEmpty();
+	}
+
+	@Test
+	void testIncrementalSameAsFullWithWidgetInOtherFile() throws IOException {
+		Files.delete(src);
+		final Path widgets = srcDir.resolve("Widgets.java");
+		final Path listener = srcDir.resolve("Listener.java");
+		Files.writeString(widgets, "import javax.swing.JButton;\n" +
+			"class Widgets {\n" +
+			"  JButton b = new JButton();\n" +
+			"}\n");
+		Files.writeString(listener, listenerCode("a"));
+		watcher.analyse(null);
+
+		Files.writeString(listener, listenerCode("b"));
+		final UIData incremental = watcher.analyse(Set.of(listener));
+		final UIData full;
+		try(final UIDataWatcher fullWatcher = new UIDataWatcher(Collections.singletonList(srcDir.toString()), new String[0], data -> { })) {
+			full = fullWatcher.analyse(null);
+		}
+
+		assertThat(full.getWidgetBindings()).hasSize(1);
+		assertThat(full.getWidgetBindings().get(0).getWidgets()).hasSize(1);
+		assertThat(incremental).isEqualTo(full);
+	}
+
+	@Test
+	void testIncrementalSameAsFullWithListenerClassInOtherFile() throws IOException {
+		Files.delete(src);
+		final Path widgets = srcDir.resolve("Widgets.java");
+		Files.writeString(srcDir.resolve("Handler.java"), "import java.awt.event.ActionEvent;\n" +
+			"import java.awt.event.ActionListener;\n" +
+			"class Handler implements ActionListener {\n" +
+			"  @Override\n" +
+			"  public void actionPerformed(ActionEvent e) {\n" +
+			"    System.out.println(\"a\");\n" +
+			"  }\n" +
+			"}\n");
+		Files.writeString(widgets, widgetsCode(false));
+		final UIData first = watcher.analyse(null);
+
+		// The unchanged file of the listener class must be analysed again: a new widget of the changed file uses it.
+		Files.writeString(widgets, widgetsCode(true));
+		final UIData incremental = watcher.analyse(Set.of(widgets));
+		final UIData full;
+		try(final UIDataWatcher fullWatcher = new UIDataWatcher(Collections.singletonList(srcDir.toString()), new String[0], data -> { })) {
+			full = fullWatcher.analyse(null);
+		}
+
+		assertThat(full).isNotEqualTo(first);
+		assertThat(incremental).isEqualTo(full);
+	}
+
+	static String widgetsCode(final boolean twoButtons) {
+		return "import javax.swing.JButton;\n" +
+			"class Widgets {\n" +
+			"  JButton b = new JButton();\n" +
+			(twoButtons ? "  JButton c = new JButton();\n" : "") +
+			"  Widgets() {\n" +
+			"    b.addActionListener(new Handler());\n" +
+			(twoButtons ? "    c.addActionListener(new Handler());\n" : "") +
+			"  }\n" +
+			"}\n";
+	}
+
+	static String listenerCode(final String msg) {
+		return "import java.awt.event.ActionEvent;\n" +
+			"import java.awt.event.ActionListener;\n" +
+			"class Listener {\n" +
+			"  Listener(final Widgets w) {\n" +
+			"    w.b.addActionListener(new ActionListener() {\n" +
+			"      @Override\n" +
+			"      public void actionPerformed(ActionEvent e) {\n" +
+			"        System.out.println(\"" + msg + "\");\n" +
+			"      }\n" +
+			"    });\n" +
+			"  }\n" +
+			"}\n";
+	}
+}
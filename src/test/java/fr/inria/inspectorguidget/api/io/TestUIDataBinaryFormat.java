@@ -0,0 +1,107 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestUIDataBinaryFormat {
+	static String json;
+	static UIData data;
+
+	@TempDir
+	Path dir;
+
+	@BeforeAll
+	static void setUp() throws IOException {
+		json = Files.readString(Paths.get("uiData-argouml.json"), StandardCharsets.UTF_8);
+		data = new UIDataJsonReader().read(json);
+	}
+
+	static byte[] toBinary(final UIData uiData) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new UIDataBinaryWriter().write(uiData, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	void testBinaryRoundTrip() throws IOException {
+		final UIData read = new UIDataBinaryReader().read(new ByteArrayInputStream(toBinary(data)));
+		assertThat(read.getWidgetBindings()).isNotEmpty();
+		assertThat(read).isEqualTo(data);
+	}
+
+	@Test
+	void testJsonRoundTrip() throws IOException {
+		final StringWriter out = new StringWriter();
+		try(final UIDataJsonWriter writer = new UIDataJsonWriter(out)) {
+			new UIDataBinaryReader().read(new ByteArrayInputStream(toBinary(data))).getWidgetBindings().forEach(writer);
+		}
+		final Klaxon klaxon = new Klaxon();
+		assertThat(klaxon.parseJsonObject(new StringReader(out.toString()))).isEqualTo(klaxon.parseJsonObject(new StringReader(json)));
+	}
+
+	@Test
+	void testBinarySmallerThanJson() throws IOException {
+		assertThat(toBinary(data).length).isLessThan(json.getBytes(StandardCharsets.UTF_8).length / 10);
+	}
+
+	@Test
+	void testEmptyData() throws IOException {
+		final UIData empty = new UIDataJsonReader().read("{\"widgetBindings\": []}");
+		assertThat(new UIDataBinaryReader().read(new ByteArrayInputStream(toBinary(empty)))).isEqualTo(empty);
+	}
+
+	@Test
+	void testNotBinaryDocument() {
+		assertThrows(IOException.class, () -> new UIDataBinaryReader().read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	void testTruncatedDocument() throws IOException {
+		final byte[] bytes = toBinary(data);
+		assertThrows(IOException.class, () -> new UIDataBinaryReader().read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length / 2))));
+	}
+
+	@Test
+	void testConverter() throws IOException {
+		final Path bin = dir.resolve("argouml" + UIDataBinaryWriter.EXTENSION);
+		final Path back = dir.resolve("argouml.json");
+		UIDataConverter.main(new String[] {"uiData-argouml.json", bin.toString()});
+		UIDataConverter.main(new String[] {bin.toString(), back.toString()});
+		assertThat(UIDataConverter.read(back)).isEqualTo(data);
+	}
+
+	@Test
+	void testInvalidJson() {
+		assertThrows(IllegalArgumentException.class, () -> new UIDataJsonReader().read("{\"widgetBindings\": [{\"cmd\": 1}]}"));
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.io;
+
+import com.beust.klaxon.Klaxon;
+import fr.inria.inspectorguidget.api.analyser.UIDataAnalyser;
+import fr.inria.inspectorguidget.data.UIData;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestUIDataJsonWriter {
+	static final String SRC = "src/test/resources/java/widgetsIdentification/AnonClassOnSingleFieldWidgetNoCond.java";
+
+	@SuppressWarnings("unchecked")
+	static List<Object> getBindings(final String json) {
+		return (List<Object>) new Klaxon().parseJsonObject(new StringReader(json)).get("widgetBindings");
+	}
+
+	@Test
+	void testEmptyDocument() throws IOException {
+		final StringWriter out = new StringWriter();
+		new UIDataJsonWriter(out).close();
+		assertThat(getBindings(out.toString())).isEmpty();
+	}
+
+	@Test
+	void testWriteAfterClose() throws IOException {
+		final UIDataAnalyser analyser = new UIDataAnalyser();
+		analyser.addInputResource(SRC);
+		final UIData data = analyser.extractUIData();
+		final UIDataJsonWriter writer = new UIDataJsonWriter(new StringWriter());
+		writer.close();
+		assertThrows(IllegalStateException.class, () -> writer.write(data.getWidgetBindings().get(0)));
+	}
+
+	@Test
+	void testEmbeddedDocumentOnOneLine() throws IOException {
+		final UIDataAnalyser analyser = new UIDataAnalyser();
+		analyser.addInputResource(SRC);
+		final StringWriter out = new StringWriter();
+		out.write("{\"uiData\": ");
+		try(final UIDataJsonWriter writer = new UIDataJsonWriter(out, true)) {
+			analyser.extractUIData(writer);
+		}
+		// The stream is not closed by the embedded writer.
+		out.write("}");
+
+		assertThat(out.toString()).doesNotContain("\n");
+		assertThat(getBindings(out.toString().substring("{\"uiData\": ".length(), out.toString().length() - 1))).hasSize(1);
+	}
+
+	@Test
+	void testSameContentAsKlaxon() throws IOException {
+		final UIDataAnalyser analyser = new UIDataAnalyser();
+		analyser.addInputResource(SRC);
+		final UIData data = analyser.extractUIData();
+
+		final UIDataAnalyser streamingAnalyser = new UIDataAnalyser();
+		streamingAnalyser.addInputResource(SRC);
+		final StringWriter out = new StringWriter();
+		try(final UIDataJsonWriter writer = new UIDataJsonWriter(out)) {
+			streamingAnalyser.extractUIData(writer);
+		}
+
+		assertThat(getBindings(out.toString()))
+			.isNotEmpty()
+			.containsExactlyInAnyOrderElementsOf(getBindings(new Klaxon().toJsonString(data, null)));
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.api.processor;
+
+import fr.inria.inspectorguidget.api.TestInspectorGuidget;
+import fr.inria.inspectorguidget.internal.helper.MetricsHelper;
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import spoon.processing.AbstractProcessor;
+import spoon.processing.Processor;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestFusedProcessingScanner extends TestInspectorGuidget<Processor<? extends CtElement>> {
+	static final String[] SRC = {"src/test/resources/java/listeners/AbstractAction.java",
+		"src/test/resources/java/listeners/JFXEventHandlerLambda.java", "src/test/resources/java/fxml/FXMLAnnotationAttributes.java",
+		"src/test/resources/java/widgets/WidgetAsStdAttr.java", "src/test/resources/java/listeners/MouseListClass.java"};
+
+	ClassListenerProcessor classProc;
+	LambdaListenerProcessor lambdaProc;
+	WidgetProcessor widgetProc;
+	ActionProcessor actionProc;
+	FXMLAnnotationProcessor fxmlProc;
+	ClassCounter counter;
+
+	@Override
+	protected Collection<Processor<? extends CtElement>> createProcessor() {
+		classProc = new ClassListenerProcessor();
+		lambdaProc = new LambdaListenerProcessor();
+		widgetProc = new WidgetProcessor(true);
+		actionProc = new ActionProcessor();
+		fxmlProc = new FXMLAnnotationProcessor();
+		counter = new ClassCounter();
+		return List.of(classProc, lambdaProc, widgetProc, actionProc, fxmlProc, counter);
+	}
+
+	private void runFused(final int parallelism) {
+		for(final String src : SRC) {
+			modelBuilder.addInputSource(new File(src));
+		}
+		modelBuilder.build();
+		new FusedProcessingScanner(modelBuilder.getFactory(), processors, parallelism)
+			.process(Collections.singletonList(modelBuilder.getFactory().Package().getRootPackage()));
+	}
+
+	@Test
+	void testSameResultsAsSeparatePasses() {
+		runFused(1);
+
+		final ClassListenerProcessor classProc2 = new ClassListenerProcessor();
+		final LambdaListenerProcessor lambdaProc2 = new LambdaListenerProcessor();
+		final WidgetProcessor widgetProc2 = new WidgetProcessor(true);
+		final ActionProcessor actionProc2 = new ActionProcessor();
+		final FXMLAnnotationProcessor fxmlProc2 = new FXMLAnnotationProcessor();
+		modelBuilder.process(List.<Processor<? extends CtElement>>of(classProc2, lambdaProc2, widgetProc2, actionProc2, fxmlProc2));
+
+		assertThat(classProc.getAllListenerMethods()).isEqualTo(classProc2.getAllListenerMethods());
+		assertThat(lambdaProc.getAllListenerLambdas()).isEqualTo(lambdaProc2.getAllListenerLambdas());
+		assertThat(actionProc.getActions()).isEqualTo(actionProc2.getActions());
+		assertThat(fxmlProc.getFieldAnnotations()).isEqualTo(fxmlProc2.getFieldAnnotations());
+		assertThat(widgetProc.getWidgetUsages()).hasSameSizeAs(widgetProc2.getWidgetUsages());
+		assertThat(classProc.getAllListenerMethods()).isNotEmpty();
+		assertThat(lambdaProc.getAllListenerLambdas()).isNotEmpty();
+		assertThat(actionProc.getActions()).isNotEmpty();
+		assertThat(fxmlProc.getFieldAnnotations()).isNotEmpty();
+		assertThat(widgetProc.getWidgetUsages()).isNotEmpty();
+	}
+
+	@Test
+	void testParallelSameResultsAsSequential() {
+		runFused(4);
+
+		final ClassListenerProcessor classProc2 = new ClassListenerProcessor();
+		final LambdaListenerProcessor lambdaProc2 = new LambdaListenerProcessor();
+		final WidgetProcessor widgetProc2 = new WidgetProcessor(true);
+		final ActionProcessor actionProc2 = new ActionProcessor();
+		final FXMLAnnotationProcessor fxmlProc2 = new FXMLAnnotationProcessor();
+		new FusedProcessingScanner(modelBuilder.getFactory(), List.of(classProc2, lambdaProc2, widgetProc2, actionProc2, fxmlProc2))
+			.process(Collections.singletonList(modelBuilder.getFactory().Package().getRootPackage()));
+
+		assertThat(classProc.getAllListenerMethods()).isEqualTo(classProc2.getAllListenerMethods());
+		assertThat(lambdaProc.getAllListenerLambdas()).isEqualTo(lambdaProc2.getAllListenerLambdas());
+		assertThat(actionProc.getActions()).isEqualTo(actionProc2.getActions());
+		assertThat(fxmlProc.getFieldAnnotations()).isEqualTo(fxmlProc2.getFieldAnnotations());
+		assertThat(fxmlProc.getMethodAnnotations()).isEqualTo(fxmlProc2.getMethodAnnotations());
+		assertThat(widgetProc.getWidgetUsages()).isEqualTo(widgetProc2.getWidgetUsages());
+	}
+
+	@Test
+	void testEachElementVisitedOnce() {
+		runFused(1);
+		assertThat(counter.nbProcessed.get()).isEqualTo(modelBuilder.getFactory().getModel().getElements(new TypeFilter<>(CtClass.class)).size());
+		assertThat(counter.nbDone).isEqualTo(1);
+	}
+
+	@Test
+	void testEachElementVisitedOnceInParallel() {
+		runFused(4);
+		assertThat(counter.nbProcessed.get()).isEqualTo(modelBuilder.getFactory().getModel().getElements(new TypeFilter<>(CtClass.class)).size());
+		assertThat(counter.nbDone).isEqualTo(1);
+	}
+
+	@Test
+	void testTimePerProcessorMeasured() {
+		for(final String src : SRC) {
+			modelBuilder.addInputSource(new File(src));
+		}
+		modelBuilder.build();
+		final MetricsHelper metrics = new MetricsHelper(null);
+		new FusedProcessingScanner(modelBuilder.getFactory(), processors, 4, metrics)
+			.process(Collections.singletonList(modelBuilder.getFactory().Package().getRootPackage()));
+
+		final Map<String, long[]> values = metrics.snapshot();
+		assertThat(values).containsKeys("process.traversal", "process.ClassListenerProcessor", "process.WidgetProcessor",
+			"processingDone.ClassListenerProcessor");
+		// The items are the processed elements.
+		assertThat(values.get("process.ClassCounter")[2]).isEqualTo(counter.nbProcessed.get());
+		assertThat(values.get("process.ClassCounter")[0]).isPositive();
+	}
+
+	static class ClassCounter extends AbstractProcessor<CtClass<?>> {
+		final AtomicInteger nbProcessed = new AtomicInteger();
+		int nbDone;
+
+		@Override
+		public void process(final CtClass<?> element) {
+			nbProcessed.incrementAndGet();
+		}
+
+		@Override
+		public void processingDone() {
+			nbDone++;
+		}
+	}
+}
@@ -60,6 +60,12 @@ public class TestWidgetProcessor extends TestInspectorGuidget<WidgetProcessor> {
 		assertThat(wproc.getWidgetUsages().stream().filter(u -> u.creation.isPresent()).count()).isEqualTo(1L);
 	}
 
+	@Test
+	public void testWidgetVarUsedAfterProcessing() {
+		run("src/test/resources/java/widgets/WidgetAsStdAttr.java");
+		assertThat(wproc.getWidgetUsages().stream().allMatch(u -> wproc.isWidgetVarUsed(u.widgetVar))).isTrue();
+	}
+
 	@Test
 	public void testWidgetsAsListAttr() {
 		run("src/test/resources/java/widgets/WidgetAsListAttr.java");
@@ -0,0 +1,343 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Generates compilable GUI source code to measure how the analyses scale.
+ * Each generated class is a panel that declares widgets and one listener (a class listener or a lambda) that dispatches
+ * its commands, possibly through a chain of methods, on the action command (or its toolkit equivalent) of the event:
+ * <pre>
+ * if(CMD_0_0.equals(e.getActionCommand())) {
+ *   ... // nested conditionals
+ *   return;
+ * }else if(...)
+ * </pre>
+ * The generation is deterministic: the same parameters always produce the same sources.
+ */
+public class GUICorpusGenerator {
+	public enum Toolkit {
+		SWING, AWT, JAVAFX, SWT
+	}
+
+	public enum LiteralSharing {
+		/** The action command literals are repeated in the listener and in the widget configuration. */
+		LITERAL,
+		/** The action commands are constants shared by the listener and the widget configuration. */
+		CONSTANT
+	}
+
+	private @NotNull Toolkit toolkit;
+	private int listenerClasses;
+	/** The percentage of listeners that are lambdas instead of classes. */
+	private int lambdaPercentage;
+	private int commandsPerListener;
+	private int nestingDepth;
+	private int dispatchChainLength;
+	private int widgetsPerClass;
+	private @NotNull LiteralSharing literalSharing;
+	private @NotNull String pkg;
+
+	public GUICorpusGenerator() {
+		super();
+		toolkit = Toolkit.SWING;
+		listenerClasses = 10;
+		lambdaPercentage = 0;
+		commandsPerListener = 3;
+		nestingDepth = 1;
+		dispatchChainLength = 0;
+		widgetsPerClass = 3;
+		literalSharing = LiteralSharing.CONSTANT;
+		pkg = "generated";
+	}
+
+	public @NotNull GUICorpusGenerator toolkit(final @NotNull Toolkit tk) {
+		toolkit = tk;
+		return this;
+	}
+
+	public @NotNull GUICorpusGenerator listenerClasses(final int nb) {
+		listenerClasses = nb;
+		return this;
+	}
+
+	/**
+	 * @param percentage The percentage (0-100) of the listeners that are lambdas instead of classes.
+	 */
+	public @NotNull GUICorpusGenerator lambdaPercentage(final int percentage) {
+		lambdaPercentage = Math.max(0, Math.min(100, percentage));
+		return this;
+	}
+
+	public @NotNull GUICorpusGenerator commandsPerListener(final int nb) {
+		commandsPerListener = Math.max(1, nb);
+		return this;
+	}
+
+	/**
+	 * @param depth The number of conditional statements nested in each command.
+	 */
+	public @NotNull GUICorpusGenerator nestingDepth(final int depth) {
+		nestingDepth = Math.max(0, depth);
+		return this;
+	}
+
+	/**
+	 * @param length The number of methods called from the listener to reach the commands. 0 means that the commands
+	 * are in the listener.
+	 */
+	public @NotNull GUICorpusGenerator dispatchChainLength(final int length) {
+		dispatchChainLength = Math.max(0, length);
+		return this;
+	}
+
+	public @NotNull GUICorpusGenerator widgetsPerClass(final int nb) {
+		widgetsPerClass = Math.max(1, nb);
+		return this;
+	}
+
+	public @NotNull GUICorpusGenerator literalSharing(final @NotNull LiteralSharing sharing) {
+		literalSharing = sharing;
+		return this;
+	}
+
+	public @NotNull GUICorpusGenerator packageName(final @NotNull String name) {
+		pkg = name;
+		return this;
+	}
+
+	/**
+	 * @return True if the listener of the given class is a lambda.
+	 */
+	public boolean isLambdaListener(final int classIndex) {
+		// Spreading the lambdas among the classes.
+		return (classIndex + 1) * lambdaPercentage / 100 != classIndex * lambdaPercentage / 100;
+	}
+
+	/**
+	 * @return The generated sources: the simple name of each class mapped to its source code.
+	 */
+	public @NotNull Map<String, String> generateSources() {
+		final Map<String, String> sources = new LinkedHashMap<>();
+		for(int i = 0; i < listenerClasses; i++) {
+			sources.put("Panel" + i, generateClass(i));
+		}
+		return sources;
+	}
+
+	/**
+	 * Writes the generated sources in the given folder (in the sub-folders of the package).
+	 * @return The written files.
+	 * @throws IOException If a file cannot be written.
+	 */
+	public @NotNull List<Path> generate(final @NotNull Path outputDir) throws IOException {
+		final Path dir = outputDir.resolve(pkg.replace('.', '/'));
+		final List<Path> files = new ArrayList<>();
+		Files.createDirectories(dir);
+
+		for(final Map.Entry<String, String> src : generateSources().entrySet()) {
+			final Path file = dir.resolve(src.getKey() + ".java");
+			Files.write(file, src.getValue().getBytes(StandardCharsets.UTF_8));
+			files.add(file);
+		}
+		return files;
+	}
+
+	private @NotNull String generateClass(final int i) {
+		final boolean lambda = isLambdaListener(i);
+		final String className = "Panel" + i;
+		final StringBuilder sb = new StringBuilder();
+
+		sb.append("package ").append(pkg).append(";\n\n");
+		sb.append(imports());
+		sb.append("public class ").append(className);
+		if(!lambda) {
+			sb.append(" implements ").append(listenerType());
+		}
+		sb.append(" {\n");
+
+		if(literalSharing == LiteralSharing.CONSTANT) {
+			for(int j = 0; j < commandsPerListener; j++) {
+				sb.append("\tpublic static final String ").append(constant(i, j)).append(" = \"").append(literal(i, j)).append("\";\n");
+			}
+		}
+		sb.append("\tint counter;\n");
+		for(int k = 0; k < widgetsPerClass; k++) {
+			sb.append("\t").append(widgetType()).append(" widget").append(k).append(";\n");
+		}
+
+		// The constructor creates and configures the widgets.
+		sb.append("\n\tpublic ").append(className).append('(').append(toolkit == Toolkit.SWT ? "org.eclipse.swt.widgets.Composite parent" : "").append(") {\n");
+		for(int k = 0; k < widgetsPerClass; k++) {
+			final String w = "widget" + k;
+			sb.append("\t\t").append(w).append(" = ").append(widgetCreation()).append(";\n");
+			sb.append("\t\t").append(setCommand(w, commandRef(i, k % commandsPerListener))).append(";\n");
+			if(!lambda) {
+				sb.append("\t\t").append(register(w, "this")).append(";\n");
+			}
+		}
+		if(lambda) {
+			sb.append("\t\tfinal ").append(listenerType()).append(" listener = e -> {\n");
+			appendListenerBody(sb, i, 3);
+			sb.append("\t\t};\n");
+			for(int k = 0; k < widgetsPerClass; k++) {
+				sb.append("\t\t").append(register("widget" + k, "listener")).append(";\n");
+			}
+		}
+		sb.append("\t}\n");
+
+		if(!lambda) {
+			sb.append("\n\t@Override\n\tpublic void ").append(listenerMethod()).append('(').append(eventType()).append(" e) {\n");
+			appendListenerBody(sb, i, 2);
+			sb.append("\t}\n");
+		}
+
+		// The chain of dispatch methods: the last one contains the commands.
+		for(int c = 0; c < dispatchChainLength; c++) {
+			sb.append("\n\tvoid dispatch").append(c).append('(').append(eventType()).append(" e) {\n");
+			if(c == dispatchChainLength - 1) {
+				appendCommands(sb, i, 2);
+			}else {
+				sb.append("\t\tdispatch").append(c + 1).append("(e);\n");
+			}
+			sb.append("\t}\n");
+		}
+
+		return sb.append("}\n").toString();
+	}
+
+	private void appendListenerBody(final @NotNull StringBuilder sb, final int i, final int indent) {
+		if(dispatchChainLength == 0) {
+			appendCommands(sb, i, indent);
+		}else {
+			sb.append("\t".repeat(indent)).append("dispatch0(e);\n");
+		}
+	}
+
+	private void appendCommands(final @NotNull StringBuilder sb, final int i, final int indent) {
+		final String tabs = "\t".repeat(indent);
+		for(int j = 0; j < commandsPerListener; j++) {
+			sb.append(j == 0 ? tabs + "if(" : "else if(").append(commandRef(i, j)).append(".equals(").append(eventCommand()).append(")) {\n");
+			appendNestedBlock(sb, i, j, indent + 1, 0);
+			sb.append(tabs).append("\treturn;\n").append(tabs).append('}');
+		}
+		sb.append('\n');
+	}
+
+	private void appendNestedBlock(final @NotNull StringBuilder sb, final int i, final int j, final int indent, final int depth) {
+		final String tabs = "\t".repeat(indent + depth);
+		if(depth == nestingDepth) {
+			sb.append(tabs).append("counter += ").append(j + 1).append(";\n");
+			sb.append(tabs).append("System.out.println(\"command ").append(i).append(' ').append(j).append(": \" + counter);\n");
+			return;
+		}
+		sb.append(tabs).append("if(counter > ").append(depth).append(") {\n");
+		appendNestedBlock(sb, i, j, indent, depth + 1);
+		sb.append(tabs).append("}else {\n");
+		sb.append(tabs).append("\tcounter--;\n");
+		sb.append(tabs).append("}\n");
+	}
+
+	private @NotNull String literal(final int i, final int j) {
+		return "cmd_" + i + '_' + j;
+	}
+
+	private @NotNull String constant(final int i, final int j) {
+		return "CMD_" + i + '_' + j;
+	}
+
+	private @NotNull String commandRef(final int i, final int j) {
+		return literalSharing == LiteralSharing.CONSTANT ? constant(i, j) : '"' + literal(i, j) + '"';
+	}
+
+	private @NotNull String imports() {
+		switch(toolkit) {
+			case SWING: return "import java.awt.event.ActionEvent;\nimport java.awt.event.ActionListener;\nimport javax.swing.JButton;\n\n";
+			case AWT: return "import java.awt.Button;\nimport java.awt.event.ActionEvent;\nimport java.awt.event.ActionListener;\n\n";
+			case JAVAFX: return "import javafx.event.ActionEvent;\nimport javafx.event.EventHandler;\nimport javafx.scene.Node;\nimport javafx.scene.control.Button;\n\n";
+			default: return "import org.eclipse.swt.SWT;\nimport org.eclipse.swt.widgets.Button;\nimport org.eclipse.swt.widgets.Event;\nimport org.eclipse.swt.widgets.Listener;\n\n";
+		}
+	}
+
+	private @NotNull String listenerType() {
+		switch(toolkit) {
+			case SWING:
+			case AWT: return "ActionListener";
+			case JAVAFX: return "EventHandler<ActionEvent>";
+			default: return "Listener";
+		}
+	}
+
+	private @NotNull String listenerMethod() {
+		switch(toolkit) {
+			case SWING:
+			case AWT: return "actionPerformed";
+			case JAVAFX: return "handle";
+			default: return "handleEvent";
+		}
+	}
+
+	private @NotNull String eventType() {
+		return toolkit == Toolkit.SWT ? "Event" : "ActionEvent";
+	}
+
+	private @NotNull String widgetType() {
+		return toolkit == Toolkit.SWING ? "JButton" : "Button";
+	}
+
+	private @NotNull String widgetCreation() {
+		switch(toolkit) {
+			case SWING: return "new JButton()";
+			case SWT: return "new Button(parent, SWT.PUSH)";
+			default: return "new Button()";
+		}
+	}
+
+	private @NotNull String setCommand(final @NotNull String widget, final @NotNull String cmd) {
+		switch(toolkit) {
+			case SWING:
+			case AWT: return widget + ".setActionCommand(" + cmd + ')';
+			case JAVAFX: return widget + ".setId(" + cmd + ')';
+			default: return widget + ".setData(" + cmd + ')';
+		}
+	}
+
+	private @NotNull String register(final @NotNull String widget, final @NotNull String listener) {
+		switch(toolkit) {
+			case SWING:
+			case AWT: return widget + ".addActionListener(" + listener + ')';
+			case JAVAFX: return widget + ".setOnAction(" + listener + ')';
+			default: return widget + ".addListener(SWT.Selection, " + listener + ')';
+		}
+	}
+
+	private @NotNull String eventCommand() {
+		switch(toolkit) {
+			case SWING:
+			case AWT: return "e.getActionCommand()";
+			case JAVAFX: return "((Node) e.getSource()).getId()";
+			default: return "e.widget.getData()";
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.generator;
+
+import fr.inria.inspectorguidget.api.analyser.CommandAnalyser;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestGUICorpusGenerator {
+	@TempDir
+	Path dir;
+
+	@Test
+	void testGeneratedSourcesCompile() throws IOException {
+		for(final GUICorpusGenerator.Toolkit toolkit : GUICorpusGenerator.Toolkit.values()) {
+			assertCompiles(toolkit);
+		}
+	}
+
+	private void assertCompiles(final GUICorpusGenerator.Toolkit toolkit) throws IOException {
+		final List<Path> files = new GUICorpusGenerator()
+			.toolkit(toolkit)
+			.packageName("generated." + toolkit.name().toLowerCase())
+			.listenerClasses(4)
+			.lambdaPercentage(50)
+			.nestingDepth(2)
+			.dispatchChainLength(1)
+			.literalSharing(GUICorpusGenerator.LiteralSharing.LITERAL)
+			.generate(dir.resolve("src"));
+
+		final List<String> args = new ArrayList<>(List.of("-d", dir.resolve("bin").toString(), "-cp", System.getProperty("java.class.path")));
+		args.addAll(files.stream().map(Path::toString).collect(Collectors.toList()));
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+		assertThat(files).hasSize(4);
+		assertThat(compiler.run(null, null, null, args.toArray(new String[0]))).isEqualTo(0);
+	}
+
+	@Test
+	void testSameParametersSameSources() {
+		assertThat(new GUICorpusGenerator().lambdaPercentage(30).generateSources())
+			.isEqualTo(new GUICorpusGenerator().lambdaPercentage(30).generateSources());
+	}
+
+	@Test
+	void testLambdaPercentage() {
+		final GUICorpusGenerator gen = new GUICorpusGenerator().lambdaPercentage(25);
+		assertThat(IntStream.range(0, 100).filter(gen::isLambdaListener).count()).isEqualTo(25L);
+	}
+
+	@Test
+	void testCommandsFound() throws IOException {
+		new GUICorpusGenerator().listenerClasses(5).commandsPerListener(4).generate(dir);
+		final CommandAnalyser analyser = new CommandAnalyser();
+		analyser.addInputResource(dir.toString());
+		analyser.run();
+
+		assertThat(analyser.getCommands()).hasSize(5);
+		assertThat(analyser.getCommands().values().stream().mapToLong(c -> c.getNbTotalCmds()).sum()).isEqualTo(20L);
+	}
+}
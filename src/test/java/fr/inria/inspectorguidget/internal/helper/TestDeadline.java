@@ -0,0 +1,53 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestDeadline {
+	@Test
+	void testNoBudget() {
+		assertThat(Deadline.after(null)).isSameAs(Deadline.NONE);
+		assertThat(Deadline.NONE.isExpired()).isFalse();
+		assertThat(Deadline.NONE.getBudget()).isNull();
+		Deadline.NONE.check();
+	}
+
+	@Test
+	void testNotExpired() {
+		final Deadline deadline = Deadline.after(Duration.ofHours(1));
+		assertThat(deadline.isExpired()).isFalse();
+		assertThat(deadline.getBudget()).isEqualTo(Duration.ofHours(1));
+		deadline.check();
+	}
+
+	@Test
+	void testExpired() throws InterruptedException {
+		final Deadline deadline = Deadline.after(Duration.ofNanos(1));
+		Thread.sleep(1);
+		assertThat(deadline.isExpired()).isTrue();
+		assertThrows(Deadline.ExceededException.class, deadline::check);
+	}
+
+	@Test
+	void testInvalidBudgets() {
+		assertThrows(IllegalArgumentException.class, () -> Deadline.after(Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> Deadline.after(Duration.ofMillis(-1)));
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtIf;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestDefUseIndex {
+	CtMethod<?> method;
+	CtLocalVariable<?> a;
+	CtLocalVariable<?> b;
+
+	@BeforeEach
+	void setUp() {
+		method = Launcher.parseClass(
+			"class A {\n" +
+			"  void m() {\n" +
+			"    int a = 1;\n" +
+			"    int b = a + 1;\n" +
+			"    a = b;\n" +
+			"    if(b > 0) {\n" +
+			"      System.out.println(a);\n" +
+			"    }\n" +
+			"  }\n" +
+			"}").getMethodsByName("m").get(0);
+		a = method.getElements(new TypeFilter<>(CtLocalVariable.class)).get(0);
+		b = method.getElements(new TypeFilter<>(CtLocalVariable.class)).get(1);
+	}
+
+	@Test
+	void testIndexAttachedToExecutable() {
+		final DefUseIndex index = DefUseIndex.of(method);
+		assertThat(DefUseIndex.of(method)).isSameAs(index);
+		assertThat(index.getExecutable()).isSameAs(method);
+		DefUseIndex.invalidate(method);
+		assertThat(DefUseIndex.of(method)).isNotSameAs(index);
+	}
+
+	@Test
+	void testBuildMeasuredInGivenMetrics() {
+		final MetricsHelper metrics = new MetricsHelper(null);
+		final DefUseIndex index = DefUseIndex.of(method, metrics);
+		assertThat(metrics.snapshot().get("index.defUse")[1]).isEqualTo(1L);
+		// Already built: nothing measured.
+		assertThat(DefUseIndex.of(method, metrics)).isSameAs(index);
+		assertThat(metrics.snapshot().get("index.defUse")[1]).isEqualTo(1L);
+	}
+
+	@Test
+	void testDeclarations() {
+		assertThat(DefUseIndex.of(method).isDeclaredHere(a)).isTrue();
+		assertThat(DefUseIndex.of(method).isDeclaredHere(b)).isTrue();
+	}
+
+	@Test
+	void testUsesSortedByLine() {
+		assertThat(DefUseIndex.of(method).getUses(a).stream().map(acc -> acc.getPosition().getLine()).collect(Collectors.toList()))
+			.containsExactly(4, 5, 7);
+		assertThat(DefUseIndex.of(method).getUses(b)).hasSize(2);
+	}
+
+	@Test
+	void testUsesUntilLine() {
+		assertThat(DefUseIndex.of(method).getUsesUntilLine(a, 5)).hasSize(2);
+		assertThat(DefUseIndex.of(method).getUsesUntilLine(a, 3)).isEmpty();
+		assertThat(DefUseIndex.of(method).getUsesUntilLine(a, 10)).isEqualTo(DefUseIndex.of(method).getUses(a));
+	}
+
+	@Test
+	void testLocalVariablesUsedIn() {
+		final CtIf ifStat = method.getElements(new TypeFilter<>(CtIf.class)).get(0);
+		assertThat(DefUseIndex.of(method).getLocalVariablesUsedIn(ifStat)).containsExactly(b, a);
+		assertThat(DefUseIndex.of(method).getLocalVariablesUsedIn(ifStat.getThenStatement())).containsExactly(a);
+	}
+
+	@Test
+	void testLocalVariableClosure() {
+		final CtIf ifStat = method.getElements(new TypeFilter<>(CtIf.class)).get(0);
+		assertThat(DefUseIndex.of(method).getLocalVariableClosure(ifStat.getCondition())).containsExactlyInAnyOrder(a, b);
+		assertThat(DefUseIndex.of(method).getLocalVariableClosure(a)).isEmpty();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import fr.inria.inspectorguidget.api.analyser.CommandAnalyser;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtIf;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.reference.CtParameterReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestGUIParamTaint {
+	CtMethod<?> method;
+	List<CtLocalVariable<?>> vars;
+	List<CtIf> ifs;
+
+	@BeforeEach
+	void setUp() {
+		method = Launcher.parseClass(
+			"class A {\n" +
+			"  void m(Object evt) {\n" +
+			"    Object a = evt;\n" +
+			"    Object b = null;\n" +
+			"    Object x = null;\n" +
+			"    Object y = x;\n" +
+			"    int c = 1;\n" +
+			"    b = a;\n" +
+			"    x = y;\n" +
+			"    if(b != null) { }\n" +
+			"    if(c > 0) { }\n" +
+			"    if(y != null) { }\n" +
+			"    y = b;\n" +
+			"  }\n" +
+			"}").getMethodsByName("m").get(0);
+		vars = method.getElements(new TypeFilter<>(CtLocalVariable.class));
+		ifs = method.getElements(new TypeFilter<>(CtIf.class));
+	}
+
+	@Test
+	void testTaintedVariables() {
+		final GUIParamTaint taint = GUIParamTaint.of(method);
+		assertThat(vars).filteredOn(var -> taint.isTainted(var)).extracting(var -> var.getSimpleName())
+			.containsExactlyInAnyOrder("a", "b", "x", "y");
+	}
+
+	@Test
+	void testConditionals() {
+		final GUIParamTaint taint = GUIParamTaint.of(method);
+		assertThat(taint.conditionalUsesGUIParam(ifs.get(0))).isTrue();
+		assertThat(taint.conditionalUsesGUIParam(ifs.get(1))).isFalse();
+		assertThat(taint.conditionalUsesGUIParam(ifs.get(2))).isTrue();
+	}
+
+	@Test
+	void testNoGUIParam() {
+		final GUIParamTaint taint = new GUIParamTaint(method.getBody(), List.of());
+		assertThat(vars).noneMatch(var -> taint.isTainted(var));
+		assertThat(taint.conditionalUsesGUIParam(ifs.get(0))).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void testDeprecatedDelegatesSameAsTaint() {
+		final List<CtParameterReference<?>> params = method.getParameters().stream().map(p -> p.getReference()).collect(Collectors.toList());
+		final GUIParamTaint taint = GUIParamTaint.of(method);
+
+		for(final CtIf cond : ifs) {
+			assertThat(CommandAnalyser.conditionalUsesGUIParam(cond, params, method.getBody())).isEqualTo(taint.conditionalUsesGUIParam(cond));
+			assertThat(CommandAnalyser.elementUsesGUIParam(cond.getCondition(), params, method.getBody(), new HashSet<>()))
+				.isEqualTo(taint.usesGUIParam(cond.getCondition()));
+		}
+	}
+
+	@Test
+	void testCached() {
+		assertThat(GUIParamTaint.of(method)).isSameAs(GUIParamTaint.of(method));
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.factory.FactoryImpl;
+import spoon.support.DefaultCoreFactory;
+import spoon.support.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestToolkitRegistry {
+	private static Factory createFactory() {
+		return new FactoryImpl(new DefaultCoreFactory(), new StandardEnvironment());
+	}
+
+	@Test
+	void testOneRegistryPerFactory() {
+		final Factory factory1 = createFactory();
+		final Factory factory2 = createFactory();
+
+		assertThat(ToolkitRegistry.of(factory1)).isSameAs(ToolkitRegistry.of(factory1));
+		assertThat(ToolkitRegistry.of(factory1)).isNotSameAs(ToolkitRegistry.of(factory2));
+		assertThat(WidgetHelper.INSTANCE.getWidgetTypes(factory1)).allMatch(type -> type.getFactory() == factory1);
+		assertThat(WidgetHelper.INSTANCE.getAWTListenersRef(factory2)).allMatch(type -> type.getFactory() == factory2);
+	}
+
+	@Test
+	void testConcurrentAccessesShareTheRegistry() {
+		final List<Factory> factories = List.of(createFactory(), createFactory());
+		final Set<ToolkitRegistry> registries = ConcurrentHashMap.newKeySet();
+
+		IntStream.range(0, 100).parallel().forEach(i -> registries.add(ToolkitRegistry.of(factories.get(i % 2))));
+
+		assertThat(registries).hasSize(2);
+	}
+
+	@Test
+	void testConcurrentTypeResolutionsOnOneFactory() {
+		final CtClass<?> listener = Launcher.parseClass("class L implements java.awt.event.ActionListener, java.awt.event.MouseListener {" +
+			"public void actionPerformed(java.awt.event.ActionEvent e) {} public void mouseClicked(java.awt.event.MouseEvent e) {}" +
+			"public void mousePressed(java.awt.event.MouseEvent e) {} public void mouseReleased(java.awt.event.MouseEvent e) {}" +
+			"public void mouseEntered(java.awt.event.MouseEvent e) {} public void mouseExited(java.awt.event.MouseEvent e) {}}");
+		final List<CtMethod<?>> methods = List.copyOf(listener.getMethods());
+		final Set<CtType<?>> interfaces = ConcurrentHashMap.newKeySet();
+
+		IntStream.range(0, 200).parallel().forEach(i -> {
+			interfaces.add(WidgetHelper.INSTANCE.getListenerInterface(methods.get(i % methods.size())).orElseThrow());
+			assertThat(WidgetHelper.INSTANCE.isListenerClass(listener.getReference(), listener.getFactory(), null)).isTrue();
+		});
+
+		// All the workers find the two listener interfaces.
+		assertThat(interfaces).hasSize(2);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of InspectorGuidget.
+ * InspectorGuidget is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * InspectorGuidget is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with InspectorGuidget.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package fr.inria.inspectorguidget.internal.helper;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.factory.FactoryImpl;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.support.DefaultCoreFactory;
+import spoon.support.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestToolkitSnapshot {
+	static String content;
+	static ToolkitSnapshot snapshot;
+
+	@BeforeAll
+	static void generate() throws IOException {
+		content = ToolkitSnapshot.generate();
+		snapshot = ToolkitSnapshot.read(content, ToolkitSnapshot.fingerprint()).orElseThrow();
+	}
+
+	@Test
+	void testStaleSnapshotIgnored() {
+		assertThat(ToolkitSnapshot.read(content, "java=0;types=0")).isEmpty();
+	}
+
+	@Test
+	void testFingerprintFromJarsAndJavaVersion() {
+		assertThat(ToolkitSnapshot.fingerprint()).startsWith("java=" + Runtime.version() + ";jars=");
+		assertThat(ToolkitSnapshot.fingerprint()).contains(".jar:");
+	}
+
+	@Test
+	void testChangedJarStale() {
+		assertThat(ToolkitSnapshot.matches("java=11;jars=a.jar:10:1,b.jar:20:2", "java=11;jars=a.jar:10:1,b.jar:20:2")).isTrue();
+		assertThat(ToolkitSnapshot.matches("java=11;jars=a.jar:10:1,b.jar:20:2", "java=11;jars=a.jar:11:1,b.jar:20:2")).isFalse();
+		assertThat(ToolkitSnapshot.matches("java=11;jars=a.jar:10:1", "java=12;jars=a.jar:10:1")).isFalse();
+	}
+
+	@Test
+	void testBundledToolkitsNotStale() {
+		assertThat(ToolkitSnapshot.matches("java=11;jars=a.jar:10:1,b.jar:20:2", "java=11;jars=")).isTrue();
+	}
+
+	@Test
+	void testListenerMethodsSameAsReflection() {
+		final Factory factory = new FactoryImpl(new DefaultCoreFactory(), new StandardEnvironment());
+		final List<CtTypeReference<?>> types = List.of(factory.Type().createReference(java.awt.event.ActionListener.class),
+			factory.Type().createReference(javafx.event.EventHandler.class));
+
+		assertThat(snapshot.getListenerMethods()).containsAllEntriesOf(WidgetHelper.getListenerMethodsSignatures(types));
+	}
+
+	@Test
+	void testSupertypesSameAsReflection() {
+		final Factory factory = new FactoryImpl(new DefaultCoreFactory(), new StandardEnvironment());
+
+		for(final Class<?> type : List.of(javax.swing.JButton.class, javafx.scene.control.Button.class, org.eclipse.swt.widgets.Button.class)) {
+			final CtTypeReference<?> ref = factory.Type().createReference(type);
+			assertThat(snapshot.contains(type.getName())).isTrue();
+			for(final Class<?> root : WidgetHelper.WIDGET_TYPES) {
+				assertThat(snapshot.getSupertypes(type.getName()).contains(root.getName()))
+					.isEqualTo(ref.isSubtypeOf(factory.Type().createReference(root)));
+			}
+		}
+	}
+}